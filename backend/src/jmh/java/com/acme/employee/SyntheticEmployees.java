@@ -0,0 +1,49 @@
+package com.acme.employee;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.bson.Document;
+
+// Deterministic employee-shaped attribute maps for the benchmarks; a fixed seed keeps runs comparable.
+public final class SyntheticEmployees {
+
+    private static final String[] DEPARTMENTS = {"Sales", "Engineering", "Finance", "Support", "Legal"};
+    private static final String[] LAST_NAMES = {"Smith", "Jones", "Garcia", "Nguyen", "Okafor", "Novak"};
+
+    private SyntheticEmployees() {
+    }
+
+    public static Map<String, Object> attributes(Random random, int width) {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("firstName", "Employee" + random.nextInt(100_000));
+        attributes.put("lastName", LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+        attributes.put("email", "employee" + random.nextInt(1_000_000) + "@acme.com");
+        attributes.put("department", DEPARTMENTS[random.nextInt(DEPARTMENTS.length)]);
+        attributes.put("salary", 40_000 + random.nextInt(160_000));
+        attributes.put("active", random.nextBoolean());
+        attributes.put("hiredAt", Instant.ofEpochSecond(1_500_000_000L + random.nextInt(200_000_000)));
+        attributes.put("skills", List.of("java", "mongo", "react").subList(0, 1 + random.nextInt(3)));
+        // sparse optional field, so required/nullable inference has work to do
+        if (random.nextInt(4) == 0) {
+            attributes.put("manager", random.nextBoolean() ? null : "Manager" + random.nextInt(100));
+        }
+        for (int i = attributes.size(); i < width; i++) {
+            attributes.put("custom" + i, random.nextBoolean() ? "value" + random.nextInt(1000) : random.nextDouble());
+        }
+        return attributes;
+    }
+
+    public static List<Document> documents(int count, int width) {
+        Random random = new Random(42);
+        List<Document> documents = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            documents.add(new Document("attributes", new Document(attributes(random, width))));
+        }
+        return documents;
+    }
+}
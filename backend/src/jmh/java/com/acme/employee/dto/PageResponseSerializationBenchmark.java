@@ -0,0 +1,86 @@
+package com.acme.employee.dto;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.acme.employee.SyntheticEmployees;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.mongodb.MongoClientSettings;
+
+// Mirrors the WebFlux encoder's ObjectMapper settings: JSR-310 module, ISO dates rather than timestamps.
+// serializeRaw writes the same page from undecoded BSON, as the list endpoint does with app.list.raw-bson.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PageResponseSerializationBenchmark {
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    @Param({"10", "50"})
+    private int width;
+
+    private ObjectMapper objectMapper;
+    private PageResponse<EmployeeResponse> page;
+    private PageResponse<RawEmployee> rawPage;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        Random random = new Random(42);
+        List<EmployeeResponse> content = new ArrayList<>(pageSize);
+        List<RawEmployee> rawContent = new ArrayList<>(pageSize);
+        DocumentCodec codec = new DocumentCodec(MongoClientSettings.getDefaultCodecRegistry());
+        for (int i = 0; i < pageSize; i++) {
+            Map<String, Object> attributes = SyntheticEmployees.attributes(random, width);
+            content.add(new EmployeeResponse(Integer.toHexString(i), attributes, false, Instant.EPOCH, Instant.EPOCH, 1));
+            Document stored = new Document("_id", Integer.toHexString(i))
+                    .append("attributes", new Document(attributes))
+                    .append("deleted", false)
+                    .append("createdAt", Date.from(Instant.EPOCH))
+                    .append("updatedAt", Date.from(Instant.EPOCH))
+                    .append("version", 1L);
+            rawContent.add(new RawEmployee(new RawBsonDocument(stored, codec)));
+        }
+        page = new PageResponse<>(content, 10_000, true, 3, pageSize, 10_000 / pageSize, true, true, null);
+        rawPage = new PageResponse<>(rawContent, 10_000, true, 3, pageSize, 10_000 / pageSize, true, true, null);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] serializeRaw() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(rawPage);
+    }
+}
@@ -0,0 +1,62 @@
+package com.acme.employee.mapper;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.acme.employee.SyntheticEmployees;
+import com.acme.employee.dto.EmployeeResponse;
+import com.acme.employee.model.EmployeeDocument;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmployeeMapperBenchmark {
+
+    @Param({"10", "50", "200"})
+    private int width;
+
+    private final EmployeeMapper mapper = new EmployeeMapper();
+    private Map<String, Object> attributes;
+    private EmployeeDocument document;
+
+    @Setup
+    public void setUp() {
+        attributes = SyntheticEmployees.attributes(new Random(42), width);
+        document = mapper.newDocument(attributes);
+        document.setId("66a1f0c2e4b0a1b2c3d4e5f6");
+        document.setCreatedAt(Instant.EPOCH);
+        document.setUpdatedAt(Instant.EPOCH);
+    }
+
+    @Benchmark
+    public Map<String, Object> cleanAttributes() {
+        return mapper.cleanAttributes(attributes);
+    }
+
+    @Benchmark
+    public EmployeeResponse toResponse() {
+        return mapper.toResponse(document);
+    }
+
+    @Benchmark
+    public String searchText() {
+        return mapper.searchText(attributes);
+    }
+}
@@ -0,0 +1,95 @@
+package com.acme.employee.service;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.acme.employee.config.AppProperties;
+import com.acme.employee.dto.EmployeeQueryParams;
+import com.acme.employee.dto.SearchMode;
+import com.acme.employee.mapper.EmployeeCsvMapper;
+import com.acme.employee.mapper.EmployeeMapper;
+import com.acme.employee.schema.SchemaField;
+import com.acme.employee.schema.SchemaFieldType;
+import com.acme.employee.schema.SchemaResult;
+import com.acme.employee.support.CollectionNameProvider;
+import com.acme.employee.support.SingleFlight;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+// Query construction for a list request: deleted filter, search, typed filters with operators.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBuildBenchmark {
+
+    private EmployeeService service;
+    private SchemaResult schema;
+    private EmployeeQueryParams filtered;
+    private EmployeeQueryParams regexSearch;
+    private EmployeeQueryParams textSearch;
+
+    @Setup
+    public void setUp() {
+        AppProperties properties = AppProperties.defaults();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        service = new EmployeeService(null, null, new EmployeeMapper(), new EmployeeCsvMapper(new ObjectMapper()),
+                null, null, new CollectionNameProvider("employees"), null, new SingleFlight<>("list", meterRegistry),
+                null, null, null, properties, meterRegistry);
+
+        Map<String, SchemaField> fields = new LinkedHashMap<>();
+        fields.put("firstName", new SchemaField("firstName", SchemaFieldType.STRING, true, false, null));
+        fields.put("lastName", new SchemaField("lastName", SchemaFieldType.STRING, true, false, null));
+        fields.put("email", new SchemaField("email", SchemaFieldType.STRING, true, false, null));
+        fields.put("department", new SchemaField("department", SchemaFieldType.STRING, true, false, null));
+        fields.put("salary", new SchemaField("salary", SchemaFieldType.NUMBER, true, false, null));
+        fields.put("active", new SchemaField("active", SchemaFieldType.BOOLEAN, true, false, null));
+        fields.put("hiredAt", new SchemaField("hiredAt", SchemaFieldType.DATE, true, false, null));
+        for (int i = 0; i < 20; i++) {
+            fields.put("custom" + i, new SchemaField("custom" + i, SchemaFieldType.STRING, false, true, null));
+        }
+        schema = new SchemaResult("employees", 200, Instant.EPOCH, fields);
+
+        Map<String, String> filters = Map.of(
+                "department", "eq:Sales",
+                "salary", "gt:50000",
+                "active", "true",
+                "hiredAt", "lt:2024-01-01T00:00:00Z",
+                "lastName", "contains:smi");
+        filtered = new EmployeeQueryParams(0, 20, "lastName", "asc", null, filters, null, null, SearchMode.REGEX, null);
+        regexSearch = new EmployeeQueryParams(0, 20, null, null, "jane", filters, null, null, SearchMode.REGEX, null);
+        textSearch = new EmployeeQueryParams(0, 20, null, null, "jane smith", filters, null, null, SearchMode.TEXT, null);
+    }
+
+    @Benchmark
+    public Document filters() {
+        return service.buildQuery(filtered, schema).getQueryObject();
+    }
+
+    @Benchmark
+    public Document regexSearchWithFilters() {
+        return service.buildQuery(regexSearch, schema).getQueryObject();
+    }
+
+    @Benchmark
+    public Document textSearchWithFilters() {
+        return service.buildQuery(textSearch, schema).getQueryObject();
+    }
+}
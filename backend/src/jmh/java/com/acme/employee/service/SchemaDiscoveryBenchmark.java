@@ -0,0 +1,52 @@
+package com.acme.employee.service;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.acme.employee.SyntheticEmployees;
+import com.acme.employee.config.AppProperties;
+import com.acme.employee.schema.SchemaResult;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SchemaDiscoveryBenchmark {
+
+    @Param({"200", "5000", "50000"})
+    private int documentCount;
+
+    private SchemaDiscoveryService service;
+    private List<Document> documents;
+
+    @Setup
+    public void setUp() {
+        AppProperties properties = AppProperties.defaults();
+        // buildSchema is pure; the Mongo-facing collaborators are never touched
+        service = new SchemaDiscoveryService(null, properties, null,
+                new QueryProfiler(null, new SimpleMeterRegistry(), properties));
+        documents = SyntheticEmployees.documents(documentCount, 20);
+    }
+
+    @Benchmark
+    public SchemaResult buildSchema() {
+        return service.buildSchema("employees", documentCount, documents);
+    }
+}
@@ -0,0 +1,296 @@
+package com.acme.employee.load;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+
+// Evaluates already-mapped filter, sort and update documents against in-memory BSON documents.
+// Covers the operators the service layer emits; anything else fails loudly rather than matching wrongly.
+final class InMemoryDocuments {
+
+    private static final Object MISSING = new Object();
+
+    private InMemoryDocuments() {
+    }
+
+    static boolean matches(Document document, Document filter) {
+        for (Map.Entry<String, Object> entry : filter.entrySet()) {
+            String key = entry.getKey();
+            Object condition = entry.getValue();
+            boolean matched = switch (key) {
+                case "$and" -> clauses(condition).stream().allMatch(clause -> matches(document, clause));
+                case "$or" -> clauses(condition).stream().anyMatch(clause -> matches(document, clause));
+                case "$nor" -> clauses(condition).stream().noneMatch(clause -> matches(document, clause));
+                default -> {
+                    if (key.startsWith("$")) {
+                        throw unsupported(key);
+                    }
+                    yield matchesField(resolve(document, key), condition);
+                }
+            };
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static Comparator<Document> comparator(Document sort) {
+        Comparator<Document> comparator = (left, right) -> 0;
+        for (Map.Entry<String, Object> entry : sort.entrySet()) {
+            if (!(entry.getValue() instanceof Number direction)) {
+                throw unsupported("sort " + entry);
+            }
+            String path = entry.getKey();
+            Comparator<Document> byField = (left, right) -> compare(resolve(left, path), resolve(right, path));
+            comparator = comparator.thenComparing(direction.intValue() < 0 ? byField.reversed() : byField);
+        }
+        return comparator;
+    }
+
+    // Mongo orders values of different types by type bracket; within a bracket they compare naturally
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static int compare(Object left, Object right) {
+        left = left == MISSING ? null : left;
+        right = right == MISSING ? null : right;
+        int bracket = Integer.compare(bracket(left), bracket(right));
+        if (bracket != 0 || left == null) {
+            return bracket;
+        }
+        if (left instanceof Number a && right instanceof Number b) {
+            return Double.compare(a.doubleValue(), b.doubleValue());
+        }
+        if (left instanceof Comparable comparable && left.getClass() == right.getClass()) {
+            return comparable.compareTo(right);
+        }
+        return left.toString().compareTo(right.toString());
+    }
+
+    static void applyUpdate(Document document, Document update, boolean inserting) {
+        for (Map.Entry<String, Object> entry : update.entrySet()) {
+            Document fields = (Document) entry.getValue();
+            switch (entry.getKey()) {
+                case "$set" -> fields.forEach((path, value) -> set(document, path, copy(value)));
+                case "$setOnInsert" -> {
+                    if (inserting) {
+                        fields.forEach((path, value) -> set(document, path, copy(value)));
+                    }
+                }
+                case "$unset" -> fields.keySet().forEach(path -> unset(document, path));
+                case "$inc" -> fields.forEach((path, delta) -> set(document, path, add(resolve(document, path), (Number) delta)));
+                case "$addToSet" -> fields.forEach((path, value) -> addToSet(document, path, value));
+                default -> throw unsupported(entry.getKey());
+            }
+        }
+    }
+
+    // Equality predicates of an upsert filter seed the inserted document, as Mongo does
+    static Document upsertSeed(Document filter) {
+        Document seed = new Document();
+        filter.forEach((key, value) -> {
+            if (!key.startsWith("$") && !(value instanceof Document condition && isOperatorDocument(condition))) {
+                set(seed, key, copy(value));
+            }
+        });
+        return seed;
+    }
+
+    static Object resolve(Document document, String path) {
+        Object current = document;
+        for (String segment : path.split("\\.")) {
+            if (!(current instanceof Map<?, ?> map) || !map.containsKey(segment)) {
+                return MISSING;
+            }
+            current = map.get(segment);
+        }
+        return current;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T copy(T value) {
+        if (value instanceof Document document) {
+            Document copied = new Document();
+            document.forEach((key, nested) -> copied.put(key, copy(nested)));
+            return (T) copied;
+        }
+        if (value instanceof Map<?, ?> map) {
+            Document copied = new Document();
+            map.forEach((key, nested) -> copied.put(String.valueOf(key), copy(nested)));
+            return (T) copied;
+        }
+        if (value instanceof Collection<?> list) {
+            List<Object> copied = new ArrayList<>(list.size());
+            list.forEach(nested -> copied.add(copy(nested)));
+            return (T) copied;
+        }
+        return value;
+    }
+
+    private static boolean matchesField(Object actual, Object condition) {
+        if (condition instanceof Pattern pattern) {
+            return anyValue(actual, value -> value instanceof String text && pattern.matcher(text).find());
+        }
+        if (!(condition instanceof Document operators) || !isOperatorDocument(operators)) {
+            return equalsValue(actual, condition);
+        }
+        for (Map.Entry<String, Object> entry : operators.entrySet()) {
+            Object operand = entry.getValue();
+            boolean matched = switch (entry.getKey()) {
+                case "$eq" -> equalsValue(actual, operand);
+                case "$ne" -> !equalsValue(actual, operand);
+                case "$gt" -> anyValue(actual, value -> comparable(value, operand) && compare(value, operand) > 0);
+                case "$gte" -> anyValue(actual, value -> comparable(value, operand) && compare(value, operand) >= 0);
+                case "$lt" -> anyValue(actual, value -> comparable(value, operand) && compare(value, operand) < 0);
+                case "$lte" -> anyValue(actual, value -> comparable(value, operand) && compare(value, operand) <= 0);
+                case "$in" -> ((Collection<?>) operand).stream().anyMatch(candidate -> equalsValue(actual, candidate));
+                case "$nin" -> ((Collection<?>) operand).stream().noneMatch(candidate -> equalsValue(actual, candidate));
+                case "$exists" -> (actual != MISSING) == Boolean.TRUE.equals(operand);
+                case "$regex" -> matchesField(actual, regex(operand, operators.getString("$options")));
+                case "$options" -> true;
+                case "$not" -> !matchesField(actual, operand);
+                default -> throw unsupported(entry.getKey());
+            };
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean equalsValue(Object actual, Object expected) {
+        if (expected == null) {
+            return actual == MISSING || actual == null;
+        }
+        return anyValue(actual, value -> value instanceof Number a && expected instanceof Number b
+                ? a.doubleValue() == b.doubleValue()
+                : Objects.equals(value, expected));
+    }
+
+    // Array fields match when the array itself or any element satisfies the predicate
+    private static boolean anyValue(Object actual, java.util.function.Predicate<Object> predicate) {
+        if (actual == MISSING) {
+            return false;
+        }
+        if (predicate.test(actual)) {
+            return true;
+        }
+        return actual instanceof Collection<?> values && values.stream().anyMatch(predicate);
+    }
+
+    private static boolean comparable(Object value, Object operand) {
+        return value != null && operand != null && bracket(value) == bracket(operand);
+    }
+
+    private static Pattern regex(Object operand, String options) {
+        if (operand instanceof Pattern pattern) {
+            return pattern;
+        }
+        int flags = options != null && options.contains("i") ? Pattern.CASE_INSENSITIVE : 0;
+        return Pattern.compile(operand.toString(), flags);
+    }
+
+    private static int bracket(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof Number) {
+            return 1;
+        }
+        if (value instanceof String) {
+            return 2;
+        }
+        if (value instanceof Map<?, ?>) {
+            return 3;
+        }
+        if (value instanceof Collection<?>) {
+            return 4;
+        }
+        if (value instanceof ObjectId) {
+            return 5;
+        }
+        if (value instanceof Boolean) {
+            return 6;
+        }
+        if (value instanceof Date) {
+            return 7;
+        }
+        return 8;
+    }
+
+    private static boolean isOperatorDocument(Document document) {
+        return !document.isEmpty() && document.keySet().iterator().next().startsWith("$");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Document> clauses(Object condition) {
+        return (List<Document>) condition;
+    }
+
+    private static void set(Document document, String path, Object value) {
+        int dot = path.lastIndexOf('.');
+        parent(document, path, dot).put(path.substring(dot + 1), value);
+    }
+
+    private static void unset(Document document, String path) {
+        int dot = path.lastIndexOf('.');
+        parent(document, path, dot).remove(path.substring(dot + 1));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> parent(Document document, String path, int dot) {
+        Map<String, Object> current = document;
+        if (dot < 0) {
+            return current;
+        }
+        for (String segment : path.substring(0, dot).split("\\.")) {
+            Object next = current.get(segment);
+            if (!(next instanceof Map<?, ?>)) {
+                next = new Document();
+                current.put(segment, next);
+            }
+            current = (Map<String, Object>) next;
+        }
+        return current;
+    }
+
+    private static Number add(Object current, Number delta) {
+        if (current == MISSING || current == null) {
+            return delta;
+        }
+        if (current instanceof Double || current instanceof Float || delta instanceof Double || delta instanceof Float) {
+            return ((Number) current).doubleValue() + delta.doubleValue();
+        }
+        if (current instanceof Long || delta instanceof Long) {
+            return ((Number) current).longValue() + delta.longValue();
+        }
+        return ((Number) current).intValue() + delta.intValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void addToSet(Document document, String path, Object value) {
+        Object existing = resolve(document, path);
+        List<Object> values = existing instanceof List<?> list ? (List<Object>) list : new ArrayList<>();
+        Collection<?> additions = value instanceof Document each && each.containsKey("$each")
+                ? (Collection<?>) each.get("$each")
+                : List.of(value);
+        for (Object addition : additions) {
+            if (values.stream().noneMatch(candidate -> Objects.equals(candidate, addition))) {
+                values.add(copy(addition));
+            }
+        }
+        set(document, path, values);
+    }
+
+    private static InvalidDataAccessApiUsageException unsupported(String operator) {
+        return new InvalidDataAccessApiUsageException("In-memory Mongo stand-in does not support " + operator);
+    }
+}
@@ -0,0 +1,336 @@
+package com.acme.employee.load;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.bson.BsonObjectId;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.convert.UpdateMapper;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOptions;
+import org.springframework.data.mongodb.core.index.ReactiveIndexOperations;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import com.mongodb.reactivestreams.client.MongoCollection;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// ReactiveMongoTemplate whose collections live in memory, so the real repository, services and controllers
+// run unchanged without a server. Filters, sorts and updates go through Spring Data's own mappers first,
+// so the stand-in sees the same BSON a driver would. Every operation pays an injected round-trip delay.
+// Text search, aggregation and bulk writes are not available, and there is no raw driver collection.
+public class InMemoryMongoTemplate extends ReactiveMongoTemplate {
+
+    private final Map<String, NavigableMap<Object, Document>> collections = new ConcurrentHashMap<>();
+    private final QueryMapper queryMapper;
+    private final UpdateMapper updateMapper;
+    private final long latencyMicros;
+    private final long jitterMicros;
+
+    public InMemoryMongoTemplate(ReactiveMongoDatabaseFactory databaseFactory, MongoConverter converter,
+                                 Duration latency, Duration jitter) {
+        super(databaseFactory, converter);
+        this.queryMapper = new QueryMapper(converter);
+        this.updateMapper = new UpdateMapper(converter);
+        this.latencyMicros = latency.toNanos() / 1_000;
+        this.jitterMicros = jitter.toNanos() / 1_000;
+    }
+
+    @Override
+    public <T> Flux<T> find(Query query, Class<T> entityClass, String collectionName) {
+        return roundTripMany(() -> Flux.fromIterable(select(query, entityClass, collectionName).toList())
+                .map(document -> read(entityClass, document)));
+    }
+
+    @Override
+    public <T> Mono<T> findById(Object id, Class<T> entityClass, String collectionName) {
+        return roundTrip(() -> Mono.justOrEmpty(store(collectionName).get(queryMapper.convertId(id)))
+                .map(document -> read(entityClass, document)));
+    }
+
+    @Override
+    public <T> Mono<T> findOne(Query query, Class<T> entityClass, String collectionName) {
+        return roundTrip(() -> Mono.justOrEmpty(select(query, entityClass, collectionName).findFirst())
+                .map(document -> read(entityClass, document)));
+    }
+
+    @Override
+    public Mono<Long> count(Query query, Class<?> entityClass, String collectionName) {
+        Document filter = queryMapper.getMappedObject(query.getQueryObject(), entity(entityClass));
+        return roundTrip(() -> Mono.just(store(collectionName).values().stream()
+                .filter(document -> InMemoryDocuments.matches(document, filter))
+                .count()));
+    }
+
+    @Override
+    public Mono<Long> estimatedCount(String collectionName) {
+        return roundTrip(() -> Mono.just((long) store(collectionName).size()));
+    }
+
+    @Override
+    public Mono<Boolean> exists(Query query, Class<?> entityClass, String collectionName) {
+        return roundTrip(() -> Mono.just(select(query, entityClass, collectionName).findAny().isPresent()));
+    }
+
+    @Override
+    public <T> Mono<T> findAndModify(Query query, UpdateDefinition update, FindAndModifyOptions options,
+                                     Class<T> entityClass, String collectionName) {
+        return roundTrip(() -> {
+            Modification modification = modify(query, update, options.isUpsert(), entityClass, collectionName);
+            Document result = options.isReturnNew() ? modification.after() : modification.before();
+            return Mono.justOrEmpty(result).map(document -> read(entityClass, document));
+        });
+    }
+
+    @Override
+    public Mono<UpdateResult> updateFirst(Query query, UpdateDefinition update, Class<?> entityClass,
+                                          String collectionName) {
+        return roundTrip(() -> Mono.just(modify(query, update, false, entityClass, collectionName).toResult()));
+    }
+
+    @Override
+    public Mono<UpdateResult> upsert(Query query, UpdateDefinition update, Class<?> entityClass, String collectionName) {
+        return roundTrip(() -> Mono.just(modify(query, update, true, entityClass, collectionName).toResult()));
+    }
+
+    @Override
+    public Mono<UpdateResult> upsert(Query query, UpdateDefinition update, String collectionName) {
+        return upsert(query, update, null, collectionName);
+    }
+
+    @Override
+    public Mono<DeleteResult> remove(Query query, Class<?> entityClass, String collectionName) {
+        return roundTrip(() -> {
+            NavigableMap<Object, Document> store = store(collectionName);
+            synchronized (store) {
+                List<Object> ids = select(query, entityClass, collectionName).map(document -> document.get("_id")).toList();
+                ids.forEach(store::remove);
+                return Mono.just(DeleteResult.acknowledged(ids.size()));
+            }
+        });
+    }
+
+    @Override
+    public Mono<DeleteResult> remove(Query query, String collectionName) {
+        return remove(query, null, collectionName);
+    }
+
+    @Override
+    public <T> Mono<T> insert(T objectToSave, String collectionName) {
+        return roundTrip(() -> insertOne(objectToSave, collectionName));
+    }
+
+    @Override
+    public <T> Flux<T> insert(Collection<? extends T> batchToSave, String collectionName) {
+        return roundTripMany(() -> Flux.fromIterable(batchToSave)
+                .concatMap(objectToSave -> insertOne(objectToSave, collectionName)));
+    }
+
+    @Override
+    public <T> Mono<T> save(T objectToSave, String collectionName) {
+        return roundTrip(() -> maybeCallBeforeConvert(objectToSave, collectionName).map(converted -> {
+            Document document = write(converted);
+            store(collectionName).put(document.get("_id"), document);
+            return readAs(converted, document);
+        }));
+    }
+
+    @Override
+    public <O> Flux<O> aggregate(Aggregation aggregation, String collectionName, Class<O> outputType) {
+        return Flux.error(unsupported("aggregation"));
+    }
+
+    @Override
+    public ReactiveBulkOperations bulkOps(BulkOperations.BulkMode mode, Class<?> entityType, String collectionName) {
+        throw unsupported("bulk writes");
+    }
+
+    // Callers that drop to the driver (backfill, explain, $indexStats) treat an empty result as "nothing to do"
+    @Override
+    public Mono<MongoCollection<Document>> getCollection(String collectionName) {
+        return Mono.empty();
+    }
+
+    @Override
+    public ReactiveIndexOperations indexOps(String collectionName) {
+        return NoIndexOperations.INSTANCE;
+    }
+
+    private <T> Mono<T> insertOne(T objectToSave, String collectionName) {
+        return maybeCallBeforeConvert(objectToSave, collectionName).flatMap(converted -> {
+            Document document = write(converted);
+            if (store(collectionName).putIfAbsent(document.get("_id"), document) != null) {
+                return Mono.error(new DuplicateKeyException("Duplicate _id " + document.get("_id")));
+            }
+            return Mono.just(readAs(converted, document));
+        });
+    }
+
+    private Stream<Document> select(Query query, Class<?> entityClass, String collectionName) {
+        MongoPersistentEntity<?> entity = entity(entityClass);
+        Document filter = queryMapper.getMappedObject(query.getQueryObject(), entity);
+        Document sort = queryMapper.getMappedSort(query.getSortObject(), entity);
+        NavigableMap<Object, Document> store = store(collectionName);
+
+        // the store is keyed by _id, so natural order and _id sorts need no sorting pass
+        Stream<Document> matching;
+        if (sort.isEmpty() || sort.equals(new Document("_id", 1))) {
+            matching = store.values().stream().filter(document -> InMemoryDocuments.matches(document, filter));
+        } else if (sort.equals(new Document("_id", -1))) {
+            matching = store.descendingMap().values().stream()
+                    .filter(document -> InMemoryDocuments.matches(document, filter));
+        } else {
+            matching = store.values().stream()
+                    .filter(document -> InMemoryDocuments.matches(document, filter))
+                    .sorted(InMemoryDocuments.comparator(sort));
+        }
+        matching = matching.skip(query.getSkip());
+        return query.getLimit() > 0 ? matching.limit(query.getLimit()) : matching;
+    }
+
+    // Writes are serialized per collection; readers see whole documents because updates replace a copy
+    private Modification modify(Query query, UpdateDefinition update, boolean upsert, Class<?> entityClass,
+                                String collectionName) {
+        MongoPersistentEntity<?> entity = entity(entityClass);
+        Document mappedUpdate = updateMapper.getMappedObject(update.getUpdateObject(), entity);
+        NavigableMap<Object, Document> store = store(collectionName);
+        synchronized (store) {
+            Document before = select(query, entityClass, collectionName).findFirst().orElse(null);
+            if (before == null && !upsert) {
+                return Modification.NONE;
+            }
+            Document after = before == null
+                    ? InMemoryDocuments.upsertSeed(queryMapper.getMappedObject(query.getQueryObject(), entity))
+                    : InMemoryDocuments.copy(before);
+            InMemoryDocuments.applyUpdate(after, mappedUpdate, before == null);
+            after.putIfAbsent("_id", new ObjectId());
+            store.put(after.get("_id"), after);
+            return new Modification(before, after);
+        }
+    }
+
+    private Document write(Object entity) {
+        Document document = new Document();
+        getConverter().write(entity, document);
+        document.putIfAbsent("_id", new ObjectId());
+        return document;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T readAs(T entity, Document document) {
+        return (T) getConverter().read(entity.getClass(), document);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T read(Class<T> entityClass, Document document) {
+        if (entityClass == Document.class) {
+            return (T) InMemoryDocuments.copy(document);
+        }
+        return getConverter().read(entityClass, document);
+    }
+
+    private MongoPersistentEntity<?> entity(Class<?> entityClass) {
+        if (entityClass == null || Document.class.isAssignableFrom(entityClass)) {
+            return null;
+        }
+        return getConverter().getMappingContext().getPersistentEntity(entityClass);
+    }
+
+    private NavigableMap<Object, Document> store(String collectionName) {
+        return collections.computeIfAbsent(collectionName, name -> new ConcurrentSkipListMap<>(InMemoryDocuments::compare));
+    }
+
+    private <T> Mono<T> roundTrip(Supplier<Mono<T>> operation) {
+        long delay = nextDelayMicros();
+        Mono<T> execution = Mono.defer(operation);
+        return delay == 0 ? execution : Mono.delay(Duration.ofNanos(delay * 1_000)).then(execution);
+    }
+
+    private <T> Flux<T> roundTripMany(Supplier<Flux<T>> operation) {
+        long delay = nextDelayMicros();
+        Flux<T> execution = Flux.defer(operation);
+        return delay == 0 ? execution : Mono.delay(Duration.ofNanos(delay * 1_000)).thenMany(execution);
+    }
+
+    private long nextDelayMicros() {
+        return jitterMicros == 0 ? latencyMicros : latencyMicros + ThreadLocalRandom.current().nextLong(jitterMicros + 1);
+    }
+
+    private static InvalidDataAccessApiUsageException unsupported(String feature) {
+        return new InvalidDataAccessApiUsageException("In-memory Mongo stand-in does not support " + feature);
+    }
+
+    private record Modification(Document before, Document after) {
+
+        private static final Modification NONE = new Modification(null, null);
+
+        UpdateResult toResult() {
+            if (after == null) {
+                return UpdateResult.acknowledged(0, 0L, null);
+            }
+            if (before == null) {
+                BsonValue upsertedId = after.get("_id") instanceof ObjectId id ? new BsonObjectId(id) : null;
+                return UpdateResult.acknowledged(0, 0L, upsertedId);
+            }
+            return UpdateResult.acknowledged(1, 1L, null);
+        }
+    }
+
+    // Index creation is meaningless without a query planner; report success so startup stays quiet
+    private static final class NoIndexOperations implements ReactiveIndexOperations {
+
+        private static final NoIndexOperations INSTANCE = new NoIndexOperations();
+
+        @Override
+        public Mono<String> ensureIndex(IndexDefinition indexDefinition) {
+            Object name = indexDefinition.getIndexOptions().get("name");
+            return Mono.just(name == null ? "in_memory" : name.toString());
+        }
+
+        @Override
+        public Mono<Void> alterIndex(String name, IndexOptions options) {
+            return Mono.empty();
+        }
+
+        @Override
+        public Mono<Void> dropIndex(String name) {
+            return Mono.empty();
+        }
+
+        @Override
+        public Mono<Void> dropAllIndexes() {
+            return Mono.empty();
+        }
+
+        @Override
+        public Flux<IndexInfo> getIndexInfo() {
+            return Flux.empty();
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.acme.employee.load;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import com.acme.employee.EmployeeCrudApplication;
+import com.acme.employee.load.LoadSettings.Operation;
+import com.acme.employee.mapper.EmployeeMapper;
+import com.acme.employee.model.EmployeeDocument;
+import com.acme.employee.support.CollectionNameProvider;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+// Boots the real application on a random port against InMemoryMongoTemplate and drives a weighted mix of
+// list/get/create/patch requests from a fixed number of closed-loop workers over Reactor Netty.
+// Latencies are recorded client-side, so they include HTTP, security, serialization and the injected
+// Mongo round trips. Run with: mvn -Pload -DskipTests test-compile exec:exec@load
+public final class LoadHarness {
+
+    private static final String[] DEPARTMENTS = {"Sales", "Engineering", "Finance", "Support", "Legal"};
+    private static final String[] LAST_NAMES = {"Smith", "Jones", "Garcia", "Nguyen", "Okafor", "Novak"};
+    private static final long MAX_TRACKED_MICROS = TimeUnit.SECONDS.toMicros(60);
+
+    private final LoadSettings settings;
+    private final WebClient client;
+    private final List<String> ids;
+    private final Operation[] schedule;
+
+    private LoadHarness(LoadSettings settings, WebClient client, List<String> ids) {
+        this.settings = settings;
+        this.client = client;
+        this.ids = ids;
+        this.schedule = schedule(settings.mix());
+    }
+
+    public static void main(String[] args) throws IOException {
+        LoadSettings settings = LoadSettings.fromSystemProperties();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(
+                EmployeeCrudApplication.class, LoadHarnessConfiguration.class)
+                .initializers(ctx -> ctx.getBeanFactory().registerSingleton("loadSettings", settings))
+                .properties(applicationProperties())
+                .run(args)) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            List<String> ids = seed(context, settings.seedDocuments());
+
+            ConnectionProvider connections = ConnectionProvider.builder("load-harness")
+                    .maxConnections(settings.concurrency())
+                    .pendingAcquireMaxCount(-1)
+                    .build();
+            WebClient client = WebClient.builder()
+                    .baseUrl("http://localhost:" + port + "/api/employees")
+                    .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)))
+                    .build();
+            try {
+                LoadHarness harness = new LoadHarness(settings, client, ids);
+                harness.run(settings.warmup());
+                Report report = harness.run(settings.duration());
+                print(report);
+                Files.createDirectories(settings.report().toAbsolutePath().getParent());
+                new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                        .writeValue(settings.report().toFile(), report);
+                System.out.printf("Report written to %s%n", settings.report().toAbsolutePath());
+            } finally {
+                connections.dispose();
+            }
+        }
+    }
+
+    // Default properties rank below application.yml, so these fill the environment placeholders it reads
+    private static Map<String, Object> applicationProperties() {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("SERVER_PORT", 0);
+        // the driver client is created but never used; the in-memory template answers every operation
+        properties.put("MONGODB_URI", "mongodb://localhost:27017/load-harness");
+        properties.put("MONGODB_DB", "load-harness");
+        // the stand-in has no aggregation pipeline, so schema discovery samples documents instead
+        properties.put("SCHEMA_ENGINE", "SAMPLE");
+        // nor raw driver collections, so pages are read through the mapped path
+        properties.put("LIST_RAW_BSON", "false");
+        // nor capped collections with tailable cursors, and a single instance has no one to tell
+        properties.put("CACHE_BUS_ENABLED", "false");
+        properties.put("LOG_LEVEL", "WARN");
+        return properties;
+    }
+
+    private static List<String> seed(ConfigurableApplicationContext context, int count) {
+        EmployeeMapper mapper = context.getBean(EmployeeMapper.class);
+        String collection = context.getBean(CollectionNameProvider.class).collectionName();
+        Random random = new Random(42);
+        List<EmployeeDocument> documents = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            documents.add(mapper.newDocument(attributes(random)));
+        }
+        return context.getBean(InMemoryMongoTemplate.class)
+                .insert(documents, collection)
+                .map(EmployeeDocument::getId)
+                .collectList()
+                .block();
+    }
+
+    private Report run(Duration duration) {
+        Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+        settings.mix().keySet().forEach(operation -> recorders.put(operation, new Recorder()));
+        long started = System.nanoTime();
+        long deadline = started + duration.toNanos();
+
+        Flux.range(0, settings.concurrency())
+                .flatMap(worker -> Mono.defer(() -> issue(recorders))
+                        .repeat(() -> System.nanoTime() < deadline)
+                        .then(), settings.concurrency())
+                .blockLast();
+
+        double seconds = (System.nanoTime() - started) / 1e9;
+        Map<String, OperationReport> operations = new LinkedHashMap<>();
+        Histogram total = new Histogram(MAX_TRACKED_MICROS, 3);
+        long totalErrors = 0;
+        for (Map.Entry<Operation, Recorder> entry : recorders.entrySet()) {
+            Recorder recorder = entry.getValue();
+            operations.put(entry.getKey().name().toLowerCase(), OperationReport.of(recorder.latencies, recorder.errors.sum(), seconds));
+            total.add(recorder.latencies);
+            totalErrors += recorder.errors.sum();
+        }
+        return new Report(settings.concurrency(), settings.mongoLatency().toMillis(), settings.mongoJitter().toMillis(),
+                seconds, OperationReport.of(total, totalErrors, seconds), operations);
+    }
+
+    private Mono<Void> issue(Map<Operation, Recorder> recorders) {
+        Operation operation = schedule[ThreadLocalRandom.current().nextInt(schedule.length)];
+        Recorder recorder = recorders.get(operation);
+        long started = System.nanoTime();
+        return request(operation)
+                .exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode().is2xxSuccessful()))
+                .onErrorReturn(false)
+                .doOnNext(success -> recorder.record(System.nanoTime() - started, success))
+                .then();
+    }
+
+    private WebClient.RequestHeadersSpec<?> request(Operation operation) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (operation) {
+            case LIST -> {
+                int pages = Math.max(ids.size() / settings.pageSize(), 1);
+                // half the lists filter on an attribute, so both the plain and the filtered query paths are measured
+                yield random.nextBoolean()
+                        ? client.get().uri("?page={page}&size={size}", random.nextInt(pages), settings.pageSize())
+                        : client.get().uri("?page=0&size={size}&department={department}", settings.pageSize(),
+                        DEPARTMENTS[random.nextInt(DEPARTMENTS.length)]);
+            }
+            case GET -> client.get().uri("/{id}", randomId(random));
+            case CREATE -> client.post()
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + LoadHarnessConfiguration.TOKEN)
+                    .bodyValue(Map.of("attributes", attributes(random)));
+            case PATCH -> client.patch().uri("/{id}", randomId(random))
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + LoadHarnessConfiguration.TOKEN)
+                    .bodyValue(Map.of("attributes", Map.of("salary", 40_000 + random.nextInt(160_000))));
+        };
+    }
+
+    private String randomId(Random random) {
+        return ids.get(random.nextInt(ids.size()));
+    }
+
+    private static Map<String, Object> attributes(Random random) {
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("firstName", "Employee" + random.nextInt(100_000));
+        attributes.put("lastName", LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+        attributes.put("email", "employee" + random.nextInt(1_000_000) + "@acme.com");
+        attributes.put("department", DEPARTMENTS[random.nextInt(DEPARTMENTS.length)]);
+        attributes.put("salary", 40_000 + random.nextInt(160_000));
+        attributes.put("active", random.nextBoolean());
+        return attributes;
+    }
+
+    // Expands the weights into a lookup table so picking an operation is one random index
+    private static Operation[] schedule(Map<Operation, Integer> mix) {
+        List<Operation> slots = new ArrayList<>();
+        mix.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                slots.add(operation);
+            }
+        });
+        return slots.toArray(Operation[]::new);
+    }
+
+    private static void print(Report report) {
+        System.out.printf("%nconcurrency=%d mongoLatency=%dms(+%dms jitter) duration=%.1fs%n",
+                report.concurrency(), report.mongoLatencyMs(), report.mongoJitterMs(), report.seconds());
+        System.out.printf("%-8s %10s %8s %10s %9s %9s %9s %9s%n",
+                "op", "requests", "errors", "rps", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        report.operations().forEach((name, operation) -> print(name, operation));
+        print("total", report.total());
+    }
+
+    private static void print(String name, OperationReport operation) {
+        System.out.printf("%-8s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f%n", name, operation.requests(),
+                operation.errors(), operation.requestsPerSecond(), operation.p50Ms(), operation.p99Ms(),
+                operation.p999Ms(), operation.maxMs());
+    }
+
+    private static final class Recorder {
+
+        private final Histogram latencies = new ConcurrentHistogram(MAX_TRACKED_MICROS, 3);
+        private final LongAdder errors = new LongAdder();
+
+        void record(long nanos, boolean success) {
+            latencies.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), MAX_TRACKED_MICROS));
+            if (!success) {
+                errors.increment();
+            }
+        }
+    }
+
+    record Report(int concurrency, long mongoLatencyMs, long mongoJitterMs, double seconds,
+                  OperationReport total, Map<String, OperationReport> operations) {
+    }
+
+    record OperationReport(long requests, long errors, double requestsPerSecond,
+                           double p50Ms, double p99Ms, double p999Ms, double maxMs) {
+
+        static OperationReport of(Histogram latencies, long errors, double seconds) {
+            return new OperationReport(latencies.getTotalCount(), errors, latencies.getTotalCount() / seconds,
+                    millis(latencies.getValueAtPercentile(50)), millis(latencies.getValueAtPercentile(99)),
+                    millis(latencies.getValueAtPercentile(99.9)), millis(latencies.getMaxValue()));
+        }
+
+        private static double millis(long micros) {
+            return micros / 1_000.0;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.acme.employee.load;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.mongodb.ReactiveMongoDatabaseFactory;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+
+import com.acme.employee.config.AppProperties;
+import com.acme.employee.security.FirebaseTokenVerifier;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+// Swaps the two external dependencies for in-process stand-ins; everything else is the production wiring.
+@Configuration(proxyBeanMethods = false)
+class LoadHarnessConfiguration {
+
+    static final String TOKEN = "load-harness";
+
+    // Replaces Boot's template; the repository and services pick it up as their ReactiveMongoOperations
+    @Bean
+    InMemoryMongoTemplate reactiveMongoTemplate(ReactiveMongoDatabaseFactory databaseFactory,
+                                                MappingMongoConverter converter,
+                                                LoadSettings settings) {
+        return new InMemoryMongoTemplate(databaseFactory, converter, settings.mongoLatency(), settings.mongoJitter());
+    }
+
+    // Writes still pass SecurityConfig's filter chain; only the Firebase round trip is skipped
+    @Bean
+    @Primary
+    FirebaseTokenVerifier loadHarnessTokenVerifier(AppProperties appProperties, MeterRegistry meterRegistry) {
+        return new FirebaseTokenVerifier(appProperties, meterRegistry) {
+            @Override
+            public Mono<String> verify(String token) {
+                return TOKEN.equals(token) ? Mono.just("load-harness") : Mono.empty();
+            }
+        };
+    }
+}
@@ -0,0 +1,54 @@
+package com.acme.employee.load;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+// Harness knobs, read from -Dload.* system properties so runs can be scripted and compared.
+record LoadSettings(int concurrency,
+                    Duration warmup,
+                    Duration duration,
+                    int seedDocuments,
+                    int pageSize,
+                    Duration mongoLatency,
+                    Duration mongoJitter,
+                    Map<Operation, Integer> mix,
+                    Path report) {
+
+    enum Operation {
+        LIST, GET, CREATE, PATCH
+    }
+
+    static LoadSettings fromSystemProperties() {
+        return new LoadSettings(
+                Integer.getInteger("load.concurrency", 64),
+                Duration.ofSeconds(Long.getLong("load.warmupSeconds", 20)),
+                Duration.ofSeconds(Long.getLong("load.durationSeconds", 30)),
+                Integer.getInteger("load.seedDocuments", 10_000),
+                Integer.getInteger("load.pageSize", 20),
+                Duration.ofMillis(Long.getLong("load.mongoLatencyMs", 1)),
+                Duration.ofMillis(Long.getLong("load.mongoJitterMs", 1)),
+                parseMix(System.getProperty("load.mix", "list=50,get=30,create=10,patch=10")),
+                Path.of(System.getProperty("load.report", "target/load-report.json")));
+    }
+
+    // "list=50,get=30,create=10,patch=10"; weights are relative, omitted operations are not issued
+    static Map<Operation, Integer> parseMix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String part : mix.split(",")) {
+            String[] pair = part.trim().split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("load.mix entries look like list=50, got '%s'".formatted(part));
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight > 0) {
+                weights.put(Operation.valueOf(pair[0].trim().toUpperCase()), weight);
+            }
+        }
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("load.mix must give at least one operation a positive weight");
+        }
+        return weights;
+    }
+}
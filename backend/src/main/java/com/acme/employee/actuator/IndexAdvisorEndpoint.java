@@ -0,0 +1,35 @@
+package com.acme.employee.actuator;
+
+import java.util.List;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import com.acme.employee.service.IndexAdvisor;
+
+import reactor.core.publisher.Mono;
+
+// GET /actuator/indexadvisor reports observed query shapes, index recommendations and indexes with no
+// recorded use; POST creates the top recommendations regardless of app.index-advisor.auto-create.
+@Component
+@Endpoint(id = "indexadvisor")
+public class IndexAdvisorEndpoint {
+
+    private final IndexAdvisor indexAdvisor;
+
+    public IndexAdvisorEndpoint(IndexAdvisor indexAdvisor) {
+        this.indexAdvisor = indexAdvisor;
+    }
+
+    @ReadOperation
+    public Mono<IndexAdvisor.Report> report() {
+        return indexAdvisor.report();
+    }
+
+    @WriteOperation
+    public Mono<List<IndexAdvisor.Recommendation>> apply() {
+        return indexAdvisor.applyRecommendations();
+    }
+}
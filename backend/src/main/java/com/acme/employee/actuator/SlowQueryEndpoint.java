@@ -0,0 +1,31 @@
+package com.acme.employee.actuator;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import com.acme.employee.service.QueryProfiler;
+
+// GET /actuator/slowqueries lists the most recent slow queries (newest first) and the shape ids used as
+// the "shape" tag on the employees.query timer.
+@Component
+@Endpoint(id = "slowqueries")
+public class SlowQueryEndpoint {
+
+    private final QueryProfiler queryProfiler;
+
+    public SlowQueryEndpoint(QueryProfiler queryProfiler) {
+        this.queryProfiler = queryProfiler;
+    }
+
+    @ReadOperation
+    public SlowQueryReport slowQueries() {
+        return new SlowQueryReport(queryProfiler.slowQueries(), queryProfiler.shapes());
+    }
+
+    public record SlowQueryReport(List<QueryProfiler.SlowQuery> slowQueries, Map<String, String> shapes) {
+    }
+}
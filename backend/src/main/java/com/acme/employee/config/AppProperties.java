@@ -3,38 +3,174 @@ package com.acme.employee.config;
 import java.util.List;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
 import org.springframework.boot.context.properties.bind.DefaultValue;
 
+import com.acme.employee.dto.CountStrategy;
+import com.acme.employee.dto.SearchMode;
+import com.acme.employee.schema.SchemaEngine;
+
+import lombok.Builder;
+
+@Builder
 @ConfigurationProperties(prefix = "app")
-public record AppProperties(SchemaProperties schema, CorsProperties cors) {
+public record AppProperties(@DefaultValue SchemaProperties schema, @DefaultValue CorsProperties cors,
+                            @DefaultValue ListProperties list, @DefaultValue BulkProperties bulk,
+                            @DefaultValue AuthProperties auth, @DefaultValue EmployeeCacheProperties employeeCache,
+                            @DefaultValue SearchProperties search, @DefaultValue SuggestProperties suggest,
+                            @DefaultValue IndexAdvisorProperties indexAdvisor,
+                            @DefaultValue QueryProfileProperties queryProfile,
+                            @DefaultValue FacetProperties facets, @DefaultValue StreamProperties stream,
+                            @DefaultValue CacheBusProperties cacheBus) {
+
+    // Binds nothing, so a section comes out with exactly the @DefaultValue defaults the application binder uses
+    private static final Binder DEFAULTS = new Binder();
 
     public AppProperties {
-        if (schema == null) {
-            schema = new SchemaProperties(200, 300);
-        }
-        if (cors == null) {
-            cors = new CorsProperties(List.of("http://localhost:5173"));
-        }
+        schema = orDefault(schema, SchemaProperties.class);
+        cors = orDefault(cors, CorsProperties.class);
+        list = orDefault(list, ListProperties.class);
+        bulk = orDefault(bulk, BulkProperties.class);
+        auth = orDefault(auth, AuthProperties.class);
+        employeeCache = orDefault(employeeCache, EmployeeCacheProperties.class);
+        search = orDefault(search, SearchProperties.class);
+        suggest = orDefault(suggest, SuggestProperties.class);
+        indexAdvisor = orDefault(indexAdvisor, IndexAdvisorProperties.class);
+        queryProfile = orDefault(queryProfile, QueryProfileProperties.class);
+        facets = orDefault(facets, FacetProperties.class);
+        stream = orDefault(stream, StreamProperties.class);
+        cacheBus = orDefault(cacheBus, CacheBusProperties.class);
     }
 
-    public record SchemaProperties(
-            int sampleSize,
-            int cacheTtlSeconds) {
+    // Every section at its default; tests and benchmarks override sections through builder()
+    public static AppProperties defaults() {
+        return builder().build();
+    }
 
-        public SchemaProperties(@DefaultValue("200") int sampleSize,
-                                @DefaultValue("300") int cacheTtlSeconds) {
-            this.sampleSize = sampleSize;
-            this.cacheTtlSeconds = cacheTtlSeconds;
-        }
+    private static <T> T orDefault(T section, Class<T> type) {
+        return section != null ? section : DEFAULTS.bindOrCreate("app", type);
     }
 
-    public record CorsProperties(List<String> allowedOrigins) {
+    public record SchemaProperties(@DefaultValue("200") int sampleSize,
+                                   @DefaultValue("300") int cacheTtlSeconds,
+                                   @DefaultValue("AGGREGATION") SchemaEngine engine,
+                                   @DefaultValue("3600") int reconcileIntervalSeconds) {
+    }
+
+    public record CorsProperties(@DefaultValue(CorsProperties.LOCAL_DEV_ORIGIN) List<String> allowedOrigins) {
+
+        static final String LOCAL_DEV_ORIGIN = "http://localhost:5173";
 
+        // an empty CORS_ALLOWED_ORIGINS still allows the dev server
         public CorsProperties {
             if (allowedOrigins == null || allowedOrigins.isEmpty()) {
-                allowedOrigins = List.of("http://localhost:5173");
+                allowedOrigins = List.of(LOCAL_DEV_ORIGIN);
             }
         }
     }
-}
 
+    public record ListProperties(@DefaultValue("EXACT") CountStrategy countStrategy,
+                                 @DefaultValue("30") int countCacheTtlSeconds,
+                                 @DefaultValue("true") boolean rawBson) {
+    }
+
+    public record BulkProperties(@DefaultValue("500") int batchSize,
+                                 @DefaultValue("4") int concurrency,
+                                 @DefaultValue("1048576") int maxRecordBytes) {
+
+        public BulkProperties {
+            batchSize = Math.max(batchSize, 1);
+            concurrency = Math.max(concurrency, 1);
+        }
+    }
+
+    public record AuthProperties(@DefaultValue("10000") int tokenCacheSize,
+                                 @DefaultValue("8") int verifyThreads,
+                                 @DefaultValue("1000") int verifyQueueSize) {
+
+        public AuthProperties {
+            verifyThreads = Math.max(verifyThreads, 1);
+            verifyQueueSize = Math.max(verifyQueueSize, 1);
+        }
+    }
+
+    public record EmployeeCacheProperties(@DefaultValue("10000") int maximumSize,
+                                          @DefaultValue("300") int ttlSeconds,
+                                          @DefaultValue("10") int negativeTtlSeconds) {
+    }
+
+    public record SearchProperties(@DefaultValue("TEXT") SearchMode mode,
+                                   @DefaultValue("300") int textIndexRetrySeconds) {
+    }
+
+    public record SuggestProperties(@DefaultValue({"lastName", "email"}) List<String> fields,
+                                    @DefaultValue("10") int maxResults,
+                                    @DefaultValue("600") int rebuildIntervalSeconds) {
+
+        public SuggestProperties {
+            fields = fields == null ? List.of() : List.copyOf(fields);
+            maxResults = Math.max(maxResults, 1);
+        }
+    }
+
+    public record IndexAdvisorProperties(@DefaultValue("false") boolean autoCreate,
+                                         @DefaultValue("100") int minUsage,
+                                         @DefaultValue("8") int wildcardThreshold,
+                                         @DefaultValue("3600") int intervalSeconds,
+                                         @DefaultValue("2") int maxIndexesPerRun) {
+
+        public IndexAdvisorProperties {
+            minUsage = Math.max(minUsage, 1);
+            maxIndexesPerRun = Math.max(maxIndexesPerRun, 1);
+        }
+    }
+
+    public record QueryProfileProperties(@DefaultValue("500") long slowThresholdMs,
+                                         @DefaultValue("0.1") double explainSampleRate,
+                                         @DefaultValue("100") int ringSize,
+                                         @DefaultValue("200") int maxShapes) {
+
+        public QueryProfileProperties {
+            ringSize = Math.max(ringSize, 1);
+            maxShapes = Math.max(maxShapes, 1);
+        }
+    }
+
+    public record FacetProperties(@DefaultValue("5") int maxFields,
+                                  @DefaultValue("20") int maxBuckets,
+                                  @DefaultValue("15") int cacheTtlSeconds,
+                                  @DefaultValue("1000") int cacheSize) {
+
+        public FacetProperties {
+            maxFields = Math.max(maxFields, 1);
+            maxBuckets = Math.max(maxBuckets, 1);
+        }
+    }
+
+    public record StreamProperties(@DefaultValue("256") int bufferSize,
+                                   @DefaultValue("1000") int replaySize,
+                                   @DefaultValue("15") int heartbeatSeconds,
+                                   @DefaultValue("60") int idleTimeoutSeconds,
+                                   @DefaultValue("false") boolean preImages) {
+
+        public StreamProperties {
+            bufferSize = Math.max(bufferSize, 1);
+            replaySize = Math.max(replaySize, 0);
+            heartbeatSeconds = Math.max(heartbeatSeconds, 1);
+            idleTimeoutSeconds = Math.max(idleTimeoutSeconds, 0);
+        }
+    }
+
+    public record CacheBusProperties(@DefaultValue("true") boolean enabled,
+                                     @DefaultValue("_cache_invalidations") String collection,
+                                     @DefaultValue("1048576") long cappedSizeBytes,
+                                     @DefaultValue("1000") long maxDocuments,
+                                     @DefaultValue("20") int flushMillis,
+                                     @DefaultValue("500") int maxBatch) {
+
+        public CacheBusProperties {
+            flushMillis = Math.max(flushMillis, 1);
+            maxBatch = Math.max(maxBatch, 1);
+        }
+    }
+}
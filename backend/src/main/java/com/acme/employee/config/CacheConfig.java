@@ -2,13 +2,23 @@ package com.acme.employee.config;
 
 import java.time.Duration;
 
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import com.acme.employee.dto.EmployeeQueryParams;
+import com.acme.employee.dto.PageResponse;
+import com.acme.employee.dto.VersionedEmployee;
+import com.acme.employee.service.CacheInvalidationBus;
+import com.acme.employee.support.SingleFlight;
+import com.github.benmanes.caffeine.cache.AsyncCache;
 import com.github.benmanes.caffeine.cache.Caffeine;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 @Configuration
 public class CacheConfig {
 
@@ -19,14 +29,78 @@ public class CacheConfig {
     }
 
     @Bean
-    public CacheManager cacheManager() {
-        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+    public CacheManager cacheManager(CacheInvalidationBus invalidationBus) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+            @Override
+            protected Cache adaptCaffeineCache(String name, AsyncCache<Object, Object> cache) {
+                return new ReplicatedCaffeineCache(name, cache, isAllowNullValues(), invalidationBus);
+            }
+        };
         cacheManager.setCaffeine(Caffeine.newBuilder()
                 .maximumSize(1000)
-                .expireAfterWrite(Duration.ofSeconds(appProperties.schema().cacheTtlSeconds())));
+                .expireAfterWrite(Duration.ofSeconds(appProperties.schema().cacheTtlSeconds()))
+                .recordStats());
         // Enable async cache mode so reactive @Cacheable methods (Mono/Flux)
         // use Caffeine's AsyncCache and avoid blocking.
         cacheManager.setAsyncCacheMode(true);
+        // The actuator binds cache metrics (hit ratio, load time) only for caches that exist at startup;
+        // created eagerly here, the dynamic manager still creates any other cache on demand.
+        cacheManager.getCache("schema");
         return cacheManager;
     }
+
+    // Shared by every path that writes employees, so each of them can detach list reads in flight
+    @Bean
+    public SingleFlight<EmployeeQueryParams, PageResponse<VersionedEmployee>> employeeListFlights(MeterRegistry meterRegistry) {
+        return new SingleFlight<>("list", meterRegistry);
+    }
+
+    // Evictions made here are replayed on the other replicas, and theirs here, so the TTL only bounds
+    // how long an unchanged entry lives. Still a CaffeineCache, so the actuator keeps binding its metrics.
+    static final class ReplicatedCaffeineCache extends CaffeineCache {
+
+        private final CacheInvalidationBus invalidationBus;
+
+        ReplicatedCaffeineCache(String name, AsyncCache<Object, Object> cache, boolean allowNullValues,
+                                CacheInvalidationBus invalidationBus) {
+            super(name, cache, allowNullValues);
+            this.invalidationBus = invalidationBus;
+            invalidationBus.register(name, super::evict, super::clear);
+        }
+
+        @Override
+        public void evict(Object key) {
+            super.evict(key);
+            broadcast(key);
+        }
+
+        @Override
+        public boolean evictIfPresent(Object key) {
+            boolean present = super.evictIfPresent(key);
+            broadcast(key);
+            return present;
+        }
+
+        @Override
+        public void clear() {
+            super.clear();
+            invalidationBus.clear(getName());
+        }
+
+        @Override
+        public boolean invalidate() {
+            boolean present = super.invalidate();
+            invalidationBus.clear(getName());
+            return present;
+        }
+
+        // keys that do not travel as text clear the whole cache on the other replicas
+        private void broadcast(Object key) {
+            if (key instanceof String text) {
+                invalidationBus.evict(getName(), text);
+            } else {
+                invalidationBus.clear(getName());
+            }
+        }
+    }
 }
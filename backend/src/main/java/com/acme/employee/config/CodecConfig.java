@@ -0,0 +1,160 @@
+package com.acme.employee.config;
+
+import java.util.Map;
+
+import org.reactivestreams.Publisher;
+import org.springframework.beans.BeanUtils;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.AbstractJackson2Decoder;
+import org.springframework.http.codec.json.AbstractJackson2Encoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.MimeType;
+import org.springframework.web.server.NotAcceptableStatusException;
+import org.springframework.web.server.WebFilter;
+
+import com.acme.employee.support.MeteredEncoder;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Binary encodings negotiated through Accept (responses) and Content-Type (request bodies). Each
+// format is registered only when its Jackson data format module is on the classpath (the
+// binary-codecs Maven profile), and shares the application ObjectMapper's modules and settings.
+// JSON stays first for */* because custom codecs are ordered after the defaults. Since one URL has
+// several representations, every response varies on Accept.
+@Configuration
+public class CodecConfig {
+
+    private static final MediaType APPLICATION_CBOR = MediaType.APPLICATION_CBOR;
+    private static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+    private static final MediaType APPLICATION_MSGPACK = new MediaType("application", "x-msgpack");
+    private static final MediaType APPLICATION_MSGPACK_STANDARD = new MediaType("application", "msgpack");
+
+    private static final String CBOR_FACTORY = "com.fasterxml.jackson.dataformat.cbor.CBORFactory";
+    private static final String SMILE_FACTORY = "com.fasterxml.jackson.dataformat.smile.SmileFactory";
+    private static final String MSGPACK_FACTORY = "org.msgpack.jackson.dataformat.MessagePackFactory";
+
+    // after Boot's Jackson customizer, so the JSON encoder it installs is the one being wrapped
+    @Bean
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public CodecCustomizer binaryCodecCustomizer(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        return configurer -> {
+            configurer.defaultCodecs().jackson2JsonEncoder(
+                    new MeteredEncoder(new Jackson2JsonEncoder(objectMapper), "json", meterRegistry));
+
+            ObjectMapper smile = binaryMapper(objectMapper, SMILE_FACTORY);
+            if (smile != null) {
+                configurer.defaultCodecs().jackson2SmileEncoder(new MeteredEncoder(
+                        new Jackson2SmileEncoder(smile, APPLICATION_SMILE), "smile", meterRegistry));
+                configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smile, APPLICATION_SMILE));
+            }
+            ObjectMapper cbor = binaryMapper(objectMapper, CBOR_FACTORY);
+            if (cbor != null) {
+                configurer.customCodecs().register(new MeteredEncoder(
+                        new CborEncoder(cbor), "cbor", meterRegistry));
+                configurer.customCodecs().register(new Jackson2CborDecoder(cbor, APPLICATION_CBOR));
+            }
+            ObjectMapper msgpack = binaryMapper(objectMapper, MSGPACK_FACTORY);
+            if (msgpack != null) {
+                configurer.customCodecs().register(new MeteredEncoder(
+                        new MessagePackEncoder(msgpack), "msgpack", meterRegistry));
+                configurer.customCodecs().register(new MessagePackDecoder(msgpack));
+            }
+        };
+    }
+
+    // caches and proxies must not serve a CBOR body to a JSON client for the same URL
+    @Bean
+    public WebFilter varyOnAcceptFilter() {
+        return (exchange, chain) -> {
+            exchange.getResponse().beforeCommit(() -> {
+                HttpHeaders headers = exchange.getResponse().getHeaders();
+                if (!headers.getVary().contains(HttpHeaders.ACCEPT)) {
+                    headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+                }
+                return Mono.empty();
+            });
+            return chain.filter(exchange);
+        };
+    }
+
+    // Writers are picked by element type alone, so a streamed body can reach an encoder that only
+    // writes whole values; answer 406 as negotiation would, not a 500 from the encoder.
+    private static <T> Flux<T> streamNotAcceptable(MimeType mimeType) {
+        return Flux.error(new NotAcceptableStatusException(mimeType + " does not support streamed responses"));
+    }
+
+    private static ObjectMapper binaryMapper(ObjectMapper objectMapper, String factoryClass) {
+        ClassLoader classLoader = CodecConfig.class.getClassLoader();
+        if (!ClassUtils.isPresent(factoryClass, classLoader)) {
+            return null;
+        }
+        JsonFactory factory = BeanUtils.instantiateClass(ClassUtils.resolveClassName(factoryClass, classLoader),
+                JsonFactory.class);
+        return objectMapper.copyWith(factory);
+    }
+
+    // Spring ships CBOR and Smile codecs but none for MessagePack; like CBOR it encodes whole values only.
+    private static final class MessagePackEncoder extends AbstractJackson2Encoder {
+
+        MessagePackEncoder(ObjectMapper mapper) {
+            super(mapper, APPLICATION_MSGPACK, APPLICATION_MSGPACK_STANDARD);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                       ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+            if (inputStream instanceof Mono<?>) {
+                return super.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+            }
+            return streamNotAcceptable(mimeType);
+        }
+    }
+
+    private static final class CborEncoder extends Jackson2CborEncoder {
+
+        CborEncoder(ObjectMapper mapper) {
+            super(mapper, APPLICATION_CBOR);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory,
+                                       ResolvableType elementType, MimeType mimeType, Map<String, Object> hints) {
+            if (inputStream instanceof Mono<?> mono) {
+                return mono.map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints)).flux();
+            }
+            return streamNotAcceptable(mimeType);
+        }
+    }
+
+    private static final class MessagePackDecoder extends AbstractJackson2Decoder {
+
+        MessagePackDecoder(ObjectMapper mapper) {
+            super(mapper, APPLICATION_MSGPACK, APPLICATION_MSGPACK_STANDARD);
+        }
+
+        // the MessagePack parser is blocking-only, so bodies are aggregated and decoded whole
+        @Override
+        public Flux<Object> decode(Publisher<DataBuffer> input, ResolvableType elementType, MimeType mimeType,
+                                   Map<String, Object> hints) {
+            return decodeToMono(input, elementType, mimeType, hints).flux();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.acme.employee.config;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+// Per controller-method latency and response size, tagged by handler rather than URI so that the
+// operations sharing a path (/{id} GET, PUT, PATCH, DELETE) stay apart. Streaming responses are
+// measured until the last buffer is written.
+@Component
+public class ControllerMetricsFilter implements WebFilter {
+
+    private static final String APP_PACKAGE = "com.acme.employee";
+
+    private final MeterRegistry meterRegistry;
+
+    public ControllerMetricsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        long started = System.nanoTime();
+        AtomicLong bytes = new AtomicLong();
+        // The chain can complete while a streamed body is still being drained by the server, so the
+        // request is recorded when the last of the chain and the body writes has finished.
+        AtomicInteger open = new AtomicInteger(1);
+        AtomicReference<SignalType> outcome = new AtomicReference<>();
+        AtomicBoolean bodyCancelled = new AtomicBoolean();
+        Runnable finished = () -> {
+            if (open.decrementAndGet() == 0) {
+                SignalType signal = bodyCancelled.get() ? SignalType.CANCEL : outcome.get();
+                record(exchange, signal, System.nanoTime() - started, bytes.get());
+            }
+        };
+        ServerHttpResponse counting = new ServerHttpResponseDecorator(exchange.getResponse()) {
+            @Override
+            public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                return super.writeWith(tracked(Flux.from(body)));
+            }
+
+            @Override
+            public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+                return super.writeAndFlushWith(tracked(Flux.from(body)).map(part -> Flux.from(part)
+                        .doOnNext(buffer -> bytes.addAndGet(buffer.readableByteCount()))));
+            }
+
+            private <T> Flux<T> tracked(Flux<T> body) {
+                return Flux.defer(() -> {
+                    open.incrementAndGet();
+                    return body.doOnNext(item -> {
+                                if (item instanceof DataBuffer buffer) {
+                                    bytes.addAndGet(buffer.readableByteCount());
+                                }
+                            })
+                            .doFinally(signal -> {
+                                if (signal == SignalType.CANCEL) {
+                                    bodyCancelled.set(true);
+                                }
+                                finished.run();
+                            });
+                });
+            }
+        };
+        return chain.filter(exchange.mutate().response(counting).build())
+                .doFinally(signal -> {
+                    outcome.set(signal);
+                    finished.run();
+                });
+    }
+
+    private void record(ServerWebExchange exchange, SignalType signal, long nanos, long bytes) {
+        if (!(exchange.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod handler)
+                || !handler.getBeanType().getPackageName().startsWith(APP_PACKAGE)) {
+            return;
+        }
+        Tags tags = Tags.of(
+                "controller", handler.getBeanType().getSimpleName(),
+                "operation", handler.getMethod().getName(),
+                "status", status(exchange, signal));
+        Timer.builder("employees.controller")
+                .tags(tags)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder("employees.controller.response.size")
+                .baseUnit("bytes")
+                .tags(tags)
+                .register(meterRegistry)
+                .record(bytes);
+    }
+
+    private static String status(ServerWebExchange exchange, SignalType signal) {
+        if (signal == SignalType.CANCEL) {
+            return "CANCELLED";
+        }
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        if (status == null) {
+            // an error that escaped the filter chain is rendered afterwards by the WebExceptionHandler
+            return signal == SignalType.ON_ERROR ? "ERROR" : "200";
+        }
+        return String.valueOf(status.value());
+    }
+}
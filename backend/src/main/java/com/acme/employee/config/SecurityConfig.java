@@ -1,19 +1,18 @@
 package com.acme.employee.config;
 
-import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.auth.FirebaseAuthException;
-import com.google.firebase.auth.FirebaseToken;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
-import org.springframework.http.HttpStatus;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.AuthorityUtils;
 import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.util.matcher.AndServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.NegatedServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.OrServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatcher;
+import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
 // Removed custom AuthenticationWebFilter wiring to avoid version conflicts.
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
@@ -22,11 +21,42 @@ import org.springframework.security.core.context.ReactiveSecurityContextHolder;
 import org.springframework.core.annotation.Order;
 import org.springframework.core.Ordered;
 
-import java.util.Objects;
+import java.util.Optional;
+
+import com.acme.employee.security.FirebaseTokenVerifier;
 
 @Configuration
 public class SecurityConfig {
-    private static final Logger log = LoggerFactory.getLogger(SecurityConfig.class);
+
+    private static final String[] PUBLIC_READ_PATHS = {
+            "/api/schema", "/api/schema/**", "/api/employees", "/api/employees/**"
+    };
+    // A full dump of the collection; readable only with a token even though the rest of /api/employees is public
+    private static final String EXPORT_PATH = "/api/employees/export";
+    private static final String[] PUBLIC_PATHS = {
+            "/api/docs", "/api/swagger-ui/**"
+    };
+    // Probes and the metrics scrape; every other actuator endpoint (index advisor, slow queries,
+    // metrics) exposes query shapes or changes indexes and needs a token
+    private static final String[] PUBLIC_ACTUATOR_PATHS = {
+            "/actuator/health", "/actuator/health/**", "/actuator/prometheus"
+    };
+
+    // Requests that are permitted anonymously never need the bearer token verified
+    private static final ServerWebExchangeMatcher SKIP_TOKEN_VERIFICATION = new AndServerWebExchangeMatcher(
+            new NegatedServerWebExchangeMatcher(ServerWebExchangeMatchers.pathMatchers(EXPORT_PATH)),
+            new OrServerWebExchangeMatcher(
+                    ServerWebExchangeMatchers.pathMatchers(HttpMethod.OPTIONS, "/**"),
+                    ServerWebExchangeMatchers.pathMatchers(HttpMethod.GET, PUBLIC_READ_PATHS),
+                    ServerWebExchangeMatchers.pathMatchers(HttpMethod.HEAD, PUBLIC_READ_PATHS),
+                    ServerWebExchangeMatchers.pathMatchers(HttpMethod.GET, PUBLIC_ACTUATOR_PATHS),
+                    ServerWebExchangeMatchers.pathMatchers(PUBLIC_PATHS)));
+
+    private final FirebaseTokenVerifier tokenVerifier;
+
+    public SecurityConfig(FirebaseTokenVerifier tokenVerifier) {
+        this.tokenVerifier = tokenVerifier;
+    }
 
     @Bean
     public SecurityWebFilterChain springSecurityFilterChain(ServerHttpSecurity http) {
@@ -35,10 +65,14 @@ public class SecurityConfig {
                 .authorizeExchange(exchanges -> exchanges
                         // Allow CORS preflight requests
                         .pathMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+                        .pathMatchers(HttpMethod.GET, EXPORT_PATH).authenticated()
+                        .pathMatchers(HttpMethod.HEAD, EXPORT_PATH).authenticated()
                         // Public GET endpoints
-                        .pathMatchers(HttpMethod.GET, "/api/schema", "/api/schema/**").permitAll()
-                        .pathMatchers(HttpMethod.GET, "/api/employees", "/api/employees/**").permitAll()
-                        .pathMatchers("/actuator/**", "/api/docs", "/api/swagger-ui/**").permitAll()
+                        .pathMatchers(HttpMethod.GET, PUBLIC_READ_PATHS).permitAll()
+                        .pathMatchers(HttpMethod.HEAD, PUBLIC_READ_PATHS).permitAll()
+                        .pathMatchers(PUBLIC_PATHS).permitAll()
+                        .pathMatchers(HttpMethod.GET, PUBLIC_ACTUATOR_PATHS).permitAll()
+                        .pathMatchers("/actuator/**").authenticated()
                         // Auth debug endpoint requires authentication
                         .pathMatchers(HttpMethod.GET, "/api/auth/me").authenticated()
                         // Protect writes
@@ -56,14 +90,22 @@ public class SecurityConfig {
     @Bean
     @Order(Ordered.HIGHEST_PRECEDENCE)
     public WebFilter firebaseAuthWebFilter() {
-        return (exchange, chain) -> extractBearer(exchange)
-                .flatMap(this::verifyIdToken)
-                .flatMap(uid -> {
-                    Authentication auth = new UsernamePasswordAuthenticationToken(uid, "N/A", AuthorityUtils.NO_AUTHORITIES);
-                    return chain.filter(exchange)
-                            .contextWrite(ReactiveSecurityContextHolder.withAuthentication(auth));
-                })
-                .switchIfEmpty(chain.filter(exchange));
+        return (exchange, chain) -> SKIP_TOKEN_VERIFICATION.matches(exchange)
+                .flatMap(match -> {
+                    if (match.isMatch()) {
+                        return chain.filter(exchange);
+                    }
+                    // chain.filter completes empty, so resolve the optional principal before running it exactly once
+                    return extractBearer(exchange)
+                            .flatMap(tokenVerifier::verify)
+                            .map(uid -> Optional.<Authentication>of(
+                                    new UsernamePasswordAuthenticationToken(uid, "N/A", AuthorityUtils.NO_AUTHORITIES)))
+                            .defaultIfEmpty(Optional.empty())
+                            .flatMap(auth -> auth
+                                    .map(value -> chain.filter(exchange)
+                                            .contextWrite(ReactiveSecurityContextHolder.withAuthentication(value)))
+                                    .orElseGet(() -> chain.filter(exchange)));
+                });
     }
 
     private Mono<String> extractBearer(ServerWebExchange exchange) {
@@ -73,21 +115,4 @@ public class SecurityConfig {
         }
         return Mono.empty();
     }
-
-    private Mono<String> verifyIdToken(String token) {
-        return Mono.fromCallable(() -> {
-                    try {
-                        FirebaseToken decoded = FirebaseAuth.getInstance().verifyIdToken(token);
-                        return decoded.getUid();
-                    } catch (FirebaseAuthException e) {
-                        log.warn("Firebase token verification failed: {}", e.getMessage());
-                        return null;
-                    } catch (IllegalStateException e) {
-                        // Firebase Admin not initialized yet
-                        log.warn("Firebase Admin not initialized: {}", e.getMessage());
-                        return null;
-                    }
-                })
-                .filter(Objects::nonNull);
-    }
 }
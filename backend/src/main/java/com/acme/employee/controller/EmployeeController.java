@@ -1,12 +1,24 @@
 package com.acme.employee.controller;
 
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.codec.multipart.FilePartEvent;
+import org.springframework.http.codec.multipart.PartEvent;
 import org.springframework.util.MultiValueMap;
+import org.springframework.util.StringUtils;
 import org.springframework.validation.annotation.Validated;
 import jakarta.validation.Valid;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -15,19 +27,38 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ServerWebExchange;
 
+import com.acme.employee.dto.BulkEmployeeItem;
+import com.acme.employee.dto.BulkResponse;
+import com.acme.employee.dto.CountStrategy;
+import com.acme.employee.dto.EmployeeChangeEvent;
 import com.acme.employee.dto.EmployeePatchRequest;
 import com.acme.employee.dto.EmployeeQueryParams;
 import com.acme.employee.dto.EmployeeResponse;
 import com.acme.employee.dto.EmployeeUpsertRequest;
+import com.acme.employee.dto.FacetResponse;
+import com.acme.employee.dto.ImportFormat;
+import com.acme.employee.dto.ImportProgress;
 import com.acme.employee.dto.PageResponse;
+import com.acme.employee.dto.SearchMode;
+import com.acme.employee.dto.VersionedEmployee;
+import com.acme.employee.exception.BadRequestException;
+import com.acme.employee.service.EmployeeChangeFeed;
+import com.acme.employee.service.EmployeeImportService;
 import com.acme.employee.service.EmployeeService;
+import com.acme.employee.service.SuggestionIndex;
+import com.acme.employee.support.EntityTags;
 
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Validated
@@ -35,60 +66,212 @@ import reactor.core.publisher.Mono;
 @RequestMapping("/api/employees")
 public class EmployeeController {
 
-    private static final Set<String> RESERVED_PARAMS = Set.of("page", "size", "sort", "direction", "search");
+    private static final Set<String> RESERVED_PARAMS = Set.of("page", "size", "sort", "direction", "search", "cursor", "count", "format",
+            "searchMode", "fields", "lastEventId");
+
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
 
     private final EmployeeService employeeService;
+    private final EmployeeImportService importService;
+    private final SuggestionIndex suggestionIndex;
+    private final EmployeeChangeFeed changeFeed;
+    private final ResponseFormats responseFormats;
 
-    public EmployeeController(EmployeeService employeeService) {
+    public EmployeeController(EmployeeService employeeService,
+                              EmployeeImportService importService,
+                              SuggestionIndex suggestionIndex,
+                              EmployeeChangeFeed changeFeed,
+                              ResponseFormats responseFormats) {
         this.employeeService = employeeService;
+        this.importService = importService;
+        this.suggestionIndex = suggestionIndex;
+        this.changeFeed = changeFeed;
+        this.responseFormats = responseFormats;
     }
 
     @GetMapping
-    public Mono<PageResponse<EmployeeResponse>> list(@RequestParam(name = "page", defaultValue = "0") int page,
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = EmployeePage.class)))
+    public Mono<ResponseEntity<PageResponse<VersionedEmployee>>> list(@RequestParam(name = "page", defaultValue = "0") int page,
                                                      @RequestParam(name = "size", defaultValue = "20") int size,
                                                      @RequestParam(name = "sort", required = false) String sort,
                                                      @RequestParam(name = "direction", required = false) String direction,
                                                      @RequestParam(name = "search", required = false) String search,
+                                                     @RequestParam(name = "cursor", required = false) String cursor,
+                                                     @RequestParam(name = "count", required = false) String count,
+                                                     @RequestParam(name = "searchMode", required = false) String searchMode,
+                                                     @RequestParam(name = "fields", required = false) List<String> fields,
                                                      ServerWebExchange exchange) {
         Map<String, String> filters = extractFilters(exchange.getRequest().getQueryParams());
-        EmployeeQueryParams params = new EmployeeQueryParams(page, size, sort, direction, search, filters);
-        return employeeService.list(params);
+        CountStrategy countStrategy = StringUtils.hasText(count) ? CountStrategy.fromParam(count) : null;
+        EmployeeQueryParams params = new EmployeeQueryParams(page, size, sort, direction, search, filters, cursor,
+                countStrategy, toSearchMode(searchMode), toFieldSet(fields));
+        // the framework answers 304 from the ETag before the body is encoded
+        return employeeService.list(params)
+                .map(result -> ResponseEntity.ok().eTag(EntityTags.weak(result)).body(result));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<Flux<?>> export(@RequestParam(name = "format", defaultValue = "ndjson") String format,
+                                          @RequestParam(name = "sort", required = false) String sort,
+                                          @RequestParam(name = "direction", required = false) String direction,
+                                          @RequestParam(name = "search", required = false) String search,
+                                          @RequestParam(name = "searchMode", required = false) String searchMode,
+                                          ServerWebExchange exchange) {
+        Map<String, String> filters = extractFilters(exchange.getRequest().getQueryParams());
+        EmployeeQueryParams params = new EmployeeQueryParams(0, 0, sort, direction, search, filters, null, null,
+                toSearchMode(searchMode), null);
+        return switch (format.toLowerCase(Locale.ROOT)) {
+            case "ndjson" -> ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"employees.ndjson\"")
+                    .body(employeeService.export(params));
+            case "csv" -> ResponseEntity.ok()
+                    .contentType(TEXT_CSV)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"employees.csv\"")
+                    .body(employeeService.exportCsv(params));
+            default -> throw new BadRequestException("Unsupported export format '%s'".formatted(format));
+        };
+    }
+
+    @GetMapping("/facets")
+    public Mono<FacetResponse> facets(@RequestParam(name = "fields") List<String> fields,
+                                      @RequestParam(name = "search", required = false) String search,
+                                      @RequestParam(name = "searchMode", required = false) String searchMode,
+                                      ServerWebExchange exchange) {
+        Map<String, String> filters = extractFilters(exchange.getRequest().getQueryParams());
+        EmployeeQueryParams params = new EmployeeQueryParams(0, 0, null, null, search, filters, null, null,
+                toSearchMode(searchMode), null);
+        return employeeService.facets(params, fields);
+    }
+
+    // EventSource sends Last-Event-ID on its own reconnects; lastEventId covers a fresh EventSource
+    // resuming a feed from an earlier page load
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<EmployeeChangeEvent>> stream(@RequestHeader(name = "Last-Event-ID", required = false) String lastEventIdHeader,
+                                                             @RequestParam(name = "lastEventId", required = false) String lastEventId,
+                                                             ServerWebExchange exchange) {
+        Map<String, String> filters = extractFilters(exchange.getRequest().getQueryParams());
+        return changeFeed.subscribe(filters, StringUtils.hasText(lastEventIdHeader) ? lastEventIdHeader : lastEventId);
+    }
+
+    // Served from the in-memory prefix index; never queries Mongo
+    @GetMapping("/suggest")
+    public List<String> suggest(@RequestParam(name = "field") String field,
+                                @RequestParam(name = "prefix") String prefix,
+                                @RequestParam(name = "limit", defaultValue = "10") int limit) {
+        if (!StringUtils.hasText(prefix)) {
+            throw new BadRequestException("prefix must not be blank");
+        }
+        return suggestionIndex.suggest(field, prefix, limit);
     }
 
     @GetMapping("/{id}")
-    public Mono<EmployeeResponse> get(@PathVariable(name = "id") String id) {
-        return employeeService.get(id);
+    public Mono<ResponseEntity<EmployeeResponse>> get(@PathVariable(name = "id") String id,
+                                                      @RequestParam(name = "fields", required = false) List<String> fields,
+                                                      ServerWebExchange exchange) {
+        return employeeService.get(id, toFieldSet(fields))
+                .map(employee -> withETag(HttpStatus.OK, employee, exchange));
     }
 
     @PostMapping
-    @ResponseStatus(HttpStatus.CREATED)
-    public Mono<EmployeeResponse> create(@RequestBody @Valid EmployeeUpsertRequest request) {
-        return employeeService.create(request);
+    public Mono<ResponseEntity<EmployeeResponse>> create(@RequestBody @Valid EmployeeUpsertRequest request,
+                                                         ServerWebExchange exchange) {
+        return employeeService.create(request)
+                .map(employee -> withETag(HttpStatus.CREATED, employee, exchange));
+    }
+
+    @PostMapping(path = "/_bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Mono<BulkResponse> bulk(@RequestBody Flux<BulkEmployeeItem> items) {
+        return employeeService.bulkUpsert(items);
+    }
+
+    @PostMapping(path = "/_import", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ImportProgress> importNdjson(@RequestBody Flux<DataBuffer> body) {
+        return importService.importRecords(body, ImportFormat.NDJSON);
+    }
+
+    @PostMapping(path = "/_import", consumes = "text/csv", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ImportProgress> importCsv(@RequestBody Flux<DataBuffer> body) {
+        return importService.importRecords(body, ImportFormat.CSV);
+    }
+
+    @PostMapping(path = "/_import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ImportProgress> importMultipart(@RequestParam(name = "format", defaultValue = "ndjson") String format,
+                                               @RequestBody Flux<PartEvent> parts) {
+        ImportFormat importFormat = ImportFormat.fromParam(format);
+        // PartEvent streams the upload without spooling parts to disk; only file content is imported
+        Flux<DataBuffer> content = parts.concatMap(event -> {
+            if (event instanceof FilePartEvent) {
+                return Mono.just(event.content());
+            }
+            DataBufferUtils.release(event.content());
+            return Mono.empty();
+        });
+        return importService.importRecords(content, importFormat);
     }
 
     @PutMapping("/{id}")
-    public Mono<EmployeeResponse> replace(@PathVariable(name = "id") String id,
-                                          @RequestBody @Valid EmployeeUpsertRequest request) {
-        return employeeService.replace(id, request);
+    public Mono<ResponseEntity<EmployeeResponse>> replace(@PathVariable(name = "id") String id,
+                                                          @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                          @RequestBody @Valid EmployeeUpsertRequest request,
+                                                          ServerWebExchange exchange) {
+        return employeeService.replace(id, request, ifMatch)
+                .map(employee -> withETag(HttpStatus.OK, employee, exchange));
     }
 
     @PostMapping("/{id}")
-    public Mono<EmployeeResponse> upsert(@PathVariable(name = "id") String id,
-                                         @RequestBody @Valid EmployeeUpsertRequest request) {
-        return employeeService.replace(id, request);
+    public Mono<ResponseEntity<EmployeeResponse>> upsert(@PathVariable(name = "id") String id,
+                                                         @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                         @RequestBody @Valid EmployeeUpsertRequest request,
+                                                         ServerWebExchange exchange) {
+        return employeeService.replace(id, request, ifMatch)
+                .map(employee -> withETag(HttpStatus.OK, employee, exchange));
     }
 
     @org.springframework.web.bind.annotation.PatchMapping("/{id}")
-    public Mono<EmployeeResponse> patch(@PathVariable(name = "id") String id,
-                                        @RequestBody @Valid EmployeePatchRequest request) {
-        return employeeService.patch(id, request);
+    public Mono<ResponseEntity<EmployeeResponse>> patch(@PathVariable(name = "id") String id,
+                                                        @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                        @RequestBody @Valid EmployeePatchRequest request,
+                                                        ServerWebExchange exchange) {
+        return employeeService.patch(id, request, ifMatch)
+                .map(employee -> withETag(HttpStatus.OK, employee, exchange));
     }
 
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public Mono<Void> delete(@PathVariable(name = "id") String id,
+                             @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                              @RequestParam(name = "soft", defaultValue = "true") boolean softDelete) {
-        return employeeService.delete(id, softDelete);
+        return employeeService.delete(id, softDelete, ifMatch);
+    }
+
+    // The tag names the encoding, so JSON and binary representations never validate each other
+    private ResponseEntity<EmployeeResponse> withETag(HttpStatus status, EmployeeResponse employee,
+                                                      ServerWebExchange exchange) {
+        return responseFormats.select(exchange.getRequest().getHeaders().getAccept())
+                .map(format -> ResponseEntity.status(status)
+                        .contentType(format)
+                        .eTag(EntityTags.strong(employee, format))
+                        .body(employee))
+                .orElseGet(() -> ResponseEntity.status(status).body(employee));
+    }
+
+    private SearchMode toSearchMode(String searchMode) {
+        return StringUtils.hasText(searchMode) ? SearchMode.fromParam(searchMode) : null;
+    }
+
+    // fields=a,b and fields=a&fields=b both arrive as a list; blanks are dropped
+    private Set<String> toFieldSet(List<String> fields) {
+        if (fields == null) {
+            return Set.of();
+        }
+        Set<String> names = new LinkedHashSet<>();
+        for (String field : fields) {
+            if (StringUtils.hasText(field)) {
+                names.add(field.trim());
+            }
+        }
+        return names;
     }
 
     private Map<String, String> extractFilters(MultiValueMap<String, String> queryParams) {
@@ -104,4 +287,18 @@ public class EmployeeController {
         }
         return filters;
     }
+
+    // Documents list() with the fields its rows are written with; raw rows serialise in EmployeeResponse's shape
+    @Schema(name = "EmployeePage")
+    record EmployeePage(
+            List<EmployeeResponse> content,
+            long totalElements,
+            boolean totalExact,
+            int page,
+            int size,
+            int totalPages,
+            boolean hasNext,
+            boolean hasPrevious,
+            String nextCursor) {
+    }
 }
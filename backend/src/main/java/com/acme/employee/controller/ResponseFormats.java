@@ -0,0 +1,50 @@
+package com.acme.employee.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import com.acme.employee.dto.EmployeeResponse;
+
+// Picks the encoding of a single-employee response before the handler returns, so its strong ETag
+// can name the representation. The choice is pinned as the Content-Type, which the writer then honours.
+@Component
+class ResponseFormats {
+
+    private final List<MediaType> producible;
+
+    ResponseFormats(ServerCodecConfigurer codecConfigurer) {
+        ResolvableType type = ResolvableType.forClass(EmployeeResponse.class);
+        // writer order, so JSON comes first for */*
+        this.producible = codecConfigurer.getWriters().stream()
+                .filter(writer -> writer.canWrite(type, null))
+                .flatMap(writer -> writer.getWritableMediaTypes(type).stream())
+                .filter(MediaType::isConcrete)
+                .map(mediaType -> new MediaType(mediaType.getType(), mediaType.getSubtype()))
+                .distinct()
+                .toList();
+    }
+
+    // Empty when nothing producible is acceptable; the framework then answers 406 as usual
+    Optional<MediaType> select(List<MediaType> accept) {
+        List<MediaType> acceptable = new ArrayList<>(accept.isEmpty() ? List.of(MediaType.ALL) : accept);
+        MimeTypeUtils.sortBySpecificity(acceptable);
+        for (MediaType wanted : acceptable) {
+            if (wanted.getQualityValue() == 0) {
+                continue;
+            }
+            for (MediaType candidate : producible) {
+                if (wanted.isCompatibleWith(candidate)) {
+                    return Optional.of(candidate);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+}
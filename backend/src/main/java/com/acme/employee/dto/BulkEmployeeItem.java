@@ -0,0 +1,8 @@
+package com.acme.employee.dto;
+
+import java.util.Map;
+
+public record BulkEmployeeItem(
+        String id,
+        Map<String, Object> attributes) {
+}
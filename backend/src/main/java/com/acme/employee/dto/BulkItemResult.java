@@ -0,0 +1,29 @@
+package com.acme.employee.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BulkItemResult(
+        long index,
+        String id,
+        Status status,
+        String error) {
+
+    public enum Status {
+        CREATED,
+        UPDATED,
+        FAILED
+    }
+
+    public static BulkItemResult created(long index, String id) {
+        return new BulkItemResult(index, id, Status.CREATED, null);
+    }
+
+    public static BulkItemResult updated(long index, String id) {
+        return new BulkItemResult(index, id, Status.UPDATED, null);
+    }
+
+    public static BulkItemResult failed(long index, String id, String error) {
+        return new BulkItemResult(index, id, Status.FAILED, error);
+    }
+}
@@ -0,0 +1,41 @@
+package com.acme.employee.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Counts for the whole request plus the first failed rows; successful rows are only counted and
+// failed counts every failure, so the response stays small however many rows were sent.
+public record BulkResponse(
+        int total,
+        int created,
+        int updated,
+        int failed,
+        List<BulkItemResult> failures) {
+
+    private static final int MAX_FAILURES = 100;
+
+    public static final class Tally {
+
+        private int created;
+        private int updated;
+        private int failed;
+        private final List<BulkItemResult> failures = new ArrayList<>();
+
+        public Tally add(BulkItemResult item) {
+            switch (item.status()) {
+                case CREATED -> created++;
+                case UPDATED -> updated++;
+                case FAILED -> {
+                    if (failed++ < MAX_FAILURES) {
+                        failures.add(item);
+                    }
+                }
+            }
+            return this;
+        }
+
+        public BulkResponse toResponse() {
+            return new BulkResponse(created + updated + failed, created, updated, failed, List.copyOf(failures));
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.acme.employee.dto;
+
+import java.util.Locale;
+
+import com.acme.employee.exception.BadRequestException;
+
+public enum CountStrategy {
+    // count and find run concurrently, total is exact
+    EXACT,
+    // collection metadata count less soft-deleted rows when the query has no filter, flagged
+    // totalExact=false; exact count otherwise
+    ESTIMATED,
+    // exact count served from a short-lived cache keyed by the normalized query
+    CACHED,
+    // no count; fetch size + 1 documents to decide hasNext
+    NONE;
+
+    public static CountStrategy fromParam(String value) {
+        try {
+            return CountStrategy.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Unknown count strategy '%s'".formatted(value));
+        }
+    }
+}
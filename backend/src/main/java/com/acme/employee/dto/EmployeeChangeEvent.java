@@ -0,0 +1,23 @@
+package com.acme.employee.dto;
+
+import java.util.Locale;
+
+// One entry of the /api/employees/stream feed. Deletes carry only the id; REMOVED, also id-only, tells a
+// filtered subscriber that an update took the employee out of its filter; RESET tells the client that
+// events were missed (unknown resume token, lost change stream history) and it must refetch.
+public record EmployeeChangeEvent(Type type, String id, EmployeeResponse employee) {
+
+    public static final EmployeeChangeEvent RESET = new EmployeeChangeEvent(Type.RESET, null, null);
+
+    public enum Type {
+        INSERT,
+        UPDATE,
+        DELETE,
+        REMOVED,
+        RESET;
+
+        public String eventName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+}
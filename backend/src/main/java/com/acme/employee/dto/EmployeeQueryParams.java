@@ -2,6 +2,7 @@ package com.acme.employee.dto;
 
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import java.util.Objects;
 
@@ -11,10 +12,15 @@ public record EmployeeQueryParams(
         String sortField,
         String sortDirection,
         String searchTerm,
-        Map<String, String> filters) {
+        Map<String, String> filters,
+        String cursor,
+        CountStrategy countStrategy,
+        SearchMode searchMode,
+        Set<String> fields) {
 
     public EmployeeQueryParams {
         filters = filters == null ? Map.of() : Map.copyOf(filters);
+        fields = fields == null ? Set.of() : Set.copyOf(fields);
     }
 
     public int pageOrDefault() {
@@ -33,7 +39,30 @@ public record EmployeeQueryParams(
         return Optional.ofNullable(sortDirection);
     }
 
+    public Optional<CountStrategy> countStrategyOptional() {
+        return Optional.ofNullable(countStrategy);
+    }
+
+    public Optional<SearchMode> searchModeOptional() {
+        return Optional.ofNullable(searchMode);
+    }
+
     public Optional<String> searchTermOptional() {
         return Optional.ofNullable(searchTerm);
     }
+
+    public EmployeeQueryParams withSearchMode(SearchMode mode) {
+        return new EmployeeQueryParams(page, size, sortField, sortDirection, searchTerm, filters, cursor, countStrategy, mode,
+                fields);
+    }
+
+    // An empty field set means whole documents
+    public boolean projected() {
+        return !fields.isEmpty();
+    }
+
+    // A present (even blank) cursor switches the listing to keyset pagination
+    public boolean cursorMode() {
+        return cursor != null;
+    }
 }
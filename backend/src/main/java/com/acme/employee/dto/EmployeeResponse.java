@@ -8,6 +8,7 @@ public record EmployeeResponse(
         Map<String, Object> attributes,
         boolean deleted,
         Instant createdAt,
-        Instant updatedAt) {
+        Instant updatedAt,
+        long version) implements VersionedEmployee {
 }
 
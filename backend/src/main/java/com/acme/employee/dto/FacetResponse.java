@@ -0,0 +1,12 @@
+package com.acme.employee.dto;
+
+import java.util.List;
+import java.util.Map;
+
+// Most frequent values per requested attribute, in descending count order; a null value counts
+// documents where the attribute is missing or null.
+public record FacetResponse(Map<String, List<Bucket>> facets) {
+
+    public record Bucket(Object value, long count) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.acme.employee.dto;
+
+import java.util.Locale;
+
+import com.acme.employee.exception.BadRequestException;
+
+public enum ImportFormat {
+    NDJSON,
+    CSV;
+
+    public static ImportFormat fromParam(String value) {
+        try {
+            return ImportFormat.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Unsupported import format '%s'".formatted(value));
+        }
+    }
+}
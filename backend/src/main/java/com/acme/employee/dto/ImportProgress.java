@@ -0,0 +1,31 @@
+package com.acme.employee.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public record ImportProgress(
+        long processed,
+        long inserted,
+        long failed,
+        boolean completed,
+        List<String> errors) {
+
+    private static final int MAX_ERRORS = 20;
+
+    public static final ImportProgress EMPTY = new ImportProgress(0, 0, 0, false, List.of());
+
+    public ImportProgress plus(long batchProcessed, long batchInserted, List<String> batchErrors) {
+        List<String> mergedErrors = errors;
+        if (!batchErrors.isEmpty() && errors.size() < MAX_ERRORS) {
+            mergedErrors = new ArrayList<>(errors);
+            batchErrors.stream().limit(MAX_ERRORS - errors.size()).forEach(mergedErrors::add);
+            mergedErrors = List.copyOf(mergedErrors);
+        }
+        return new ImportProgress(processed + batchProcessed, inserted + batchInserted,
+                failed + (batchProcessed - batchInserted), false, mergedErrors);
+    }
+
+    public ImportProgress complete() {
+        return new ImportProgress(processed, inserted, failed, true, errors);
+    }
+}
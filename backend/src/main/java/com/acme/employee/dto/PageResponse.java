@@ -2,13 +2,18 @@ package com.acme.employee.dto;
 
 import java.util.List;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record PageResponse<T>(
         List<T> content,
         long totalElements,
+        boolean totalExact,
         int page,
         int size,
         int totalPages,
         boolean hasNext,
-        boolean hasPrevious) {
+        boolean hasPrevious,
+        String nextCursor) {
 }
 
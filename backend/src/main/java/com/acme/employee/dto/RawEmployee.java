@@ -0,0 +1,62 @@
+package com.acme.employee.dto;
+
+import java.time.Instant;
+
+import org.bson.BsonDateTime;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonNumber;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+
+import com.acme.employee.mapper.RawEmployeeSerializer;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+// Employee row kept as undecoded BSON; written in EmployeeResponse shape by RawEmployeeSerializer
+@JsonSerialize(using = RawEmployeeSerializer.class)
+public record RawEmployee(RawBsonDocument document) implements VersionedEmployee {
+
+    private static final DocumentCodec DOCUMENT_CODEC = new DocumentCodec();
+    private static final DecoderContext DECODER_CONTEXT = DecoderContext.builder().build();
+
+    @Override
+    public String id() {
+        BsonValue id = document.get("_id");
+        if (id == null) {
+            return null;
+        }
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+
+    @Override
+    public long version() {
+        return document.get("version") instanceof BsonNumber number ? number.longValue() : 0L;
+    }
+
+    // Decodes one dotted path the way the driver decodes documents (dates become java.util.Date)
+    public Object value(String path) {
+        BsonValue value = document;
+        for (String part : path.split("\\.")) {
+            if (!(value instanceof BsonDocument nested)) {
+                return null;
+            }
+            value = nested.get(part);
+        }
+        if (value == null) {
+            return null;
+        }
+        return DOCUMENT_CODEC.decode(new BsonDocumentReader(new BsonDocument("v", value)), DECODER_CONTEXT).get("v");
+    }
+
+    @Override
+    public Instant updatedAt() {
+        return document.get("updatedAt") instanceof BsonDateTime dateTime
+                ? Instant.ofEpochMilli(dateTime.getValue())
+                : null;
+    }
+}
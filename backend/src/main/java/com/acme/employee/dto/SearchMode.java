@@ -0,0 +1,20 @@
+package com.acme.employee.dto;
+
+import java.util.Locale;
+
+import com.acme.employee.exception.BadRequestException;
+
+public enum SearchMode {
+    // $text over the searchText index: whole-word matching, relevance ordered
+    TEXT,
+    // case-insensitive substring regex over every string attribute; always a collection scan
+    REGEX;
+
+    public static SearchMode fromParam(String value) {
+        try {
+            return SearchMode.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new BadRequestException("Unknown search mode '%s'".formatted(value));
+        }
+    }
+}
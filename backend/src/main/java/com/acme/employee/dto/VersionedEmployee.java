@@ -0,0 +1,13 @@
+package com.acme.employee.dto;
+
+import java.time.Instant;
+
+// What entity tags are computed from; implemented by mapped responses and raw BSON pass-through rows.
+public interface VersionedEmployee {
+
+    String id();
+
+    long version();
+
+    Instant updatedAt();
+}
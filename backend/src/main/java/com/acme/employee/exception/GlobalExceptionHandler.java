@@ -9,6 +9,7 @@ import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.server.ServerWebExchange;
 
 import jakarta.validation.ConstraintViolationException;
@@ -22,6 +23,16 @@ public class GlobalExceptionHandler {
         return buildResponse(HttpStatus.NOT_FOUND, ex.getMessage(), exchange, Map.of());
     }
 
+    @ExceptionHandler(PreconditionFailedException.class)
+    public Mono<ErrorResponse> handlePreconditionFailed(PreconditionFailedException ex, ServerWebExchange exchange) {
+        return buildResponse(HttpStatus.PRECONDITION_FAILED, ex.getMessage(), exchange, Map.of());
+    }
+
+    @ExceptionHandler(BadRequestException.class)
+    public Mono<ErrorResponse> handleBadRequest(BadRequestException ex, ServerWebExchange exchange) {
+        return buildResponse(HttpStatus.BAD_REQUEST, ex.getMessage(), exchange, Map.of());
+    }
+
     @ExceptionHandler(WebExchangeBindException.class)
     public Mono<ErrorResponse> handleBind(WebExchangeBindException ex, ServerWebExchange exchange) {
         Map<String, Object> details = ex.getFieldErrors()
@@ -45,6 +56,12 @@ public class GlobalExceptionHandler {
         return buildResponse(HttpStatus.BAD_REQUEST, "Constraint violation", exchange, details);
     }
 
+    // framework statuses such as 406 from negotiation keep their status instead of becoming a 500
+    @ExceptionHandler(ResponseStatusException.class)
+    public Mono<ErrorResponse> handleResponseStatus(ResponseStatusException ex, ServerWebExchange exchange) {
+        return buildResponse(HttpStatus.valueOf(ex.getStatusCode().value()), ex.getReason(), exchange, Map.of());
+    }
+
     @ExceptionHandler(Throwable.class)
     public Mono<ErrorResponse> handleGeneric(Throwable ex, ServerWebExchange exchange) {
         return buildResponse(HttpStatus.INTERNAL_SERVER_ERROR, ex.getMessage(), exchange, Map.of());
@@ -0,0 +1,8 @@
+package com.acme.employee.exception;
+
+public class PreconditionFailedException extends RuntimeException {
+
+    public PreconditionFailedException(String resource, String id) {
+        super(resource + " with id %s has been modified".formatted(id));
+    }
+}
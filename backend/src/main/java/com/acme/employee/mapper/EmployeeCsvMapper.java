@@ -0,0 +1,164 @@
+package com.acme.employee.mapper;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import com.acme.employee.dto.EmployeeResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@Component
+public class EmployeeCsvMapper {
+
+    private static final String ID_COLUMN = "id";
+    private static final String CREATED_AT_COLUMN = "createdAt";
+    private static final String UPDATED_AT_COLUMN = "updatedAt";
+
+    private final ObjectMapper objectMapper;
+
+    public EmployeeCsvMapper(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public List<String> columns(Collection<String> attributeNames) {
+        List<String> columns = new ArrayList<>(attributeNames.size() + 3);
+        columns.add(ID_COLUMN);
+        columns.addAll(attributeNames);
+        columns.add(CREATED_AT_COLUMN);
+        columns.add(UPDATED_AT_COLUMN);
+        return columns;
+    }
+
+    // id and the timestamps are written by export but owned by the server, so import ignores them
+    public boolean isReserved(String column) {
+        return ID_COLUMN.equals(column) || CREATED_AT_COLUMN.equals(column) || UPDATED_AT_COLUMN.equals(column);
+    }
+
+    public String headerLine(List<String> columns) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            appendEscaped(line, columns.get(i));
+        }
+        return line.append('\n').toString();
+    }
+
+    public String toLine(EmployeeResponse employee, List<String> columns) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            String column = columns.get(i);
+            Object value;
+            if (i == 0) {
+                value = employee.id();
+            } else if (i >= columns.size() - 2) {
+                value = CREATED_AT_COLUMN.equals(column) ? employee.createdAt() : employee.updatedAt();
+            } else {
+                value = employee.attributes().get(column);
+            }
+            String formatted = formatValue(value);
+            appendEscaped(line, value instanceof String ? neutralizeFormula(formatted) : formatted);
+        }
+        return line.append('\n').toString();
+    }
+
+    // Spreadsheets run text starting with = + - @ (or a tab / CR before one) as a formula; a leading
+    // apostrophe keeps it text. Numbers are left alone so negative values stay numeric.
+    private static String neutralizeFormula(String value) {
+        if (value.isEmpty()) {
+            return value;
+        }
+        return switch (value.charAt(0)) {
+            case '=', '+', '-', '@', '\t', '\r' -> "'" + value;
+            default -> value;
+        };
+    }
+
+    // Undoes neutralizeFormula when a CSV is read back
+    public String restoreFormula(String value) {
+        if (value.length() < 2 || value.charAt(0) != '\'') {
+            return value;
+        }
+        return switch (value.charAt(1)) {
+            case '=', '+', '-', '@', '\t', '\r' -> value.substring(1);
+            default -> value;
+        };
+    }
+
+    private String formatValue(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof Date date) {
+            return date.toInstant().toString();
+        }
+        if (value instanceof Instant || value instanceof String || value instanceof Number || value instanceof Boolean) {
+            return value.toString();
+        }
+        if (value instanceof Map<?, ?> || value instanceof Collection<?> || value.getClass().isArray()) {
+            try {
+                return objectMapper.writeValueAsString(value);
+            } catch (JsonProcessingException ex) {
+                return value.toString();
+            }
+        }
+        return value.toString();
+    }
+
+    private void appendEscaped(StringBuilder line, String value) {
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    // Splits a single CSV record; quoted fields may contain commas and doubled quotes but not line breaks.
+    public List<String> parseLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else if (c != '\r') {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+}
@@ -1,12 +1,22 @@
 package com.acme.employee.mapper;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
+import org.bson.Document;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Component;
 
 import com.acme.employee.dto.EmployeeResponse;
+import com.acme.employee.exception.BadRequestException;
 import com.acme.employee.model.EmployeeDocument;
 
 @Component
@@ -18,30 +28,127 @@ public class EmployeeMapper {
                 new HashMap<>(document.getAttributes()),
                 document.isDeleted(),
                 document.getCreatedAt(),
-                document.getUpdatedAt()
+                document.getUpdatedAt(),
+                document.getVersion()
         );
     }
 
+    // Keeps only the named attributes; top-level fields are always present on the response
+    public EmployeeResponse project(EmployeeResponse employee, Set<String> fields) {
+        Map<String, Object> attributes = new HashMap<>();
+        for (String field : fields) {
+            if (employee.attributes().containsKey(field)) {
+                attributes.put(field, employee.attributes().get(field));
+            }
+        }
+        return new EmployeeResponse(employee.id(), attributes, employee.deleted(), employee.createdAt(),
+                employee.updatedAt(), employee.version());
+    }
+
     public EmployeeDocument newDocument(Map<String, Object> attributes) {
         EmployeeDocument document = new EmployeeDocument();
         document.setAttributes(cleanAttributes(attributes));
+        document.setSearchText(searchText(document.getAttributes()));
         document.setDeleted(false);
         document.setCreatedAt(Instant.now());
         document.setUpdatedAt(Instant.now());
         return document;
     }
 
-    public void overwriteAttributes(EmployeeDocument document, Map<String, Object> attributes) {
-        document.setAttributes(cleanAttributes(attributes));
-        document.setUpdatedAt(Instant.now());
+    public Update replaceUpdate(Map<String, Object> attributes, Instant now) {
+        Map<String, Object> safe = cleanAttributes(attributes);
+        return new Update()
+                .set("attributes", safe)
+                .set("searchText", searchText(safe))
+                .set("deleted", false)
+                .set("updatedAt", now)
+                .inc("version", 1);
     }
 
-    public void mergeAttributes(EmployeeDocument document, Map<String, Object> attributes) {
-        document.mergeAttributes(cleanAttributes(attributes));
-        document.setUpdatedAt(Instant.now());
+    // Targets only the patched keys so concurrent patches of different attributes both survive.
+    // A null value removes the attribute. Runs as an update pipeline so the last stage can rebuild
+    // searchText from the patched document in the same write.
+    public AggregationUpdate patchUpdate(Map<String, Object> attributes, Instant now) {
+        Map<String, Object> safe = cleanAttributes(attributes);
+        if (safe.isEmpty()) {
+            throw new BadRequestException("attributes must contain at least one patchable key");
+        }
+        Document set = new Document();
+        List<String> unset = new ArrayList<>();
+        safe.forEach((key, value) -> {
+            if (key.indexOf('.') >= 0 || key.startsWith("$")) {
+                throw new BadRequestException("Attribute '%s' cannot be patched: names must not contain '.' or start with '$'"
+                        .formatted(key));
+            }
+            if (value == null) {
+                unset.add("attributes." + key);
+            } else {
+                // pipeline values are expressions; $literal keeps strings such as "$x" as data
+                set.append("attributes." + key, new Document("$literal", value));
+            }
+        });
+        set.append("deleted", false)
+                .append("updatedAt", now)
+                .append("version", new Document("$add", List.of(new Document("$ifNull", List.of("$version", 0)), 1)));
+
+        List<AggregationOperation> stages = new ArrayList<>();
+        stages.add(context -> new Document("$set", set));
+        if (!unset.isEmpty()) {
+            stages.add(context -> new Document("$unset", unset));
+        }
+        stages.add(context -> new Document("$set", new Document("searchText", searchTextExpression())));
+        return AggregationUpdate.from(stages);
+    }
+
+    // The documents replaceUpdate and patchUpdate leave behind, built from the pre-image the write returned
+    public EmployeeDocument replaced(EmployeeDocument before, Map<String, Object> attributes, Instant now) {
+        return updated(before, cleanAttributes(attributes), now);
+    }
+
+    public EmployeeDocument patched(EmployeeDocument before, Map<String, Object> attributes, Instant now) {
+        Map<String, Object> merged = new HashMap<>(before.getAttributes());
+        cleanAttributes(attributes).forEach((key, value) -> {
+            if (value == null) {
+                merged.remove(key);
+            } else {
+                merged.put(key, value);
+            }
+        });
+        return updated(before, merged, now);
+    }
+
+    private EmployeeDocument updated(EmployeeDocument before, Map<String, Object> attributes, Instant now) {
+        return EmployeeDocument.builder()
+                .id(before.getId())
+                .attributes(attributes)
+                .searchText(searchText(attributes))
+                .deleted(false)
+                .createdAt(before.getCreatedAt())
+                .updatedAt(now)
+                .version(before.getVersion() + 1)
+                .build();
+    }
+
+    // searchText computed server-side: the string attribute values joined by spaces, in document order
+    public static Document searchTextExpression() {
+        Document stringValues = new Document("$filter", new Document("input",
+                new Document("$objectToArray", new Document("$ifNull", List.of("$attributes", new Document()))))
+                .append("cond", new Document("$eq", List.of(new Document("$type", "$$this.v"), "string"))));
+        Document joined = new Document("$reduce", new Document("input", stringValues)
+                .append("initialValue", "")
+                .append("in", new Document("$concat", List.of("$$value", " ", "$$this.v"))));
+        return new Document("$trim", new Document("input", joined));
+    }
+
+    // Key order keeps the value stable across writes of the same attributes
+    public String searchText(Map<String, Object> attributes) {
+        return new TreeMap<>(attributes).values().stream()
+                .filter(String.class::isInstance)
+                .map(String.class::cast)
+                .collect(Collectors.joining(" "));
     }
 
-    private Map<String, Object> cleanAttributes(Map<String, Object> attributes) {
+    public Map<String, Object> cleanAttributes(Map<String, Object> attributes) {
         Map<String, Object> safe = new HashMap<>();
         attributes.forEach((key, value) -> {
             if (key == null) {
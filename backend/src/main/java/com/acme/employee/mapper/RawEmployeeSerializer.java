@@ -0,0 +1,310 @@
+package com.acme.employee.mapper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Date;
+
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+
+import com.acme.employee.dto.RawEmployee;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.json.UTF8JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+// Writes RawEmployee straight from its BSON bytes in the same shape as EmployeeResponse,
+// walking the buffer rather than BsonBinaryReader so string values are not materialised
+public class RawEmployeeSerializer extends StdSerializer<RawEmployee> {
+
+    private static final byte END = 0x00;
+    private static final byte DOUBLE = 0x01;
+    private static final byte STRING = 0x02;
+    private static final byte DOCUMENT = 0x03;
+    private static final byte ARRAY = 0x04;
+    private static final byte BINARY = 0x05;
+    private static final byte UNDEFINED = 0x06;
+    private static final byte OBJECT_ID = 0x07;
+    private static final byte BOOLEAN = 0x08;
+    private static final byte DATE_TIME = 0x09;
+    private static final byte NULL = 0x0A;
+    private static final byte REGEX = 0x0B;
+    private static final byte DB_POINTER = 0x0C;
+    private static final byte JAVASCRIPT = 0x0D;
+    private static final byte SYMBOL = 0x0E;
+    private static final byte JAVASCRIPT_WITH_SCOPE = 0x0F;
+    private static final byte INT32 = 0x10;
+    private static final byte TIMESTAMP = 0x11;
+    private static final byte INT64 = 0x12;
+    private static final byte DECIMAL128 = 0x13;
+
+    public RawEmployeeSerializer() {
+        super(RawEmployee.class);
+    }
+
+    @Override
+    public void serialize(RawEmployee employee, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        ByteBuffer buffer = employee.document().getByteBuffer().asNIO();
+        Input in = new Input(buffer.array(), buffer.arrayOffset() + buffer.position(),
+                generator instanceof UTF8JsonGenerator);
+        boolean attributes = false;
+        boolean deleted = false;
+        boolean createdAt = false;
+        boolean updatedAt = false;
+        boolean version = false;
+        generator.writeStartObject();
+        in.int32();
+        for (byte type = in.type(); type != END; type = in.type()) {
+            switch (in.name()) {
+                case "_id" -> {
+                    generator.writeFieldName("id");
+                    writeValue(in, type, generator, provider);
+                }
+                case "attributes" -> {
+                    generator.writeFieldName("attributes");
+                    if (type == DOCUMENT) {
+                        writeDocument(in, generator, provider, true);
+                    } else {
+                        in.skip(type);
+                        generator.writeStartObject();
+                        generator.writeEndObject();
+                    }
+                    attributes = true;
+                }
+                case "deleted" -> {
+                    generator.writeBooleanField("deleted", type == BOOLEAN ? in.bool() : in.skip(type, false));
+                    deleted = true;
+                }
+                case "createdAt" -> {
+                    writeInstant("createdAt", in, type, generator, provider);
+                    createdAt = true;
+                }
+                case "updatedAt" -> {
+                    writeInstant("updatedAt", in, type, generator, provider);
+                    updatedAt = true;
+                }
+                case "version" -> {
+                    generator.writeNumberField("version", switch (type) {
+                        case INT32 -> in.int32();
+                        case INT64 -> in.int64();
+                        case DOUBLE -> (long) in.double64();
+                        default -> in.skip(type, 0L);
+                    });
+                    version = true;
+                }
+                default -> in.skip(type);
+            }
+        }
+        // a projection or an older document may leave fields out; fill them as the mapped response would
+        if (!attributes) {
+            generator.writeFieldName("attributes");
+            generator.writeStartObject();
+            generator.writeEndObject();
+        }
+        if (!deleted) {
+            generator.writeBooleanField("deleted", false);
+        }
+        if (!createdAt) {
+            generator.writeNullField("createdAt");
+        }
+        if (!updatedAt) {
+            generator.writeNullField("updatedAt");
+        }
+        if (!version) {
+            generator.writeNumberField("version", 0L);
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeInstant(String name, Input in, byte type, JsonGenerator generator,
+                                     SerializerProvider provider) throws IOException {
+        generator.writeFieldName(name);
+        if (type == DATE_TIME) {
+            provider.defaultSerializeValue(Instant.ofEpochMilli(in.int64()), generator);
+        } else {
+            in.skip(type);
+            generator.writeNull();
+        }
+    }
+
+    private static void writeDocument(Input in, JsonGenerator generator, SerializerProvider provider,
+                                      boolean attributeKeys) throws IOException {
+        in.int32();
+        generator.writeStartObject();
+        for (byte type = in.type(); type != END; type = in.type()) {
+            // mirrors EmployeeMapper.cleanAttributes, which never lets such keys be written
+            if (attributeKeys && in.peek() == '_') {
+                in.skipName();
+                in.skip(type);
+                continue;
+            }
+            generator.writeFieldName(in.name());
+            writeValue(in, type, generator, provider);
+        }
+        generator.writeEndObject();
+    }
+
+    private static void writeValue(Input in, byte type, JsonGenerator generator, SerializerProvider provider)
+            throws IOException {
+        switch (type) {
+            case DOCUMENT -> writeDocument(in, generator, provider, false);
+            case ARRAY -> {
+                in.int32();
+                generator.writeStartArray();
+                for (byte element = in.type(); element != END; element = in.type()) {
+                    // array keys are just the indexes
+                    in.skipName();
+                    writeValue(in, element, generator, provider);
+                }
+                generator.writeEndArray();
+            }
+            case STRING, SYMBOL, JAVASCRIPT -> in.writeString(generator);
+            case INT32 -> generator.writeNumber(in.int32());
+            case INT64 -> generator.writeNumber(in.int64());
+            case DOUBLE -> generator.writeNumber(in.double64());
+            case DECIMAL128 -> {
+                long low = in.int64();
+                Decimal128 decimal = Decimal128.fromIEEE754BIDEncoding(in.int64(), low);
+                if (decimal.isNaN() || decimal.isInfinite()) {
+                    generator.writeString(decimal.toString());
+                } else {
+                    generator.writeNumber(decimal.bigDecimalValue());
+                }
+            }
+            case BOOLEAN -> generator.writeBoolean(in.bool());
+            // attribute dates decode to java.util.Date on the mapped path
+            case DATE_TIME -> provider.defaultSerializeValue(new Date(in.int64()), generator);
+            case OBJECT_ID -> generator.writeString(in.objectId().toHexString());
+            case BINARY -> in.writeBinary(generator);
+            case NULL, UNDEFINED -> generator.writeNull();
+            // regular expressions, timestamps, scoped code and keys never come from the employee API
+            default -> {
+                in.skip(type);
+                generator.writeNull();
+            }
+        }
+    }
+
+    // Little-endian cursor over the document's backing array
+    private static final class Input {
+
+        private final byte[] bytes;
+        private final boolean copyUtf8;
+        private int position;
+
+        Input(byte[] bytes, int position, boolean copyUtf8) {
+            this.bytes = bytes;
+            this.position = position;
+            this.copyUtf8 = copyUtf8;
+        }
+
+        byte type() {
+            return bytes[position++];
+        }
+
+        byte peek() {
+            return bytes[position];
+        }
+
+        boolean bool() {
+            return bytes[position++] != 0;
+        }
+
+        int int32() {
+            int value = (bytes[position] & 0xff)
+                    | (bytes[position + 1] & 0xff) << 8
+                    | (bytes[position + 2] & 0xff) << 16
+                    | (bytes[position + 3] & 0xff) << 24;
+            position += 4;
+            return value;
+        }
+
+        long int64() {
+            long low = int32() & 0xffffffffL;
+            return (long) int32() << 32 | low;
+        }
+
+        double double64() {
+            return Double.longBitsToDouble(int64());
+        }
+
+        ObjectId objectId() {
+            ObjectId id = new ObjectId(ByteBuffer.wrap(bytes, position, 12));
+            position += 12;
+            return id;
+        }
+
+        String name() {
+            int start = position;
+            skipName();
+            return new String(bytes, start, position - start - 1, StandardCharsets.UTF_8);
+        }
+
+        void skipName() {
+            while (bytes[position] != END) {
+                position++;
+            }
+            position++;
+        }
+
+        void writeString(JsonGenerator generator) throws IOException {
+            // the length includes the trailing NUL
+            int length = int32() - 1;
+            if (copyUtf8) {
+                generator.writeUTF8String(bytes, position, length);
+            } else {
+                generator.writeString(new String(bytes, position, length, StandardCharsets.UTF_8));
+            }
+            position += length + 1;
+        }
+
+        void writeBinary(JsonGenerator generator) throws IOException {
+            int length = int32();
+            // subtype byte
+            position++;
+            generator.writeBinary(bytes, position, length);
+            position += length;
+        }
+
+        void skip(byte type) {
+            switch (type) {
+                case DOUBLE, DATE_TIME, INT64, TIMESTAMP -> position += 8;
+                case INT32 -> position += 4;
+                case BOOLEAN -> position += 1;
+                case OBJECT_ID -> position += 12;
+                case DECIMAL128 -> position += 16;
+                // read the length first: "position += int32()" would add it to the position before the read
+                case STRING, SYMBOL, JAVASCRIPT -> {
+                    int length = int32();
+                    position += length;
+                }
+                case DOCUMENT, ARRAY, JAVASCRIPT_WITH_SCOPE -> {
+                    int length = int32();
+                    position += length - 4;
+                }
+                case BINARY -> {
+                    int length = int32();
+                    position += length + 1;
+                }
+                case DB_POINTER -> {
+                    int length = int32();
+                    position += length + 12;
+                }
+                case REGEX -> {
+                    skipName();
+                    skipName();
+                }
+                // null, undefined, min and max key carry no value
+                default -> {
+                }
+            }
+        }
+
+        <T> T skip(byte type, T fallback) {
+            skip(type);
+            return fallback;
+        }
+    }
+}
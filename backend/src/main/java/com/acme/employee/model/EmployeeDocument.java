@@ -40,7 +40,12 @@ public class EmployeeDocument {
     @LastModifiedDate
     private Instant updatedAt;
 
-    // Removed optimistic locking version to simplify updates with dynamically shaped documents
+    // String attribute values joined for the text index; derived from attributes by EmployeeMapper
+    private String searchText;
+
+    // Plain counter bumped with $inc by every update; not @Version, because writes are
+    // atomic findAndModify/update calls and conditional requests compare it in the filter
+    private long version;
 
     public void mergeAttributes(Map<String, Object> updates) {
         attributes.putAll(updates);
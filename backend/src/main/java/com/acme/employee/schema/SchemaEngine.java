@@ -0,0 +1,8 @@
+package com.acme.employee.schema;
+
+public enum SchemaEngine {
+    // infer types inside Mongo with $sample + $objectToArray + $group; only the histogram is transferred
+    AGGREGATION,
+    // fetch sample documents and infer types in the JVM
+    SAMPLE
+}
@@ -1,5 +1,7 @@
 package com.acme.employee.schema;
 
+import java.time.Instant;
+
 public enum SchemaFieldType {
     STRING,
     NUMBER,
@@ -8,6 +10,31 @@ public enum SchemaFieldType {
     ARRAY,
     OBJECT,
     NULL,
-    UNKNOWN
-}
+    UNKNOWN;
 
+    // Types a value that arrived as text (filter operands, CSV cells); anything that does not parse stays text
+    public Object convert(String value) {
+        if (value == null || value.isBlank()) {
+            return value;
+        }
+        try {
+            return switch (this) {
+                case NUMBER -> toNumber(value);
+                case BOOLEAN -> Boolean.valueOf(value);
+                case DATE -> Instant.parse(value);
+                default -> value;
+            };
+        } catch (Exception ex) {
+            return value;
+        }
+    }
+
+    // whole numbers keep an integral type so they round-trip as they were stored
+    private static Number toNumber(String value) {
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException ex) {
+            return Double.valueOf(value);
+        }
+    }
+}
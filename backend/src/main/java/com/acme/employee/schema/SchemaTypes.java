@@ -0,0 +1,77 @@
+package com.acme.employee.schema;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+public final class SchemaTypes {
+
+    private SchemaTypes() {
+    }
+
+    public static SchemaFieldType fromBsonType(String bsonType) {
+        if (bsonType == null) {
+            return null;
+        }
+        return switch (bsonType) {
+            case "string", "objectId", "symbol" -> SchemaFieldType.STRING;
+            case "double", "int", "long", "decimal" -> SchemaFieldType.NUMBER;
+            case "bool" -> SchemaFieldType.BOOLEAN;
+            case "date", "timestamp" -> SchemaFieldType.DATE;
+            case "array" -> SchemaFieldType.ARRAY;
+            case "object" -> SchemaFieldType.OBJECT;
+            case "null", "undefined" -> SchemaFieldType.NULL;
+            default -> SchemaFieldType.UNKNOWN;
+        };
+    }
+
+    public static SchemaFieldType detectType(Object value) {
+        if (value == null) {
+            return SchemaFieldType.NULL;
+        }
+        if (value instanceof String || value instanceof ObjectId) {
+            return SchemaFieldType.STRING;
+        }
+        if (value instanceof Number) {
+            return SchemaFieldType.NUMBER;
+        }
+        if (value instanceof Boolean) {
+            return SchemaFieldType.BOOLEAN;
+        }
+        if (value instanceof java.util.Date
+                || value instanceof java.time.temporal.TemporalAccessor) {
+            return SchemaFieldType.DATE;
+        }
+        if (value.getClass().isArray() || value instanceof Collection<?>) {
+            return SchemaFieldType.ARRAY;
+        }
+        if (value instanceof Map<?, ?> || value instanceof Document) {
+            return SchemaFieldType.OBJECT;
+        }
+        return SchemaFieldType.UNKNOWN;
+    }
+
+    public static SchemaFieldType detectArrayItemType(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value.getClass().isArray()) {
+            Object[] array = (Object[]) value;
+            if (array.length == 0) {
+                return SchemaFieldType.UNKNOWN;
+            }
+            return detectType(array[0]);
+        }
+        if (value instanceof Collection<?> collection) {
+            return collection.stream()
+                    .filter(Objects::nonNull)
+                    .findFirst()
+                    .map(SchemaTypes::detectType)
+                    .orElse(SchemaFieldType.UNKNOWN);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,124 @@
+package com.acme.employee.security;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import com.acme.employee.config.AppProperties;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseAuthException;
+import com.google.firebase.auth.FirebaseToken;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+// Verifies Firebase ID tokens off the event loop and caches successful results until the token's exp
+@Component
+public class FirebaseTokenVerifier implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(FirebaseTokenVerifier.class);
+
+    private final AsyncCache<String, VerifiedToken> cache;
+    private final Scheduler scheduler;
+    private final Timer successTimer;
+    private final Timer failureTimer;
+
+    public FirebaseTokenVerifier(AppProperties appProperties, MeterRegistry meterRegistry) {
+        AppProperties.AuthProperties auth = appProperties.auth();
+        this.scheduler = Schedulers.newBoundedElastic(auth.verifyThreads(), auth.verifyQueueSize(), "firebase-auth");
+        this.cache = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(auth.tokenCacheSize())
+                .expireAfter(new TokenExpiry())
+                .recordStats()
+                .buildAsync(), "firebaseTokens");
+        this.successTimer = Timer.builder("auth.token.verify")
+                .description("Firebase ID token verification latency on cache miss")
+                .tag("outcome", "success")
+                .register(meterRegistry);
+        this.failureTimer = Timer.builder("auth.token.verify")
+                .description("Firebase ID token verification latency on cache miss")
+                .tag("outcome", "failure")
+                .register(meterRegistry);
+    }
+
+    // Empty when the token is invalid; concurrent requests with the same token share one verification
+    public Mono<String> verify(String token) {
+        // suppress cancellation so a dropped request does not fail the shared verification
+        return Mono.fromFuture(cache.get(token, (key, executor) -> verifyBlocking(key)
+                        .subscribeOn(scheduler)
+                        .toFuture()), true)
+                .map(VerifiedToken::uid);
+    }
+
+    private Mono<VerifiedToken> verifyBlocking(String token) {
+        return Mono.fromCallable(() -> {
+            long start = System.nanoTime();
+            try {
+                FirebaseToken decoded = decode(token);
+                successTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return new VerifiedToken(decoded.getUid(), expiresAt(decoded));
+            } catch (FirebaseAuthException e) {
+                failureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                log.warn("Firebase token verification failed: {}", e.getMessage());
+                return null;
+            } catch (IllegalStateException e) {
+                // Firebase Admin not initialized yet
+                failureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                log.warn("Firebase Admin not initialized: {}", e.getMessage());
+                return null;
+            }
+        });
+    }
+
+    // Checks the signature and claims; blocking
+    FirebaseToken decode(String token) throws FirebaseAuthException {
+        return FirebaseAuth.getInstance().verifyIdToken(token);
+    }
+
+    private Instant expiresAt(FirebaseToken token) {
+        Object exp = token.getClaims().get("exp");
+        if (exp instanceof Number seconds) {
+            return Instant.ofEpochSecond(seconds.longValue());
+        }
+        // Firebase ID tokens live for one hour
+        return Instant.now().plus(Duration.ofHours(1));
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.dispose();
+    }
+
+    private record VerifiedToken(String uid, Instant expiresAt) {
+    }
+
+    private static final class TokenExpiry implements Expiry<String, VerifiedToken> {
+
+        @Override
+        public long expireAfterCreate(String key, VerifiedToken value, long currentTime) {
+            return Math.max(Duration.between(Instant.now(), value.expiresAt()).toNanos(), 0);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, VerifiedToken value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.acme.employee.service;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import com.acme.employee.config.AppProperties;
+import com.mongodb.MongoException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+// Shares cache evictions between replicas. Each instance appends the evictions it makes to a capped
+// collection, in small batches, and follows that collection with a tailable cursor, applying what the
+// other instances published to the caches registered under the same name. A capped collection works
+// without a replica set. An instance whose cursor broke may have missed evictions, so it clears every
+// registered cache before following again.
+@Component
+public class CacheInvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    // ObjectIds carry the clock of the instance that inserted them; reading back this far absorbs skew
+    private static final Duration CLOCK_SKEW = Duration.ofSeconds(30);
+    // NamespaceExists: another instance created the collection first
+    private static final int NAMESPACE_EXISTS = 48;
+
+    private final ReactiveMongoTemplate template;
+    private final AppProperties.CacheBusProperties properties;
+    private final String origin = UUID.randomUUID().toString();
+    private final Map<String, Listener> listeners = new ConcurrentHashMap<>();
+    private final Sinks.Many<Eviction> outbox = Sinks.many().unicast().onBackpressureBuffer();
+    private final Counter published;
+    private final Counter received;
+    private volatile ObjectId lastSeen;
+
+    public CacheInvalidationBus(ReactiveMongoTemplate template, AppProperties appProperties, MeterRegistry meterRegistry) {
+        this.template = template;
+        this.properties = appProperties.cacheBus();
+        this.published = Counter.builder("cache.invalidations.published")
+                .description("Cache evictions sent to the other replicas")
+                .register(meterRegistry);
+        this.received = Counter.builder("cache.invalidations.received")
+                .description("Cache evictions applied on behalf of other replicas")
+                .register(meterRegistry);
+    }
+
+    // Evictions that arrive for the cache; a null key clears it
+    public void register(String cache, Consumer<String> evict, Runnable clear) {
+        listeners.put(cache, new Listener(evict, clear));
+    }
+
+    public void evict(String cache, String key) {
+        publish(new Eviction(cache, key));
+    }
+
+    public void clear(String cache) {
+        publish(new Eviction(cache, null));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.enabled()) {
+            return;
+        }
+        outbox.asFlux()
+                .bufferTimeout(properties.maxBatch(), Duration.ofMillis(properties.flushMillis()))
+                .concatMap(this::send)
+                .subscribe();
+        Flux.defer(this::follow)
+                .doOnNext(this::apply)
+                .repeatWhen(completions -> completions.delayElements(Duration.ofSeconds(1)))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> log.warn("Cache invalidation cursor failed, reopening: {}",
+                                signal.failure().getMessage())))
+                .subscribe();
+    }
+
+    private void publish(Eviction eviction) {
+        if (properties.enabled()) {
+            outbox.emitNext(eviction, Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+        }
+    }
+
+    private Mono<Void> send(List<Eviction> batch) {
+        Document message = new Document("origin", origin)
+                .append("evictions", batch.stream().map(Eviction::toDocument).toList());
+        return template.insert(message, properties.collection())
+                .retryWhen(Retry.backoff(3, Duration.ofMillis(100)))
+                .doOnSuccess(inserted -> published.increment(batch.size()))
+                .onErrorResume(error -> {
+                    log.warn("Failed to publish {} cache evictions: {}", batch.size(), error.getMessage());
+                    return Mono.empty();
+                })
+                .then();
+    }
+
+    private Flux<Document> follow() {
+        if (lastSeen == null) {
+            // the cursor needs a document to start from, and a tailable cursor matching nothing dies at once
+            return createCollection()
+                    .then(template.insert(new Document("origin", origin).append("evictions", List.of()),
+                            properties.collection()))
+                    .doOnNext(marker -> lastSeen = marker.getObjectId("_id"))
+                    .thenMany(Flux.defer(this::tail));
+        }
+        listeners.values().forEach(listener -> listener.clear().run());
+        return tail();
+    }
+
+    private Flux<Document> tail() {
+        ObjectId from = new ObjectId(Date.from(lastSeen.getDate().toInstant().minus(CLOCK_SKEW)));
+        return template.tail(Query.query(Criteria.where("_id").gte(from)), Document.class, properties.collection());
+    }
+
+    private Mono<Void> createCollection() {
+        return template.collectionExists(properties.collection())
+                .flatMap(exists -> exists
+                        ? Mono.<Void>empty()
+                        : template.createCollection(properties.collection(), CollectionOptions.empty()
+                                .capped()
+                                .size(properties.cappedSizeBytes())
+                                .maxDocuments(properties.maxDocuments()))
+                        .then())
+                .onErrorResume(error -> NestedExceptionUtils.getMostSpecificCause(error) instanceof MongoException mongo
+                        && mongo.getCode() == NAMESPACE_EXISTS, error -> Mono.empty());
+    }
+
+    // Re-reading a message after a reopen is harmless: evictions are idempotent
+    void apply(Document message) {
+        lastSeen = message.getObjectId("_id");
+        if (origin.equals(message.getString("origin"))) {
+            return;
+        }
+        for (Document eviction : message.getList("evictions", Document.class, List.of())) {
+            Listener listener = listeners.get(eviction.getString("cache"));
+            if (listener == null) {
+                continue;
+            }
+            String key = eviction.getString("key");
+            if (key == null) {
+                listener.clear().run();
+            } else {
+                listener.evict().accept(key);
+            }
+            received.increment();
+        }
+    }
+
+    private record Listener(Consumer<String> evict, Runnable clear) {
+    }
+
+    private record Eviction(String cache, String key) {
+
+        Document toDocument() {
+            Document document = new Document("cache", cache);
+            if (key != null) {
+                document.append("key", key);
+            }
+            return document;
+        }
+    }
+}
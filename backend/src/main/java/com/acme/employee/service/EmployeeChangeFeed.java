@@ -0,0 +1,331 @@
+package com.acme.employee.service;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import com.acme.employee.config.AppProperties;
+import com.acme.employee.dto.EmployeeChangeEvent;
+import com.acme.employee.mapper.EmployeeMapper;
+import com.acme.employee.model.EmployeeDocument;
+import com.acme.employee.support.AttributeFilter;
+import com.acme.employee.support.CollectionNameProvider;
+import com.mongodb.MongoException;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.FullDocumentBeforeChange;
+import com.mongodb.client.model.changestream.OperationType;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.publisher.SynchronousSink;
+import reactor.util.retry.Retry;
+
+// One change stream per instance, fanned out to every /api/employees/stream subscriber. The cursor
+// opens with the first subscriber, closes app.stream.idle-timeout-seconds after the last one leaves,
+// and reopens after the last resume token it saw. Recent events stay in a replay ring so a client
+// reconnecting with Last-Event-ID gets what it missed; an id that has left the ring gets a RESET.
+// Each subscriber has a bounded buffer: one that fills it is disconnected instead of holding the
+// feed back, and its EventSource reconnects from the last id it received.
+@Component
+public class EmployeeChangeFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(EmployeeChangeFeed.class);
+
+    private static final List<String> OPERATIONS = List.of("insert", "update", "replace", "delete");
+    // ChangeStreamHistoryLost and ChangeStreamFatalError: the resume token can no longer be used
+    private static final Set<Integer> UNRESUMABLE_CODES = Set.of(286, 280);
+
+    private final ReactiveMongoTemplate template;
+    private final CollectionNameProvider collectionNameProvider;
+    private final EmployeeMapper mapper;
+    private final AppProperties.StreamProperties properties;
+    private final Counter dropped;
+    private final Object lock = new Object();
+    private final Deque<Change> replay = new ArrayDeque<>();
+    // copy-on-write: a subscriber may cancel, and unregister, while an event is being delivered to it
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Flux<Change> shared;
+    private volatile BsonValue resumeToken;
+
+    public EmployeeChangeFeed(ReactiveMongoTemplate template,
+                              CollectionNameProvider collectionNameProvider,
+                              EmployeeMapper mapper,
+                              AppProperties appProperties,
+                              MeterRegistry meterRegistry) {
+        this.template = template;
+        this.collectionNameProvider = collectionNameProvider;
+        this.mapper = mapper;
+        this.properties = appProperties.stream();
+        this.dropped = Counter.builder("employees.stream.dropped")
+                .description("Stream subscribers disconnected because their buffer was full")
+                .register(meterRegistry);
+        Gauge.builder("employees.stream.subscribers", this, EmployeeChangeFeed::subscriberCount)
+                .description("Open employee change stream subscriptions")
+                .register(meterRegistry);
+        this.shared = watch().publish().refCount(1, Duration.ofSeconds(properties.idleTimeoutSeconds()));
+    }
+
+    public Flux<ServerSentEvent<EmployeeChangeEvent>> subscribe(Map<String, String> filters, String lastEventId) {
+        AttributeFilter filter = AttributeFilter.of(filters);
+        return Flux.defer(() -> {
+            Subscriber subscriber = register(filter, lastEventId);
+            Disposable upstream = shared.subscribe();
+            Sinks.Empty<Void> finished = Sinks.empty();
+            Flux<ServerSentEvent<EmployeeChangeEvent>> events = subscriber.sink().asFlux()
+                    .map(Change::toServerSentEvent)
+                    .doFinally(signal -> {
+                        unregister(subscriber);
+                        upstream.dispose();
+                        finished.tryEmitEmpty();
+                    });
+            // heartbeats keep quiet connections open through proxies; a client too slow to take one
+            // does not need it
+            Flux<ServerSentEvent<EmployeeChangeEvent>> heartbeats = Flux.interval(Duration.ofSeconds(properties.heartbeatSeconds()))
+                    .onBackpressureDrop()
+                    .map(tick -> ServerSentEvent.<EmployeeChangeEvent>builder().comment("heartbeat").build())
+                    .takeUntilOther(finished.asMono().thenReturn(true));
+            // a prefetch of one leaves the backlog in the subscriber's bounded buffer, where it is policed
+            return Flux.merge(1, events, heartbeats);
+        });
+    }
+
+    // Pre-images let an update that leaves a subscriber's filter be told apart from one that was never in it
+    @EventListener(ApplicationReadyEvent.class)
+    public void enablePreImages() {
+        if (!properties.preImages()) {
+            return;
+        }
+        template.executeCommand(new Document("collMod", collectionNameProvider.collectionName())
+                        .append("changeStreamPreAndPostImages", new Document("enabled", true)))
+                .onErrorResume(error -> {
+                    log.warn("Could not enable change stream pre-images on {}: {}",
+                            collectionNameProvider.collectionName(), error.getMessage());
+                    return Mono.empty();
+                })
+                .subscribe();
+    }
+
+    int subscriberCount() {
+        return subscribers.size();
+    }
+
+    private Subscriber register(AttributeFilter filter, String lastEventId) {
+        Subscriber subscriber = new Subscriber(filter, Sinks.many().unicast()
+                .onBackpressureBuffer(new ArrayBlockingQueue<>(properties.bufferSize())));
+        synchronized (lock) {
+            // the replay and the registration happen under the same lock, so no event falls between them
+            if (StringUtils.hasText(lastEventId) && !replayAfter(lastEventId, subscriber)) {
+                return subscriber;
+            }
+            subscribers.add(subscriber);
+        }
+        return subscriber;
+    }
+
+    private boolean replayAfter(String lastEventId, Subscriber subscriber) {
+        boolean found = false;
+        for (Change change : replay) {
+            if (found) {
+                if (!deliver(subscriber, change)) {
+                    return false;
+                }
+            } else {
+                found = lastEventId.equals(change.id());
+            }
+        }
+        return found || deliver(subscriber, new Change(replay.isEmpty() ? null : replay.getLast().id(),
+                EmployeeChangeEvent.RESET));
+    }
+
+    private void unregister(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    private void dispatch(Change change) {
+        synchronized (lock) {
+            if (properties.replaySize() > 0) {
+                if (replay.size() == properties.replaySize()) {
+                    replay.removeFirst();
+                }
+                replay.addLast(change);
+            }
+            for (Subscriber subscriber : subscribers) {
+                if (!deliver(subscriber, change)) {
+                    subscribers.remove(subscriber);
+                }
+            }
+        }
+    }
+
+    // false once the subscriber is gone or has been dropped
+    private boolean deliver(Subscriber subscriber, Change change) {
+        Change view = subscriber.view(change);
+        if (view == null) {
+            return true;
+        }
+        Sinks.EmitResult result = subscriber.sink().tryEmitNext(view);
+        if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+            // completes after the buffered events are written; the client resumes from the last of them
+            subscriber.sink().tryEmitComplete();
+            dropped.increment();
+        }
+        return result.isSuccess();
+    }
+
+    private Flux<Change> watch() {
+        return Flux.defer(() -> template.changeStream(null, collectionNameProvider.collectionName(), options(),
+                        EmployeeDocument.class))
+                .<Change>handle(this::toChange)
+                .doOnNext(this::dispatch)
+                // an invalidate (dropped or renamed collection) ends the stream; start a new one
+                .repeatWhen(completions -> completions.delayElements(Duration.ofSeconds(1)))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofSeconds(30))
+                        .doBeforeRetry(signal -> onFailure(signal.failure())));
+    }
+
+    private ChangeStreamOptions options() {
+        ChangeStreamOptions.ChangeStreamOptionsBuilder builder = ChangeStreamOptions.builder()
+                .filter(new Document("$match", new Document("operationType", new Document("$in", OPERATIONS))))
+                .fullDocumentLookup(FullDocument.UPDATE_LOOKUP);
+        if (properties.preImages()) {
+            builder.fullDocumentBeforeChangeLookup(FullDocumentBeforeChange.WHEN_AVAILABLE);
+        }
+        BsonValue token = resumeToken;
+        if (token != null) {
+            builder.resumeAfter(token);
+        }
+        return builder.build();
+    }
+
+    private void toChange(ChangeStreamEvent<EmployeeDocument> event, SynchronousSink<Change> sink) {
+        switch (event.getOperationType()) {
+            case INSERT, UPDATE, REPLACE -> {
+                resumeToken = event.getResumeToken();
+                EmployeeDocument body = event.getBody();
+                // a soft delete, or a document removed before the update lookup ran
+                if (body == null || body.isDeleted()) {
+                    sink.next(deleted(event));
+                } else {
+                    EmployeeChangeEvent.Type type = event.getOperationType() == OperationType.INSERT
+                            ? EmployeeChangeEvent.Type.INSERT
+                            : EmployeeChangeEvent.Type.UPDATE;
+                    EmployeeDocument before = event.getBodyBeforeChange();
+                    sink.next(new Change(tokenId(event.getResumeToken()),
+                            new EmployeeChangeEvent(type, body.getId(), mapper.toResponse(body)),
+                            before == null ? null : before.getAttributes()));
+                }
+            }
+            case DELETE -> {
+                resumeToken = event.getResumeToken();
+                sink.next(deleted(event));
+            }
+            case INVALIDATE -> {
+                // a stream cannot resume after its own invalidate
+                resumeToken = null;
+                sink.next(new Change(null, EmployeeChangeEvent.RESET));
+            }
+            default -> {
+            }
+        }
+    }
+
+    private Change deleted(ChangeStreamEvent<EmployeeDocument> event) {
+        BsonDocument key = event.getRaw() == null ? null : event.getRaw().getDocumentKey();
+        return new Change(tokenId(event.getResumeToken()), new EmployeeChangeEvent(EmployeeChangeEvent.Type.DELETE,
+                key == null ? null : documentId(key.get("_id")), null));
+    }
+
+    private void onFailure(Throwable error) {
+        if (NestedExceptionUtils.getMostSpecificCause(error) instanceof MongoException mongo
+                && UNRESUMABLE_CODES.contains(mongo.getCode())) {
+            log.warn("Employee change stream cannot resume ({}); restarting from now", mongo.getMessage());
+            resumeToken = null;
+            dispatch(new Change(null, EmployeeChangeEvent.RESET));
+            return;
+        }
+        log.warn("Employee change stream failed, reopening: {}", error.getMessage());
+    }
+
+    private static String documentId(BsonValue id) {
+        if (id == null) {
+            return null;
+        }
+        return switch (id.getBsonType()) {
+            case OBJECT_ID -> id.asObjectId().getValue().toHexString();
+            case STRING -> id.asString().getValue();
+            default -> id.toString();
+        };
+    }
+
+    // The token's _data string is what clients echo back in Last-Event-ID
+    private static String tokenId(BsonValue token) {
+        if (token == null) {
+            return null;
+        }
+        if (token.isDocument() && token.asDocument().isString("_data")) {
+            return token.asDocument().getString("_data").getValue();
+        }
+        return token.toString();
+    }
+
+    // before: the attributes prior to an update, when the server kept a pre-image
+    private record Change(String id, EmployeeChangeEvent event, Map<String, Object> before) {
+
+        Change(String id, EmployeeChangeEvent event) {
+            this(id, event, null);
+        }
+
+        ServerSentEvent<EmployeeChangeEvent> toServerSentEvent() {
+            return ServerSentEvent.builder(event)
+                    .id(id)
+                    .event(event.type().eventName())
+                    .build();
+        }
+    }
+
+    // Deletes and resets go to everyone: a delete has no document left to filter on. An update that no
+    // longer matches becomes a REMOVED unless a pre-image shows the employee was outside the filter
+    // before too; without one the client is told anyway and ignores ids it does not hold.
+    private record Subscriber(AttributeFilter filter, Sinks.Many<Change> sink) {
+
+        // null when the change does not concern this subscriber
+        Change view(Change change) {
+            EmployeeChangeEvent event = change.event();
+            if (event.employee() == null || filter.matchesAll() || filter.matches(event.employee().attributes())) {
+                return change;
+            }
+            if (event.type() == EmployeeChangeEvent.Type.UPDATE
+                    && (change.before() == null || filter.matches(change.before()))) {
+                return new Change(change.id(),
+                        new EmployeeChangeEvent(EmployeeChangeEvent.Type.REMOVED, event.id(), null));
+            }
+            return null;
+        }
+    }
+}
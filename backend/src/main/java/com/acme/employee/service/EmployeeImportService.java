@@ -0,0 +1,248 @@
+package com.acme.employee.service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.StringDecoder;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import com.acme.employee.config.AppProperties;
+import com.acme.employee.dto.EmployeeQueryParams;
+import com.acme.employee.dto.ImportFormat;
+import com.acme.employee.dto.ImportProgress;
+import com.acme.employee.dto.PageResponse;
+import com.acme.employee.dto.VersionedEmployee;
+import com.acme.employee.mapper.EmployeeCsvMapper;
+import com.acme.employee.mapper.EmployeeMapper;
+import com.acme.employee.model.EmployeeDocument;
+import com.acme.employee.schema.SchemaField;
+import com.acme.employee.schema.SchemaFieldType;
+import com.acme.employee.schema.SchemaResult;
+import com.acme.employee.support.CollectionNameProvider;
+import com.acme.employee.support.SingleFlight;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@Service
+public class EmployeeImportService {
+
+    private static final ResolvableType STRING_TYPE = ResolvableType.forClass(String.class);
+    private static final TypeReference<Map<String, Object>> ATTRIBUTES_TYPE = new TypeReference<>() {
+    };
+
+    private final ReactiveMongoTemplate template;
+    private final EmployeeMapper mapper;
+    private final EmployeeCsvMapper csvMapper;
+    private final ObjectMapper objectMapper;
+    private final SchemaDiscoveryService schemaDiscoveryService;
+    private final SchemaRegistry schemaRegistry;
+    private final SuggestionIndex suggestionIndex;
+    private final SingleFlight<EmployeeQueryParams, PageResponse<VersionedEmployee>> listFlights;
+    private final CollectionNameProvider collectionNameProvider;
+    private final AppProperties appProperties;
+    private final StringDecoder lineDecoder;
+
+    public EmployeeImportService(ReactiveMongoTemplate template,
+                                 EmployeeMapper mapper,
+                                 EmployeeCsvMapper csvMapper,
+                                 ObjectMapper objectMapper,
+                                 SchemaDiscoveryService schemaDiscoveryService,
+                                 SchemaRegistry schemaRegistry,
+                                 SuggestionIndex suggestionIndex,
+                                 SingleFlight<EmployeeQueryParams, PageResponse<VersionedEmployee>> listFlights,
+                                 CollectionNameProvider collectionNameProvider,
+                                 AppProperties appProperties) {
+        this.template = template;
+        this.mapper = mapper;
+        this.csvMapper = csvMapper;
+        this.objectMapper = objectMapper;
+        this.schemaDiscoveryService = schemaDiscoveryService;
+        this.schemaRegistry = schemaRegistry;
+        this.suggestionIndex = suggestionIndex;
+        this.listFlights = listFlights;
+        this.collectionNameProvider = collectionNameProvider;
+        this.appProperties = appProperties;
+        this.lineDecoder = StringDecoder.textPlainOnly(List.of("\n"), true);
+        // bounds a single record, not the upload
+        this.lineDecoder.setMaxInMemorySize(appProperties.bulk().maxRecordBytes());
+    }
+
+    public Flux<ImportProgress> importRecords(Flux<DataBuffer> content, ImportFormat format) {
+        AppProperties.BulkProperties bulk = appProperties.bulk();
+        Flux<String> lines = lineDecoder.decode(content, STRING_TYPE, null, null);
+        Flux<ParsedRecord> records = switch (format) {
+            case NDJSON -> parseNdjson(lines);
+            case CSV -> parseCsv(lines);
+        };
+
+        AtomicReference<ImportProgress> progress = new AtomicReference<>(ImportProgress.EMPTY);
+        return records
+                .buffer(bulk.batchSize())
+                .flatMapSequential(this::insertBatch, bulk.concurrency())
+                .map(outcome -> progress.updateAndGet(current ->
+                        current.plus(outcome.processed(), outcome.inserted(), outcome.errors())))
+                .concatWith(Mono.defer(() -> refreshSchema().thenReturn(progress.get().complete())));
+    }
+
+    private Flux<ParsedRecord> parseNdjson(Flux<String> lines) {
+        return lines.index()
+                .filter(line -> StringUtils.hasText(line.getT2()))
+                .map(line -> {
+                    long lineNumber = line.getT1() + 1;
+                    try {
+                        return ParsedRecord.of(lineNumber, objectMapper.readValue(line.getT2(), ATTRIBUTES_TYPE));
+                    } catch (JsonProcessingException ex) {
+                        return ParsedRecord.failed("line %d: %s".formatted(lineNumber, ex.getOriginalMessage()));
+                    }
+                });
+    }
+
+    // Cells are text; the known schema types them the way filters are typed, so an export imports back as it was
+    private Flux<ParsedRecord> parseCsv(Flux<String> lines) {
+        Mono<Map<String, SchemaField>> fields = schemaDiscoveryService.discover(collectionNameProvider.collectionName(), 0)
+                .map(SchemaResult::fields)
+                .defaultIfEmpty(Map.of());
+        return fields.flatMapMany(schema -> parseCsv(lines, schema));
+    }
+
+    private Flux<ParsedRecord> parseCsv(Flux<String> lines, Map<String, SchemaField> schema) {
+        return lines.index()
+                .switchOnFirst((first, all) -> {
+                    if (!first.hasValue()) {
+                        return Flux.empty();
+                    }
+                    List<String> columns = csvMapper.parseLine(first.get().getT2()).stream()
+                            .map(String::trim)
+                            .toList();
+                    return all.skip(1)
+                            .filter(line -> StringUtils.hasText(line.getT2()))
+                            .map(line -> toCsvRecord(columns, schema, line.getT1() + 1, line.getT2()));
+                });
+    }
+
+    private ParsedRecord toCsvRecord(List<String> columns, Map<String, SchemaField> schema, long lineNumber,
+                                     String line) {
+        List<String> values = csvMapper.parseLine(line);
+        if (values.size() > columns.size()) {
+            return ParsedRecord.failed("line %d: expected %d columns but found %d"
+                    .formatted(lineNumber, columns.size(), values.size()));
+        }
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        for (int i = 0; i < values.size(); i++) {
+            String column = columns.get(i);
+            if (StringUtils.hasText(values.get(i)) && !csvMapper.isReserved(column)) {
+                SchemaField field = schema.get(column);
+                attributes.put(column, toAttribute(csvMapper.restoreFormula(values.get(i)),
+                        field == null ? SchemaFieldType.UNKNOWN : field.type()));
+            }
+        }
+        return ParsedRecord.of(lineNumber, attributes);
+    }
+
+    // export writes arrays and objects as JSON
+    private Object toAttribute(String value, SchemaFieldType type) {
+        if (type != SchemaFieldType.ARRAY && type != SchemaFieldType.OBJECT) {
+            return type.convert(value);
+        }
+        try {
+            return objectMapper.readValue(value, Object.class);
+        } catch (JsonProcessingException ex) {
+            return value;
+        }
+    }
+
+    private Mono<BatchOutcome> insertBatch(List<ParsedRecord> batch) {
+        List<EmployeeDocument> documents = new ArrayList<>(batch.size());
+        List<Long> lineNumbers = new ArrayList<>(batch.size());
+        List<String> errors = new ArrayList<>();
+        for (ParsedRecord record : batch) {
+            if (record.error() != null) {
+                errors.add(record.error());
+                continue;
+            }
+            EmployeeDocument document = mapper.newDocument(record.attributes());
+            if (document.getAttributes().isEmpty()) {
+                errors.add("line %d: record has no usable attributes".formatted(record.lineNumber()));
+                continue;
+            }
+            documents.add(document);
+            lineNumbers.add(record.lineNumber());
+        }
+        if (documents.isEmpty()) {
+            return Mono.just(new BatchOutcome(batch.size(), 0, errors));
+        }
+        // unordered: a rejected document (duplicate key, validation) does not stop the rest of the batch
+        ReactiveBulkOperations operations = template.bulkOps(BulkOperations.BulkMode.UNORDERED,
+                EmployeeDocument.class, collectionNameProvider.collectionName());
+        return listFlights.detaching(operations.insert(documents).execute())
+                .map(result -> List.<BulkWriteError>of())
+                .onErrorResume(BulkOperationException.class, error -> Mono.just(error.getErrors()))
+                .onErrorResume(MongoBulkWriteException.class, error -> Mono.just(error.getWriteErrors()))
+                .flatMap(writeErrors -> {
+                    Set<Integer> rejected = new HashSet<>();
+                    List<String> batchErrors = new ArrayList<>(errors);
+                    for (BulkWriteError writeError : writeErrors) {
+                        rejected.add(writeError.getIndex());
+                        batchErrors.add("line %d: %s".formatted(lineNumbers.get(writeError.getIndex()),
+                                writeError.getMessage()));
+                    }
+                    List<Map<String, Object>> written = new ArrayList<>(documents.size() - rejected.size());
+                    for (int i = 0; i < documents.size(); i++) {
+                        if (!rejected.contains(i)) {
+                            written.add(documents.get(i).getAttributes());
+                        }
+                    }
+                    BatchOutcome outcome = new BatchOutcome(batch.size(), written.size(), batchErrors);
+                    if (written.isEmpty()) {
+                        return Mono.just(outcome);
+                    }
+                    suggestionIndex.add(written);
+                    return schemaRegistry.observe(collectionNameProvider.collectionName(), written)
+                            .thenReturn(outcome);
+                })
+                // nothing is known to have been written
+                .onErrorResume(error -> {
+                    List<String> batchErrors = new ArrayList<>(errors);
+                    batchErrors.add(error.getMessage());
+                    return Mono.just(new BatchOutcome(batch.size(), 0, batchErrors));
+                });
+    }
+
+    // New fields were recorded batch by batch; warm the schema cache with the registry view
+    private Mono<Void> refreshSchema() {
+        return schemaDiscoveryService.discover(collectionNameProvider.collectionName(), 0)
+                .then();
+    }
+
+    private record ParsedRecord(long lineNumber, Map<String, Object> attributes, String error) {
+
+        private static ParsedRecord of(long lineNumber, Map<String, Object> attributes) {
+            return new ParsedRecord(lineNumber, attributes == null ? Map.of() : attributes, null);
+        }
+
+        private static ParsedRecord failed(String error) {
+            return new ParsedRecord(0, null, error);
+        }
+    }
+
+    private record BatchOutcome(long processed, long inserted, List<String> errors) {
+    }
+}
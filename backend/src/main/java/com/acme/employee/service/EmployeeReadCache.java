@@ -0,0 +1,87 @@
+package com.acme.employee.service;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import org.springframework.stereotype.Component;
+
+import com.acme.employee.config.AppProperties;
+import com.acme.employee.dto.EmployeeResponse;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import reactor.core.publisher.Mono;
+
+@Component
+public class EmployeeReadCache {
+
+    private static final String NAME = "employees";
+
+    private final AsyncCache<String, Optional<EmployeeResponse>> cache;
+    private final CacheInvalidationBus invalidationBus;
+
+    public EmployeeReadCache(AppProperties appProperties, MeterRegistry meterRegistry,
+                             CacheInvalidationBus invalidationBus) {
+        AppProperties.EmployeeCacheProperties properties = appProperties.employeeCache();
+        this.cache = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(properties.maximumSize())
+                .expireAfter(new PresenceExpiry(Duration.ofSeconds(properties.ttlSeconds()),
+                        Duration.ofSeconds(properties.negativeTtlSeconds())))
+                .recordStats()
+                .<String, Optional<EmployeeResponse>>buildAsync(), NAME);
+        this.invalidationBus = invalidationBus;
+        invalidationBus.register(NAME, cache.synchronous()::invalidate, cache.synchronous()::invalidateAll);
+    }
+
+    // Empty results are cached too, so repeated lookups of unknown ids stay off the database
+    public Mono<EmployeeResponse> get(String id, Function<String, Mono<EmployeeResponse>> loader) {
+        // suppress cancellation so one dropped request does not cancel a load other callers share
+        return Mono.fromFuture(cache.get(id, (key, executor) -> loader.apply(key)
+                        .map(Optional::of)
+                        .defaultIfEmpty(Optional.empty())
+                        .toFuture()), true)
+                .flatMap(Mono::justOrEmpty);
+    }
+
+    public void put(EmployeeResponse employee) {
+        cache.put(employee.id(), CompletableFuture.completedFuture(Optional.of(employee)));
+        // the other replicas may hold the previous version, or a cached miss
+        invalidationBus.evict(NAME, employee.id());
+    }
+
+    public void invalidate(String id) {
+        cache.synchronous().invalidate(id);
+        invalidationBus.evict(NAME, id);
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+        invalidationBus.clear(NAME);
+    }
+
+    private record PresenceExpiry(Duration ttl, Duration negativeTtl)
+            implements Expiry<String, Optional<EmployeeResponse>> {
+
+        @Override
+        public long expireAfterCreate(String key, Optional<EmployeeResponse> value, long currentTime) {
+            return value.isPresent() ? ttl.toNanos() : negativeTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Optional<EmployeeResponse> value, long currentTime,
+                                      long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Optional<EmployeeResponse> value, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -1,29 +1,66 @@
 package com.acme.employee.service;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 import java.util.regex.Pattern;
 
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
 import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.query.BasicQuery;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
+import com.acme.employee.config.AppProperties;
+import com.acme.employee.dto.BulkEmployeeItem;
+import com.acme.employee.dto.BulkItemResult;
+import com.acme.employee.dto.BulkResponse;
+import com.acme.employee.dto.CountStrategy;
 import com.acme.employee.dto.EmployeePatchRequest;
 import com.acme.employee.dto.EmployeeQueryParams;
 import com.acme.employee.dto.EmployeeResponse;
 import com.acme.employee.dto.EmployeeUpsertRequest;
+import com.acme.employee.dto.FacetResponse;
 import com.acme.employee.dto.PageResponse;
+import com.acme.employee.dto.RawEmployee;
+import com.acme.employee.dto.SearchMode;
+import com.acme.employee.dto.VersionedEmployee;
+import com.acme.employee.exception.BadRequestException;
+import com.acme.employee.exception.PreconditionFailedException;
 import com.acme.employee.exception.ResourceNotFoundException;
+import com.acme.employee.mapper.EmployeeCsvMapper;
 import com.acme.employee.mapper.EmployeeMapper;
 import com.acme.employee.model.EmployeeDocument;
 import com.acme.employee.repository.EmployeeRepository;
@@ -31,68 +68,495 @@ import com.acme.employee.schema.SchemaField;
 import com.acme.employee.schema.SchemaFieldType;
 import com.acme.employee.schema.SchemaResult;
 import com.acme.employee.support.CollectionNameProvider;
+import com.acme.employee.support.EntityTags;
+import com.acme.employee.support.MappedQuery;
+import com.acme.employee.support.FilterExpression;
+import com.acme.employee.support.PageCursor;
+import com.acme.employee.support.QueryShape;
+import com.acme.employee.support.SingleFlight;
+import com.acme.employee.support.TextSearch;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
 
 @Service
 public class EmployeeService {
 
+    private static final Logger log = LoggerFactory.getLogger(EmployeeService.class);
+
     private static final int MAX_PAGE_SIZE = 100;
+    private static final int EXPORT_BATCH_SIZE = 500;
+    private static final String ID_FIELD = "_id";
+    private static final String ATTRIBUTES_PREFIX = "attributes.";
     private final EmployeeRepository repository;
     private final ReactiveMongoTemplate template;
     private final EmployeeMapper mapper;
+    private final EmployeeCsvMapper csvMapper;
     private final SchemaDiscoveryService schemaDiscoveryService;
+    private final SchemaRegistry schemaRegistry;
     private final CollectionNameProvider collectionNameProvider;
+    private final EmployeeReadCache readCache;
+    private final SuggestionIndex suggestionIndex;
+    private final IndexAdvisor indexAdvisor;
+    private final QueryProfiler queryProfiler;
+    private final AppProperties appProperties;
+    private final AsyncCache<String, Long> countCache;
+    private final AsyncCache<String, FacetResponse> facetCache;
+    private final SingleFlight<EmployeeQueryParams, PageResponse<VersionedEmployee>> listFlights;
+    private final Timer schemaTimer;
+    private final Timer mapTimer;
+    private final DistributionSummary pageSizeSummary;
+    private final DistributionSummary returnedSummary;
+    private volatile Instant textSearchRetryAt = Instant.MIN;
 
     public EmployeeService(EmployeeRepository repository,
                            ReactiveMongoTemplate template,
                            EmployeeMapper mapper,
+                           EmployeeCsvMapper csvMapper,
                            SchemaDiscoveryService schemaDiscoveryService,
-                           CollectionNameProvider collectionNameProvider) {
+                           SchemaRegistry schemaRegistry,
+                           CollectionNameProvider collectionNameProvider,
+                           EmployeeReadCache readCache,
+                           SingleFlight<EmployeeQueryParams, PageResponse<VersionedEmployee>> listFlights,
+                           SuggestionIndex suggestionIndex,
+                           IndexAdvisor indexAdvisor,
+                           QueryProfiler queryProfiler,
+                           AppProperties appProperties,
+                           MeterRegistry meterRegistry) {
         this.repository = repository;
         this.template = template;
         this.mapper = mapper;
+        this.csvMapper = csvMapper;
         this.schemaDiscoveryService = schemaDiscoveryService;
+        this.schemaRegistry = schemaRegistry;
         this.collectionNameProvider = collectionNameProvider;
+        this.readCache = readCache;
+        this.listFlights = listFlights;
+        this.suggestionIndex = suggestionIndex;
+        this.indexAdvisor = indexAdvisor;
+        this.queryProfiler = queryProfiler;
+        this.appProperties = appProperties;
+        this.countCache = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofSeconds(appProperties.list().countCacheTtlSeconds()))
+                .recordStats()
+                .<String, Long>buildAsync(), "employeeCounts");
+        this.facetCache = CaffeineCacheMetrics.monitor(meterRegistry, Caffeine.newBuilder()
+                .maximumSize(appProperties.facets().cacheSize())
+                .expireAfterWrite(Duration.ofSeconds(appProperties.facets().cacheTtlSeconds()))
+                .recordStats()
+                .<String, FacetResponse>buildAsync(), "employeeFacets");
+        // count and find are timed per query shape by QueryProfiler (employees.query)
+        this.schemaTimer = stageTimer(meterRegistry, "schema");
+        this.mapTimer = stageTimer(meterRegistry, "map");
+        this.pageSizeSummary = DistributionSummary.builder("employees.list.page.size")
+                .description("Requested page size after clamping")
+                .register(meterRegistry);
+        this.returnedSummary = DistributionSummary.builder("employees.list.returned")
+                .description("Employees returned per page")
+                .register(meterRegistry);
+    }
+
+    private static Timer stageTimer(MeterRegistry meterRegistry, String stage) {
+        return Timer.builder("employees.list.stage")
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
     }
 
-    public Mono<PageResponse<EmployeeResponse>> list(EmployeeQueryParams params) {
+    public Mono<PageResponse<VersionedEmployee>> list(EmployeeQueryParams params) {
         int page = Math.max(params.pageOrDefault(), 0);
         int size = Math.min(Math.max(params.sizeOrDefault(), 1), MAX_PAGE_SIZE);
+        EmployeeQueryParams resolved = resolveSearchMode(params);
+        indexAdvisor.record(resolved);
+        pageSizeSummary.record(size);
+        return fetchPage(resolved, page, size)
+                .doOnNext(result -> returnedSummary.record(result.content().size()));
+    }
+
+    // The request is recorded once by list; the regex retry only runs the query again
+    private Mono<PageResponse<VersionedEmployee>> fetchPage(EmployeeQueryParams resolved, int page, int size) {
+        // identical pages requested at the same time share one schema lookup, count and find; gets are
+        // coalesced the same way by the read cache's in-flight loads
+        return listFlights.execute(flightKey(resolved, page, size),
+                        () -> timed(schemaTimer, schemaDiscoveryService.discover(collectionNameProvider.collectionName(), 0))
+                                .flatMap(schema -> resolved.cursorMode()
+                                        ? executeKeysetQuery(resolved, size, schema)
+                                        : executePagedQuery(resolved, page, size, schema)))
+                .onErrorResume(TextSearch::isMissingTextIndex, error -> {
+                    disableTextSearch(error);
+                    return fetchPage(resolved.withSearchMode(SearchMode.REGEX), page, size);
+                });
+    }
+
+    // The request with the page and size that were actually served; a keyset page ignores the page number
+    private static EmployeeQueryParams flightKey(EmployeeQueryParams params, int page, int size) {
+        return new EmployeeQueryParams(params.cursorMode() ? 0 : page, size, params.sortField(),
+                params.sortDirectionOptional().map(direction -> direction.toUpperCase(Locale.ROOT)).orElse(null),
+                params.searchTerm(), params.filters(), params.cursor(), params.countStrategy(), params.searchMode(),
+                params.fields());
+    }
+
+    public Flux<EmployeeResponse> export(EmployeeQueryParams params) {
+        EmployeeQueryParams resolved = resolveSearchMode(params);
+        indexAdvisor.record(resolved);
+        return schemaDiscoveryService.discover(collectionNameProvider.collectionName(), 0)
+                .flatMapMany(schema -> streamQuery(resolved, schema));
+    }
 
+    public Flux<String> exportCsv(EmployeeQueryParams params) {
+        EmployeeQueryParams resolved = resolveSearchMode(params);
+        indexAdvisor.record(resolved);
         return schemaDiscoveryService.discover(collectionNameProvider.collectionName(), 0)
-                .flatMap(schema -> executePagedQuery(params, page, size, schema));
+                .flatMapMany(schema -> {
+                    List<String> columns = csvMapper.columns(schema.fields().keySet());
+                    return streamQuery(resolved, schema)
+                            .map(employee -> csvMapper.toLine(employee, columns))
+                            .startWith(csvMapper.headerLine(columns));
+                });
+    }
+
+    // Counts per value for several attributes under the list filters, in one $facet round trip
+    public Mono<FacetResponse> facets(EmployeeQueryParams params, List<String> fields) {
+        EmployeeQueryParams resolved = resolveSearchMode(params);
+        indexAdvisor.record(resolved);
+        String collection = collectionNameProvider.collectionName();
+        return schemaDiscoveryService.discover(collection, 0)
+                .flatMap(schema -> {
+                    Map<String, SchemaFieldType> facetFields = resolveFacetFields(fields, schema);
+                    Query query = buildQuery(resolved, schema);
+                    // filters are already in sorted order, so equivalent requests share one key
+                    String key = collection + ':' + query.getQueryObject() + ':' + facetFields.keySet();
+                    return Mono.fromFuture(facetCache.get(key, (ignored, executor) ->
+                            aggregateFacets(collection, query, facetFields).toFuture()), true);
+                })
+                .onErrorResume(TextSearch::isMissingTextIndex, error -> {
+                    disableTextSearch(error);
+                    return facets(params.withSearchMode(SearchMode.REGEX), fields);
+                });
     }
 
-    private Mono<PageResponse<EmployeeResponse>> executePagedQuery(EmployeeQueryParams params,
-                                                                   int page,
-                                                                   int size,
-                                                                   SchemaResult schema) {
-        Query query = buildQuery(params, schema);
+    private Map<String, SchemaFieldType> resolveFacetFields(List<String> fields, SchemaResult schema) {
+        Map<String, SchemaFieldType> selected = new TreeMap<>();
+        for (String name : fields) {
+            if (!StringUtils.hasText(name)) {
+                continue;
+            }
+            String field = name.trim();
+            SchemaField schemaField = schema.fields().get(field);
+            if (schemaField == null) {
+                throw new BadRequestException("Unknown facet field '%s'".formatted(field));
+            }
+            // dates and objects are effectively unique per document, so their buckets would count nothing useful
+            switch (schemaField.type()) {
+                case DATE, OBJECT, NULL -> throw new BadRequestException("Field '%s' of type %s cannot be faceted"
+                        .formatted(field, schemaField.type()));
+                default -> selected.put(field, schemaField.type());
+            }
+        }
+        if (selected.isEmpty()) {
+            throw new BadRequestException("fields must name at least one attribute");
+        }
+        int maxFields = appProperties.facets().maxFields();
+        if (selected.size() > maxFields) {
+            throw new BadRequestException("At most %d facet fields may be requested".formatted(maxFields));
+        }
+        return selected;
+    }
+
+    private Mono<FacetResponse> aggregateFacets(String collection, Query query, Map<String, SchemaFieldType> fields) {
+        int maxBuckets = appProperties.facets().maxBuckets();
+        Document facets = new Document();
+        fields.forEach((field, type) -> {
+            String path = "$" + ATTRIBUTES_PREFIX + field;
+            List<Document> pipeline = new ArrayList<>();
+            if (type == SchemaFieldType.ARRAY) {
+                // count each element, so a skill shared by many employees gets one bucket
+                pipeline.add(new Document("$unwind", path));
+            }
+            pipeline.add(new Document("$group", new Document(ID_FIELD, path).append("count", new Document("$sum", 1))));
+            pipeline.add(new Document("$sort", new Document("count", -1).append(ID_FIELD, 1)));
+            pipeline.add(new Document("$limit", maxBuckets));
+            facets.append(field, pipeline);
+        });
+        // typed, so the $match values go through the same mapping as a find (Instant -> Date and so on)
+        TypedAggregation<EmployeeDocument> aggregation = Aggregation.newAggregation(EmployeeDocument.class,
+                context -> new Document("$match", context.getMappedObject(query.getQueryObject())),
+                context -> new Document("$facet", facets));
+        QueryShape shape = QueryShape.named(QueryShape.of(query.getQueryObject(), null).text() + " $facet " + fields.keySet());
+
+        return queryProfiler.time("facets", shape, template.aggregate(aggregation, collection, Document.class)
+                        .next()
+                        .defaultIfEmpty(new Document()))
+                .map(result -> {
+                    Map<String, List<FacetResponse.Bucket>> counts = new LinkedHashMap<>();
+                    fields.keySet().forEach(field -> counts.put(field, result.getList(field, Document.class, List.of())
+                            .stream()
+                            .map(bucket -> new FacetResponse.Bucket(bucket.get(ID_FIELD),
+                                    ((Number) bucket.get("count")).longValue()))
+                            .toList()));
+                    return new FacetResponse(counts);
+                });
+    }
+
+    // Streams the driver cursor batch by batch; demand from the response writer drives getMore calls.
+    private Flux<EmployeeResponse> streamQuery(EmployeeQueryParams params, SchemaResult schema) {
+        Query query = buildQuery(params, schema).cursorBatchSize(EXPORT_BATCH_SIZE);
+        params.sortFieldOptional()
+                .map(field -> Sort.by(resolveSortDirection(params.sortDirectionOptional()), resolveSortField(field)))
+                .ifPresent(query::with);
+        return template.find(query, EmployeeDocument.class, collectionNameProvider.collectionName())
+                .map(mapper::toResponse)
+                // the missing index surfaces on the first batch, before anything has been emitted
+                .onErrorResume(TextSearch::isMissingTextIndex, error -> {
+                    disableTextSearch(error);
+                    return streamQuery(params.withSearchMode(SearchMode.REGEX), schema);
+                });
+    }
+
+    // Text search needs an indexable term and a text index; everything else goes through the regex scan.
+    private EmployeeQueryParams resolveSearchMode(EmployeeQueryParams params) {
+        SearchMode mode = params.searchModeOptional().orElse(appProperties.search().mode());
+        if (mode == SearchMode.TEXT
+                && (TextSearch.toSearchString(params.searchTerm()).isEmpty() || Instant.now().isBefore(textSearchRetryAt))) {
+            mode = SearchMode.REGEX;
+        }
+        return params.withSearchMode(mode);
+    }
+
+    private void disableTextSearch(Throwable error) {
+        log.warn("No text index on {}, using regex search for {}s: {}", collectionNameProvider.collectionName(),
+                appProperties.search().textIndexRetrySeconds(), error.getMessage());
+        textSearchRetryAt = Instant.now().plusSeconds(appProperties.search().textIndexRetrySeconds());
+    }
+
+    private Mono<PageResponse<VersionedEmployee>> executePagedQuery(EmployeeQueryParams params,
+                                                                    int page,
+                                                                    int size,
+                                                                    SchemaResult schema) {
+        Query countQuery = buildQuery(params, schema);
         PageRequest pageRequest = buildPageRequest(params, page, size);
-        Query pagedQuery = query.with(pageRequest);
+        // one extra document tells us whether a next page exists without relying on the count
+        Query pagedQuery = project(buildQuery(params, schema).with(pageRequest).limit(size + 1), params, null);
+        if (params.searchMode() == SearchMode.TEXT && params.sortFieldOptional().isEmpty()) {
+            pagedQuery = relevanceOrdered(pagedQuery);
+        }
 
-        return template.count(query, EmployeeDocument.class, collectionNameProvider.collectionName())
-                .flatMap(total -> template.find(pagedQuery, EmployeeDocument.class, collectionNameProvider.collectionName())
-                        .map(mapper::toResponse)
-                        .collectList()
-                        .map(content -> toPageResponse(content, page, size, total)));
+        String collection = collectionNameProvider.collectionName();
+        return Mono.zip(queryProfiler.profile("count", collection, countQuery, countTotal(params, countQuery)),
+                        findPage(pagedQuery, collection))
+                .map(tuple -> {
+                    List<VersionedEmployee> rows = tuple.getT2();
+                    boolean hasNext = rows.size() > size;
+                    List<VersionedEmployee> content = hasNext ? rows.subList(0, size) : rows;
+                    return toPageResponse(content, page, size, tuple.getT1(), hasNext, page > 0, null);
+                });
     }
 
-    private Query buildQuery(EmployeeQueryParams params, SchemaResult schema) {
-        List<Criteria> andCriteria = new ArrayList<>();
-        andCriteria.add(new Criteria().orOperator(
-                Criteria.where("deleted").is(false),
-                Criteria.where("deleted").exists(false)
-        ));
+    // Query#with(Sort) cannot express {$meta: "textScore"}, so the sort document is set directly.
+    private Query relevanceOrdered(Query query) {
+        BasicQuery ranked = new BasicQuery(query.getQueryObject(), query.getFieldsObject());
+        ranked.setSortObject(TextSearch.relevanceSort());
+        return ranked.skip(query.getSkip()).limit(query.getLimit());
+    }
 
-        if (StringUtils.hasText(params.searchTerm())) {
-            andCriteria.add(buildSearchCriteria(params.searchTerm(), schema));
+    private Mono<PageResponse<VersionedEmployee>> executeKeysetQuery(EmployeeQueryParams params,
+                                                                     int size,
+                                                                     SchemaResult schema) {
+        String sortField = params.sortFieldOptional().map(this::resolveSortField).orElse(ID_FIELD);
+        Sort.Direction direction = resolveSortDirection(params.sortDirectionOptional());
+        PageCursor after = StringUtils.hasText(params.cursor()) ? PageCursor.decode(params.cursor()) : null;
+        if (after != null && !sortField.equals(after.sortField())) {
+            return Mono.error(new BadRequestException("Cursor does not match the requested sort field"));
+        }
+
+        List<Criteria> criteria = buildCriteria(params, schema);
+        Query countQuery = toQuery(criteria);
+        if (after != null) {
+            criteria.add(buildKeysetCriteria(sortField, direction, after));
+        }
+        Query pagedQuery = project(toQuery(criteria)
+                .with(buildKeysetSort(sortField, direction))
+                .limit(size + 1), params, sortField);
+
+        String collection = collectionNameProvider.collectionName();
+        // only the first page is counted; clients following a cursor keep the total they were given
+        Mono<TotalCount> total = after == null
+                ? queryProfiler.profile("count", collection, countQuery, countTotal(params, countQuery))
+                : Mono.just(TotalCount.UNKNOWN);
+        return Mono.zip(total, findPage(pagedQuery, collection))
+                .map(tuple -> {
+                    List<VersionedEmployee> rows = tuple.getT2();
+                    boolean hasNext = rows.size() > size;
+                    List<VersionedEmployee> content = hasNext ? rows.subList(0, size) : rows;
+                    String nextCursor = null;
+                    if (hasNext) {
+                        VersionedEmployee last = content.getLast();
+                        nextCursor = new PageCursor(sortField, sortValue(last, sortField), last.id()).encode();
+                    }
+                    return toPageResponse(content, 0, size, tuple.getT1(), hasNext, after != null, nextCursor);
+                });
+    }
+
+    // Loads only the requested attributes plus the fields the ETags are built from, which cuts what
+    // crosses the wire. It does not make the query covered: the deleted filter matches missing fields
+    // too ($exists:false), and an index cannot answer that without fetching each document.
+    private Query project(Query query, EmployeeQueryParams params, String sortField) {
+        if (!params.projected()) {
+            return query;
+        }
+        query.fields().include(ID_FIELD, "version", "updatedAt");
+        for (String field : params.fields()) {
+            query.fields().include(resolveProjectedField(field));
+        }
+        // the keyset cursor is built from the sort value of the last document
+        if (sortField != null && !ID_FIELD.equals(sortField)) {
+            query.fields().include(sortField);
+        }
+        return query;
+    }
+
+    private String resolveProjectedField(String field) {
+        if (field.startsWith("$") || field.indexOf('.') >= 0) {
+            throw new BadRequestException("Field '%s' cannot be projected: names must not contain '.' or start with '$'"
+                    .formatted(field));
+        }
+        return resolveSortField(field);
+    }
+
+    private Mono<List<VersionedEmployee>> findPage(Query query, String collection) {
+        if (appProperties.list().rawBson()) {
+            return queryProfiler.profile("find", collection, query, findRaw(query, collection));
+        }
+        return queryProfiler.profile("find", collection, query,
+                        template.find(query, EmployeeDocument.class, collection).collectList())
+                .map(this::toResponses);
+    }
+
+    private List<VersionedEmployee> toResponses(List<EmployeeDocument> documents) {
+        return mapTimer.record(() -> documents.stream().<VersionedEmployee>map(mapper::toResponse).toList());
+    }
+
+    // Reads the page through the driver with the RawBsonDocument codec, so documents stay as the
+    // bytes the server sent until RawEmployeeSerializer writes them out. Mapping the query here is
+    // what ReactiveMongoTemplate#find does before it decodes into EmployeeDocument.
+    private Mono<List<VersionedEmployee>> findRaw(Query query, String collection) {
+        MappedQuery mapped = MappedQuery.of(template.getConverter(), query);
+        return template.execute(collection, documents -> documents.withDocumentClass(RawBsonDocument.class)
+                        .find(mapped.filter())
+                        .projection(mapped.fields().isEmpty() ? null : mapped.fields())
+                        .sort(mapped.sort().isEmpty() ? null : mapped.sort())
+                        .skip((int) query.getSkip())
+                        .limit(query.getLimit()))
+                .<VersionedEmployee>map(RawEmployee::new)
+                .collectList();
+    }
+
+    private static <T> Mono<T> timed(Timer timer, Mono<T> execution) {
+        return Mono.defer(() -> {
+            long started = System.nanoTime();
+            return execution.doOnSuccess(ignored -> timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    private Mono<TotalCount> countTotal(EmployeeQueryParams params, Query countQuery) {
+        CountStrategy strategy = params.countStrategyOptional().orElse(appProperties.list().countStrategy());
+        return switch (strategy) {
+            case EXACT -> exactCount(countQuery).map(TotalCount::exact);
+            case ESTIMATED -> isUnfiltered(params)
+                    ? estimatedLiveCount().map(TotalCount::approximate)
+                    : exactCount(countQuery).map(TotalCount::exact);
+            case CACHED -> cachedCount(countQuery).map(TotalCount::approximate);
+            case NONE -> Mono.just(TotalCount.UNKNOWN);
+        };
+    }
+
+    private Mono<Long> exactCount(Query countQuery) {
+        return template.count(countQuery, EmployeeDocument.class, collectionNameProvider.collectionName());
+    }
+
+    // Collection metadata counts soft-deleted rows too, so they are taken off, counted through the count
+    // cache. Still approximate: the metadata can drift after an unclean shutdown and the deleted count lags.
+    private Mono<Long> estimatedLiveCount() {
+        return Mono.zip(template.estimatedCount(collectionNameProvider.collectionName()),
+                cachedCount(Query.query(Criteria.where("deleted").is(true))),
+                (all, deleted) -> Math.max(all - deleted, 0));
+    }
+
+    private Mono<Long> cachedCount(Query countQuery) {
+        String key = collectionNameProvider.collectionName() + ':' + countQuery.getQueryObject();
+        // suppress cancellation so one dropped request does not cancel a count other callers share
+        return Mono.fromFuture(countCache.get(key, (ignored, executor) -> exactCount(countQuery).toFuture()), true);
+    }
+
+    private boolean isUnfiltered(EmployeeQueryParams params) {
+        return !StringUtils.hasText(params.searchTerm()) && params.filters().isEmpty();
+    }
+
+    private Sort buildKeysetSort(String sortField, Sort.Direction direction) {
+        Sort idSort = Sort.by(direction, ID_FIELD);
+        if (ID_FIELD.equals(sortField)) {
+            return idSort;
+        }
+        return Sort.by(direction, sortField).and(idSort);
+    }
+
+    // Mongo orders null/missing values first ascending and last descending, so the
+    // range predicate has to carry them across the boundary explicitly.
+    private Criteria buildKeysetCriteria(String sortField, Sort.Direction direction, PageCursor after) {
+        boolean ascending = direction.isAscending();
+        Criteria afterId = ascending
+                ? Criteria.where(ID_FIELD).gt(after.lastId())
+                : Criteria.where(ID_FIELD).lt(after.lastId());
+        if (ID_FIELD.equals(sortField)) {
+            return afterId;
+        }
+
+        Object lastValue = after.lastValue();
+        Criteria sameKey = new Criteria().andOperator(Criteria.where(sortField).is(lastValue), afterId);
+        if (lastValue == null) {
+            return ascending
+                    ? new Criteria().orOperator(sameKey, Criteria.where(sortField).ne(null))
+                    : sameKey;
+        }
+        if (ascending) {
+            return new Criteria().orOperator(Criteria.where(sortField).gt(lastValue), sameKey);
+        }
+        return new Criteria().orOperator(
+                Criteria.where(sortField).lt(lastValue),
+                sameKey,
+                Criteria.where(sortField).is(null));
+    }
+
+    private Object sortValue(VersionedEmployee row, String sortField) {
+        if (row instanceof RawEmployee raw) {
+            return ID_FIELD.equals(sortField) ? raw.id() : raw.value(sortField);
         }
+        EmployeeResponse employee = (EmployeeResponse) row;
+        return switch (sortField) {
+            case ID_FIELD -> employee.id();
+            case "createdAt" -> employee.createdAt();
+            case "updatedAt" -> employee.updatedAt();
+            case "deleted" -> employee.deleted();
+            default -> employee.attributes().get(sortField.substring(ATTRIBUTES_PREFIX.length()));
+        };
+    }
 
-        params.filters().forEach((key, value) -> buildFilterCriteria(key, value, schema).ifPresent(andCriteria::add));
+    Query buildQuery(EmployeeQueryParams params, SchemaResult schema) {
+        return toQuery(buildCriteria(params, schema));
+    }
 
+    private Query toQuery(List<Criteria> andCriteria) {
         Criteria root = new Criteria();
         if (!andCriteria.isEmpty()) {
             root.andOperator(andCriteria.toArray(Criteria[]::new));
@@ -100,6 +564,23 @@ public class EmployeeService {
         return new Query(root);
     }
 
+    private List<Criteria> buildCriteria(EmployeeQueryParams params, SchemaResult schema) {
+        List<Criteria> andCriteria = new ArrayList<>();
+        andCriteria.add(new Criteria().orOperator(
+                Criteria.where("deleted").is(false),
+                Criteria.where("deleted").exists(false)
+        ));
+
+        if (StringUtils.hasText(params.searchTerm())) {
+            andCriteria.add(buildSearchCriteria(params, schema));
+        }
+
+        // sorted so equivalent requests produce the same query document (count cache key)
+        new TreeMap<>(params.filters())
+                .forEach((key, value) -> buildFilterCriteria(key, value, schema).ifPresent(andCriteria::add));
+        return andCriteria;
+    }
+
     private PageRequest buildPageRequest(EmployeeQueryParams params, int page, int size) {
         Optional<Sort> sort = params.sortFieldOptional()
                 .map(field -> Sort.by(resolveSortDirection(params.sortDirectionOptional()), resolveSortField(field)));
@@ -116,11 +597,18 @@ public class EmployeeService {
     private String resolveSortField(String field) {
         return switch (field) {
             case "createdAt", "updatedAt", "deleted" -> field;
-            default -> "attributes." + field;
+            default -> ATTRIBUTES_PREFIX + field;
         };
     }
 
-    private Criteria buildSearchCriteria(String searchTerm, SchemaResult schema) {
+    private Criteria buildSearchCriteria(EmployeeQueryParams params, SchemaResult schema) {
+        if (params.searchMode() == SearchMode.TEXT) {
+            return Criteria.where("$text").is(new Document("$search", TextSearch.toSearchString(params.searchTerm()).orElseThrow()));
+        }
+        return buildRegexSearchCriteria(params.searchTerm(), schema);
+    }
+
+    private Criteria buildRegexSearchCriteria(String searchTerm, SchemaResult schema) {
         String regex = ".*" + Pattern.quote(searchTerm.trim()) + ".*";
         List<Criteria> orCriteria = schema.fields().values().stream()
                 .filter(field -> field.type() == SchemaFieldType.STRING || field.type() == SchemaFieldType.UNKNOWN)
@@ -137,16 +625,12 @@ public class EmployeeService {
         if (!StringUtils.hasText(key) || !StringUtils.hasText(rawValue)) {
             return Optional.empty();
         }
-        String operator = "eq";
-        String value = rawValue;
-        int colonIndex = rawValue.indexOf(':');
-        if (colonIndex > 0) {
-            operator = rawValue.substring(0, colonIndex).toLowerCase(Locale.ROOT);
-            value = rawValue.substring(colonIndex + 1);
-        }
+        FilterExpression expression = FilterExpression.parse(rawValue);
+        String operator = expression.operator();
+        String value = expression.value();
 
         SchemaFieldType fieldType = schema.fields().getOrDefault(key, new SchemaField(key, SchemaFieldType.UNKNOWN, false, true, null)).type();
-        Object typedValue = convertValue(value, fieldType);
+        Object typedValue = fieldType.convert(value);
 
         return switch (operator) {
             case "eq" -> Optional.of(Criteria.where("attributes." + key).is(typedValue));
@@ -158,86 +642,301 @@ public class EmployeeService {
         };
     }
 
-    private Object convertValue(String value, SchemaFieldType fieldType) {
-        if (!StringUtils.hasText(value)) {
-            return value;
-        }
-        try {
-            return switch (fieldType) {
-                case NUMBER -> Double.valueOf(value);
-                case BOOLEAN -> Boolean.valueOf(value);
-                case DATE -> Instant.parse(value);
-                default -> value;
-            };
-        } catch (Exception ex) {
-            return value;
+    private <T> PageResponse<T> toPageResponse(List<T> content,
+                                               int page,
+                                               int size,
+                                               TotalCount count,
+                                               boolean hasNext,
+                                               boolean hasPrevious,
+                                               String nextCursor) {
+        long total = count.value();
+        int totalPages = (int) Math.ceil((double) total / size);
+        if (!count.isExact()) {
+            // approximate or missing totals may lag behind what the page fetch actually saw
+            long seen = (long) page * size + content.size() + (hasNext ? 1 : 0);
+            total = Math.max(total, seen);
+            totalPages = Math.max((int) Math.ceil((double) total / size), page + (hasNext ? 2 : 1));
         }
+        return new PageResponse<>(content, total, count.isExact(), page, size, totalPages, hasNext, hasPrevious, nextCursor);
     }
 
-    private PageResponse<EmployeeResponse> toPageResponse(List<EmployeeResponse> content,
-                                                          int page,
-                                                          int size,
-                                                          long total) {
-        int totalPages = (int) Math.ceil((double) total / size);
-        boolean hasNext = page + 1 < totalPages;
-        boolean hasPrevious = page > 0;
-        return new PageResponse<>(content, total, page, size, totalPages, hasNext, hasPrevious);
+    private record TotalCount(long value, boolean isExact) {
+
+        private static final TotalCount UNKNOWN = new TotalCount(0, false);
+
+        private static TotalCount exact(long value) {
+            return new TotalCount(value, true);
+        }
+
+        private static TotalCount approximate(long value) {
+            return new TotalCount(value, false);
+        }
     }
 
-    public Mono<EmployeeResponse> get(String id) {
-        return repository.findById(id)
-                .filter(employee -> !employee.isDeleted())
-                .switchIfEmpty(Mono.error(new ResourceNotFoundException("Employee", id)))
-                .map(mapper::toResponse);
+    // The read cache holds whole employees, so a projected get trims the cached copy instead of
+    // splitting the cache per field set; the single-document fetch by _id is not worth projecting.
+    public Mono<EmployeeResponse> get(String id, Set<String> fields) {
+        fields.forEach(this::resolveProjectedField);
+        return readCache.get(id, key -> repository.findById(key)
+                        .filter(employee -> !employee.isDeleted())
+                        .map(mapper::toResponse))
+                .map(employee -> fields.isEmpty() ? employee : mapper.project(employee, fields))
+                .switchIfEmpty(Mono.error(new ResourceNotFoundException("Employee", id)));
     }
 
     @Transactional
     public Mono<EmployeeResponse> create(EmployeeUpsertRequest request) {
         EmployeeDocument document = mapper.newDocument(request.attributes());
-        return repository.save(document)
-                .map(mapper::toResponse);
+        return listFlights.detaching(repository.save(document))
+                .map(mapper::toResponse)
+                .flatMap(employee -> recordWrite(null, employee))
+                .doOnNext(readCache::put);
+    }
+
+    public Mono<BulkResponse> bulkUpsert(Flux<BulkEmployeeItem> items) {
+        AppProperties.BulkProperties bulk = appProperties.bulk();
+        return listFlights.detaching(items.index()
+                        .buffer(bulk.batchSize())
+                        .flatMapSequential(this::executeBulkBatch, bulk.concurrency()))
+                .doOnNext(results -> results.stream()
+                        // upserts may replace a cached document or a cached miss
+                        .filter(result -> result.status() != BulkItemResult.Status.FAILED && result.id() != null)
+                        .forEach(result -> readCache.invalidate(result.id())))
+                .flatMapIterable(results -> results)
+                .reduceWith(BulkResponse.Tally::new, BulkResponse.Tally::add)
+                .map(BulkResponse.Tally::toResponse);
+    }
+
+    private Mono<List<BulkItemResult>> executeBulkBatch(List<Tuple2<Long, BulkEmployeeItem>> batch) {
+        ReactiveBulkOperations operations = template.bulkOps(BulkOperations.BulkMode.UNORDERED,
+                EmployeeDocument.class, collectionNameProvider.collectionName());
+        BulkItemResult[] results = new BulkItemResult[batch.size()];
+        // position of each queued write within this batch, in the order it was added
+        List<Integer> operationSlots = new ArrayList<>();
+        List<Map<String, Object>> written = new ArrayList<>();
+        List<String> writtenIds = new ArrayList<>();
+        Set<Integer> insertSlots = new HashSet<>();
+        Instant now = Instant.now();
+
+        for (int slot = 0; slot < batch.size(); slot++) {
+            long index = batch.get(slot).getT1();
+            BulkEmployeeItem item = batch.get(slot).getT2();
+            Map<String, Object> attributes = item.attributes() == null ? Map.of() : mapper.cleanAttributes(item.attributes());
+            if (attributes.isEmpty()) {
+                results[slot] = BulkItemResult.failed(index, item.id(), "attributes must not be empty");
+                continue;
+            }
+            if (StringUtils.hasText(item.id())) {
+                Update update = mapper.replaceUpdate(attributes, now)
+                        .setOnInsert("createdAt", now);
+                operations.upsert(Query.query(Criteria.where(ID_FIELD).is(item.id())), update);
+                writtenIds.add(item.id());
+            } else {
+                EmployeeDocument document = mapper.newDocument(attributes);
+                document.setId(new ObjectId().toHexString());
+                operations.insert(document);
+                writtenIds.add(null);
+                insertSlots.add(slot);
+                results[slot] = BulkItemResult.created(index, document.getId());
+            }
+            operationSlots.add(slot);
+            written.add(attributes);
+        }
+
+        if (operationSlots.isEmpty()) {
+            return Mono.just(Arrays.asList(results));
+        }
+        return indexedValues(writtenIds)
+                .flatMap(previous -> operations.execute()
+                        .map(result -> new BulkOutcome(result, List.of()))
+                        .onErrorResume(BulkOperationException.class,
+                                error -> Mono.just(new BulkOutcome(error.getResult(), error.getErrors())))
+                        .onErrorResume(MongoBulkWriteException.class,
+                                error -> Mono.just(new BulkOutcome(error.getWriteResult(), error.getWriteErrors())))
+                        .flatMap(outcome -> recordBulkWrites(writtenIds, written, previous, outcome.errors())
+                                .thenReturn(outcome)))
+                .map(outcome -> resolveBulkResults(batch, results, operationSlots, insertSlots, outcome.result(),
+                        outcome.errors()))
+                // nothing is known to have been written
+                .onErrorResume(error -> {
+                    for (int slot : operationSlots) {
+                        Tuple2<Long, BulkEmployeeItem> entry = batch.get(slot);
+                        String id = results[slot] != null ? results[slot].id() : entry.getT2().id();
+                        results[slot] = BulkItemResult.failed(entry.getT1(), id, error.getMessage());
+                    }
+                    return Mono.just(Arrays.asList(results));
+                });
+    }
+
+    // Suggestion-indexed values of the live rows an upsert is about to overwrite, by id
+    private Mono<Map<String, Map<String, Object>>> indexedValues(List<String> ids) {
+        List<String> upserted = ids.stream().filter(Objects::nonNull).distinct().toList();
+        if (upserted.isEmpty() || suggestionIndex.fields().isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        Query query = Query.query(Criteria.where(ID_FIELD).in(upserted));
+        query.fields().include("deleted");
+        suggestionIndex.fields().forEach(field -> query.fields().include("attributes." + field));
+        return template.find(query, EmployeeDocument.class, collectionNameProvider.collectionName())
+                .filter(document -> !document.isDeleted())
+                .collectMap(EmployeeDocument::getId, EmployeeDocument::getAttributes);
+    }
+
+    // Only the rows the server accepted reach the schema registry and the suggestion index
+    private Mono<Void> recordBulkWrites(List<String> ids, List<Map<String, Object>> written,
+                                        Map<String, Map<String, Object>> previous, List<BulkWriteError> errors) {
+        Set<Integer> rejected = new HashSet<>();
+        errors.forEach(error -> rejected.add(error.getIndex()));
+        List<String> acceptedIds = new ArrayList<>(written.size());
+        List<Map<String, Object>> accepted = new ArrayList<>(written.size());
+        for (int i = 0; i < written.size(); i++) {
+            if (!rejected.contains(i)) {
+                acceptedIds.add(ids.get(i));
+                accepted.add(written.get(i));
+            }
+        }
+        if (accepted.isEmpty()) {
+            return Mono.empty();
+        }
+        replaceSuggestions(acceptedIds, accepted, previous);
+        return schemaRegistry.observe(collectionNameProvider.collectionName(), accepted);
+    }
+
+    // Rows are applied in batch order, so an id written twice moves from its first new value to its second
+    private void replaceSuggestions(List<String> ids, List<Map<String, Object>> written,
+                                    Map<String, Map<String, Object>> previous) {
+        Map<String, Map<String, Object>> current = new HashMap<>(previous);
+        for (int i = 0; i < written.size(); i++) {
+            String id = ids.get(i);
+            suggestionIndex.replace(id == null ? null : current.get(id), written.get(i));
+            if (id != null) {
+                current.put(id, written.get(i));
+            }
+        }
+    }
+
+    private List<BulkItemResult> resolveBulkResults(List<Tuple2<Long, BulkEmployeeItem>> batch,
+                                                    BulkItemResult[] results,
+                                                    List<Integer> operationSlots,
+                                                    Set<Integer> insertSlots,
+                                                    BulkWriteResult writeResult,
+                                                    List<BulkWriteError> errors) {
+        Set<Integer> upserted = new HashSet<>();
+        writeResult.getUpserts().forEach(upsert -> upserted.add(upsert.getIndex()));
+        for (int operation = 0; operation < operationSlots.size(); operation++) {
+            int slot = operationSlots.get(operation);
+            if (insertSlots.contains(slot)) {
+                continue;
+            }
+            Tuple2<Long, BulkEmployeeItem> entry = batch.get(slot);
+            results[slot] = upserted.contains(operation)
+                    ? BulkItemResult.created(entry.getT1(), entry.getT2().id())
+                    : BulkItemResult.updated(entry.getT1(), entry.getT2().id());
+        }
+        for (BulkWriteError error : errors) {
+            int slot = operationSlots.get(error.getIndex());
+            results[slot] = BulkItemResult.failed(batch.get(slot).getT1(), results[slot].id(), error.getMessage());
+        }
+        return Arrays.asList(results);
     }
 
     @Transactional
-    public Mono<EmployeeResponse> replace(String id, EmployeeUpsertRequest request) {
-        return repository.findById(id)
-                .switchIfEmpty(Mono.error(new ResourceNotFoundException("Employee", id)))
-                .flatMap(document -> {
-                    mapper.overwriteAttributes(document, request.attributes());
-                    document.setDeleted(false);
-                    return repository.save(document);
-                })
-                .map(mapper::toResponse);
+    public Mono<EmployeeResponse> replace(String id, EmployeeUpsertRequest request, String ifMatch) {
+        Instant now = Instant.now();
+        return findAndModify(id, ifMatch, mapper.replaceUpdate(request.attributes(), now),
+                before -> mapper.replaced(before, request.attributes(), now));
     }
 
     @Transactional
-    public Mono<EmployeeResponse> patch(String id, EmployeePatchRequest request) {
-        return repository.findById(id)
-                .switchIfEmpty(Mono.error(new ResourceNotFoundException("Employee", id)))
-                .flatMap(document -> {
-                    mapper.mergeAttributes(document, request.attributes());
-                    document.setDeleted(false);
-                    return repository.save(document);
-                })
-                .map(mapper::toResponse);
+    public Mono<EmployeeResponse> patch(String id, EmployeePatchRequest request, String ifMatch) {
+        Instant now = Instant.now();
+        return Mono.fromSupplier(() -> mapper.patchUpdate(request.attributes(), now))
+                .flatMap(update -> findAndModify(id, ifMatch, update,
+                        before -> mapper.patched(before, request.attributes(), now)));
     }
 
     @Transactional
-    public Mono<Void> delete(String id, boolean softDelete) {
-        return repository.findById(id)
-                .switchIfEmpty(Mono.error(new ResourceNotFoundException("Employee", id)))
-                .flatMap(document -> {
-                    if (softDelete) {
-                        document.setDeleted(true);
-                        document.setUpdatedAt(Instant.now());
-                        return repository.save(document).then();
+    public Mono<Void> delete(String id, boolean softDelete, String ifMatch) {
+        Query query = conditionalQuery(id, ifMatch);
+        // both return the document as it was, so its values can leave the suggestion index
+        Mono<EmployeeDocument> removed = softDelete
+                ? template.findAndModify(query, new Update().set("deleted", true).set("updatedAt", Instant.now()).inc("version", 1),
+                        EmployeeDocument.class, collectionNameProvider.collectionName())
+                : template.findAndRemove(query, EmployeeDocument.class, collectionNameProvider.collectionName());
+        return listFlights.detaching(removed)
+                .doOnNext(document -> {
+                    if (!document.isDeleted()) {
+                        suggestionIndex.remove(List.of(document.getAttributes()));
                     }
-                    return repository.delete(document);
-                });
+                })
+                .hasElement()
+                .flatMap(matched -> matched ? Mono.<Void>empty() : missingOrModified(id, ifMatch))
+                .doFinally(signal -> readCache.invalidate(id));
+    }
+
+    // Applies the update in a single round trip. The write returns the pre-image, so the suggestion index
+    // can move the row off its old values; the post-image is derived from it the way the update does.
+    private Mono<EmployeeResponse> findAndModify(String id, String ifMatch, UpdateDefinition update,
+                                                 UnaryOperator<EmployeeDocument> postImage) {
+        return listFlights.detaching(template.findAndModify(conditionalQuery(id, ifMatch), update,
+                        FindAndModifyOptions.options().returnNew(false),
+                        EmployeeDocument.class, collectionNameProvider.collectionName()))
+                .switchIfEmpty(Mono.defer(() -> missingOrModified(id, ifMatch)))
+                .flatMap(before -> recordWrite(before.isDeleted() ? null : before.getAttributes(),
+                        mapper.toResponse(postImage.apply(before))))
+                .doOnNext(readCache::put);
+    }
+
+    private Mono<EmployeeResponse> recordWrite(Map<String, Object> previous, EmployeeResponse employee) {
+        suggestionIndex.replace(previous, employee.attributes());
+        return schemaRegistry.observe(collectionNameProvider.collectionName(), List.of(employee.attributes()))
+                .thenReturn(employee);
+    }
+
+    // If-Match is evaluated inside the write filter, so the check and the write are atomic
+    private Query conditionalQuery(String id, String ifMatch) {
+        Criteria criteria = Criteria.where(ID_FIELD).is(id);
+        EntityTags.parseIfMatch(ifMatch).ifPresent(versions -> {
+            if (versions.isEmpty()) {
+                criteria.and("version").lt(0);
+                return;
+            }
+            criteria.orOperator(versions.stream().map(this::versionCriteria).toList());
+        });
+        return Query.query(criteria);
+    }
+
+    private Criteria versionCriteria(EntityTags.Version version) {
+        // documents written before the version field existed read back as version 0 and may lack updatedAt
+        Criteria versionMatch = version.version() == 0
+                ? Criteria.where("version").in(0L, null)
+                : Criteria.where("version").is(version.version());
+        Criteria updatedAtMatch = version.updatedAtMillis() == 0
+                ? Criteria.where("updatedAt").is(null)
+                : Criteria.where("updatedAt").is(new Date(version.updatedAtMillis()));
+        return new Criteria().andOperator(versionMatch, updatedAtMatch);
+    }
+
+    private <T> Mono<T> missingOrModified(String id, String ifMatch) {
+        if (EntityTags.parseIfMatch(ifMatch).isEmpty()) {
+            return Mono.error(new ResourceNotFoundException("Employee", id));
+        }
+        return template.exists(Query.query(Criteria.where(ID_FIELD).is(id)), EmployeeDocument.class,
+                        collectionNameProvider.collectionName())
+                .flatMap(exists -> Mono.error(exists
+                        ? new PreconditionFailedException("Employee", id)
+                        : new ResourceNotFoundException("Employee", id)));
     }
 
     @Transactional
     public Mono<Void> deleteAll() {
-        return repository.deleteAll();
+        return listFlights.detaching(repository.deleteAll())
+                .doFinally(signal -> {
+                    readCache.invalidateAll();
+                    suggestionIndex.clear();
+                });
+    }
+
+    private record BulkOutcome(BulkWriteResult result, List<BulkWriteError> errors) {
     }
 }
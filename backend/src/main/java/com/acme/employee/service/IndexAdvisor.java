@@ -0,0 +1,290 @@
+package com.acme.employee.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.WildcardIndex;
+import org.springframework.stereotype.Component;
+
+import com.acme.employee.config.AppProperties;
+import com.acme.employee.dto.EmployeeQueryParams;
+import com.acme.employee.schema.SchemaField;
+import com.acme.employee.schema.SchemaFieldType;
+import com.acme.employee.schema.SchemaResult;
+import com.acme.employee.support.CollectionNameProvider;
+import com.acme.employee.support.FilterExpression;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Counts the filter/sort shapes list and export requests actually use and turns the frequent ones into
+// index candidates ordered equality -> sort -> range, so one index serves the filter and the sort.
+@Component
+public class IndexAdvisor {
+
+    private static final Logger log = LoggerFactory.getLogger(IndexAdvisor.class);
+
+    private static final String ATTRIBUTES_PREFIX = "attributes.";
+    private static final String WILDCARD_KEY = ATTRIBUTES_PREFIX + "$**";
+    private static final String INDEX_NAME_PREFIX = "advisor_";
+    private static final int MAX_TRACKED_SHAPES = 500;
+
+    private final ReactiveMongoTemplate template;
+    private final SchemaDiscoveryService schemaDiscoveryService;
+    private final CollectionNameProvider collectionNameProvider;
+    private final AppProperties.IndexAdvisorProperties properties;
+    private final Map<IndexShape, LongAdder> usage = new ConcurrentHashMap<>();
+
+    public IndexAdvisor(ReactiveMongoTemplate template,
+                        SchemaDiscoveryService schemaDiscoveryService,
+                        CollectionNameProvider collectionNameProvider,
+                        AppProperties appProperties) {
+        this.template = template;
+        this.schemaDiscoveryService = schemaDiscoveryService;
+        this.collectionNameProvider = collectionNameProvider;
+        this.properties = appProperties.indexAdvisor();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.autoCreate() || properties.intervalSeconds() <= 0) {
+            return;
+        }
+        Duration interval = Duration.ofSeconds(properties.intervalSeconds());
+        Flux.interval(interval, interval)
+                .onBackpressureDrop()
+                .concatMap(tick -> applyRecommendations()
+                        .onErrorResume(error -> {
+                            log.warn("Index advisor run failed: {}", error.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    public void record(EmployeeQueryParams params) {
+        Set<String> equality = new TreeSet<>();
+        Set<String> range = new TreeSet<>();
+        params.filters().forEach((key, rawValue) -> {
+            // unanchored "contains" regexes cannot use an index bound, so they never shape a candidate
+            switch (FilterExpression.parse(rawValue).operator()) {
+                case "eq" -> equality.add(ATTRIBUTES_PREFIX + key);
+                case "gt", "lt" -> range.add(ATTRIBUTES_PREFIX + key);
+                default -> {
+                }
+            }
+        });
+        String sort = params.sortFieldOptional().map(IndexAdvisor::sortKey).orElse(null);
+        range.removeAll(equality);
+        if (equality.isEmpty() && range.isEmpty() && sort == null) {
+            return;
+        }
+        IndexShape shape = new IndexShape(List.copyOf(equality), sort, List.copyOf(range));
+        LongAdder counter = usage.get(shape);
+        if (counter == null) {
+            if (usage.size() >= MAX_TRACKED_SHAPES) {
+                return;
+            }
+            counter = usage.computeIfAbsent(shape, ignored -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    public Mono<Report> report() {
+        return Mono.zip(recommendations(), unusedIndexes())
+                .map(tuple -> new Report(usageSnapshot(), tuple.getT1(), tuple.getT2()));
+    }
+
+    public Mono<List<Recommendation>> applyRecommendations() {
+        String collection = collectionNameProvider.collectionName();
+        return recommendations()
+                .flatMapMany(Flux::fromIterable)
+                .take(properties.maxIndexesPerRun())
+                .concatMap(recommendation -> template.indexOps(collection)
+                        .ensureIndex(toIndex(recommendation))
+                        .doOnNext(name -> log.info("Index advisor created {} on {} for {} uses",
+                                name, recommendation.keys(), recommendation.usage()))
+                        .thenReturn(recommendation))
+                .collectList();
+    }
+
+    Mono<List<Recommendation>> recommendations() {
+        String collection = collectionNameProvider.collectionName();
+        return Mono.zip(schemaDiscoveryService.discover(collection, 0),
+                        template.indexOps(collection).getIndexInfo().collectList())
+                .map(tuple -> recommend(usageSnapshot(), tuple.getT1(), tuple.getT2()));
+    }
+
+    List<Recommendation> recommend(List<ShapeUsage> shapes, SchemaResult schema, List<IndexInfo> existing) {
+        List<List<String>> existingKeys = existing.stream()
+                .map(info -> info.getIndexFields().stream().map(IndexField::getKey).toList())
+                .toList();
+        boolean hasWildcard = existing.stream()
+                .flatMap(info -> info.getIndexFields().stream())
+                .anyMatch(field -> field.isWildcard() || WILDCARD_KEY.equals(field.getKey()));
+
+        Map<List<String>, Long> compound = new LinkedHashMap<>();
+        Map<String, Long> single = new LinkedHashMap<>();
+        for (ShapeUsage shape : shapes) {
+            if (shape.count() < properties.minUsage()) {
+                continue;
+            }
+            List<String> keys = candidateKeys(shape, schema);
+            if (keys.isEmpty() || isCovered(keys, existingKeys, hasWildcard)) {
+                continue;
+            }
+            if (keys.size() == 1) {
+                single.merge(keys.getFirst(), shape.count(), Long::sum);
+            } else {
+                compound.merge(keys, shape.count(), Long::sum);
+            }
+        }
+
+        List<Recommendation> recommendations = new ArrayList<>();
+        long wildcardCandidates = single.keySet().stream().filter(key -> key.startsWith(ATTRIBUTES_PREFIX)).count();
+        if (wildcardCandidates > properties.wildcardThreshold()) {
+            // one wildcard index serves every single-attribute predicate instead of many narrow indexes
+            long total = single.entrySet().stream()
+                    .filter(entry -> entry.getKey().startsWith(ATTRIBUTES_PREFIX))
+                    .mapToLong(Map.Entry::getValue)
+                    .sum();
+            recommendations.add(new Recommendation(INDEX_NAME_PREFIX + "attributes_wildcard", List.of(WILDCARD_KEY),
+                    total, "%d attribute fields filtered or sorted on individually".formatted(wildcardCandidates)));
+            single.keySet().removeIf(key -> key.startsWith(ATTRIBUTES_PREFIX));
+        }
+        single.forEach((key, count) -> recommendations.add(new Recommendation(indexName(List.of(key)), List.of(key),
+                count, "single-field predicate or sort")));
+        compound.forEach((keys, count) -> recommendations.add(new Recommendation(indexName(keys), keys,
+                count, "compound equality/sort/range shape")));
+        recommendations.sort(Comparator.comparingLong(Recommendation::usage).reversed());
+        return recommendations;
+    }
+
+    Mono<List<UnusedIndex>> unusedIndexes() {
+        return template.getCollection(collectionNameProvider.collectionName())
+                .flatMapMany(collection -> Flux.from(collection.aggregate(
+                        List.of(new Document("$indexStats", new Document())))))
+                .filter(stats -> !"_id_".equals(stats.getString("name")))
+                .filter(stats -> accessCount(stats) == 0)
+                .map(stats -> {
+                    Document accesses = stats.get("accesses", Document.class);
+                    Date since = accesses == null ? null : accesses.getDate("since");
+                    return new UnusedIndex(stats.getString("name"), stats.get("key", Document.class),
+                            since == null ? null : since.toInstant());
+                })
+                .collectList();
+    }
+
+    List<ShapeUsage> usageSnapshot() {
+        return usage.entrySet().stream()
+                .map(entry -> new ShapeUsage(entry.getKey().equality(), entry.getKey().sort(),
+                        entry.getKey().range(), entry.getValue().sum()))
+                .sorted(Comparator.comparingLong(ShapeUsage::count).reversed())
+                .toList();
+    }
+
+    // Object-valued attributes are left out, and only one array field may join a compound index (Mongo allows
+    // a single multikey field per compound key).
+    private List<String> candidateKeys(ShapeUsage shape, SchemaResult schema) {
+        Set<String> keys = new LinkedHashSet<>(shape.equality());
+        if (shape.sort() != null) {
+            keys.add(shape.sort());
+        }
+        keys.addAll(shape.range());
+        List<String> accepted = new ArrayList<>();
+        boolean hasArray = false;
+        for (String key : keys) {
+            SchemaFieldType type = fieldType(key, schema);
+            if (type == SchemaFieldType.OBJECT) {
+                continue;
+            }
+            if (type == SchemaFieldType.ARRAY) {
+                if (hasArray) {
+                    continue;
+                }
+                hasArray = true;
+            }
+            accepted.add(key);
+        }
+        return accepted;
+    }
+
+    private boolean isCovered(List<String> keys, List<List<String>> existingKeys, boolean hasWildcard) {
+        if (hasWildcard && keys.size() == 1 && keys.getFirst().startsWith(ATTRIBUTES_PREFIX)) {
+            return true;
+        }
+        return existingKeys.stream()
+                .anyMatch(existing -> existing.size() >= keys.size() && existing.subList(0, keys.size()).equals(keys));
+    }
+
+    private static SchemaFieldType fieldType(String key, SchemaResult schema) {
+        if (!key.startsWith(ATTRIBUTES_PREFIX)) {
+            return SchemaFieldType.UNKNOWN;
+        }
+        SchemaField field = schema.fields().get(key.substring(ATTRIBUTES_PREFIX.length()));
+        return field == null ? SchemaFieldType.UNKNOWN : field.type();
+    }
+
+    private static IndexDefinition toIndex(Recommendation recommendation) {
+        if (recommendation.keys().equals(List.of(WILDCARD_KEY))) {
+            return new WildcardIndex("attributes").named(recommendation.name());
+        }
+        Index index = new Index().named(recommendation.name());
+        recommendation.keys().forEach(key -> index.on(key, Sort.Direction.ASC));
+        return index;
+    }
+
+    private static String indexName(List<String> keys) {
+        return INDEX_NAME_PREFIX + String.join("_", keys.stream()
+                .map(key -> key.startsWith(ATTRIBUTES_PREFIX) ? key.substring(ATTRIBUTES_PREFIX.length()) : key)
+                .toList());
+    }
+
+    private static String sortKey(String field) {
+        return switch (field) {
+            case "createdAt", "updatedAt", "deleted" -> field;
+            default -> ATTRIBUTES_PREFIX + field;
+        };
+    }
+
+    private static long accessCount(Document stats) {
+        Document accesses = stats.get("accesses", Document.class);
+        return accesses == null || accesses.get("ops") == null ? 0 : ((Number) accesses.get("ops")).longValue();
+    }
+
+    record IndexShape(List<String> equality, String sort, List<String> range) {
+    }
+
+    public record ShapeUsage(List<String> equality, String sort, List<String> range, long count) {
+    }
+
+    public record Recommendation(String name, List<String> keys, long usage, String reason) {
+    }
+
+    public record UnusedIndex(String name, Document keys, Instant since) {
+    }
+
+    public record Report(List<ShapeUsage> usage, List<Recommendation> recommendations, List<UnusedIndex> unusedIndexes) {
+    }
+}
@@ -0,0 +1,229 @@
+package com.acme.employee.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import com.acme.employee.config.AppProperties;
+import com.acme.employee.support.MappedQuery;
+import com.acme.employee.support.QueryShape;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.reactivestreams.client.FindPublisher;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+// Times queries per shape and keeps the slowest recent ones, with a sampled executionStats explain,
+// in a bounded ring. Shapes beyond app.query-profile.max-shapes share the "other" tag.
+@Component
+public class QueryProfiler {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryProfiler.class);
+
+    private static final String TIMER_NAME = "employees.query";
+    private static final String ALL_SHAPES_TIMER_NAME = "employees.query.all";
+    private static final String OTHER_SHAPE = "other";
+
+    private final ReactiveMongoTemplate template;
+    private final MeterRegistry meterRegistry;
+    private final AppProperties.QueryProfileProperties properties;
+    private final Map<String, String> shapes = new ConcurrentHashMap<>();
+    private final Deque<SlowQuery> slowQueries;
+
+    public QueryProfiler(ReactiveMongoTemplate template, MeterRegistry meterRegistry, AppProperties appProperties) {
+        this.template = template;
+        this.meterRegistry = meterRegistry;
+        this.properties = appProperties.queryProfile();
+        this.slowQueries = new ArrayDeque<>(properties.ringSize());
+    }
+
+    public <T> Mono<T> profile(String operation, String collection, Query query, Mono<T> execution) {
+        return Mono.defer(() -> {
+            long started = System.nanoTime();
+            return execution.doFinally(signal -> {
+                QueryShape shape = QueryShape.of(query.getQueryObject(), query.getSortObject());
+                Duration elapsed = record(operation, shape, signal, System.nanoTime() - started);
+                if (signal == SignalType.ON_COMPLETE && isSlow(elapsed)) {
+                    captureSlow(operation, shape, elapsed, collection, query);
+                }
+            });
+        });
+    }
+
+    public <T> Mono<T> time(String operation, QueryShape shape, Mono<T> execution) {
+        return Mono.defer(() -> {
+            long started = System.nanoTime();
+            return execution.doFinally(signal -> {
+                Duration elapsed = record(operation, shape, signal, System.nanoTime() - started);
+                if (signal == SignalType.ON_COMPLETE && isSlow(elapsed)) {
+                    remember(new SlowQuery(Instant.now(), operation, shape.id(), shape.text(), elapsed.toMillis(), null));
+                }
+            });
+        });
+    }
+
+    public List<SlowQuery> slowQueries() {
+        synchronized (slowQueries) {
+            return new ArrayList<>(slowQueries);
+        }
+    }
+
+    public Map<String, String> shapes() {
+        return Map.copyOf(shapes);
+    }
+
+    // Failed and cancelled queries are timed too, under their outcome. Only the per-operation timer
+    // publishes a histogram; one per shape would multiply the series by the bucket count.
+    private Duration record(String operation, QueryShape shape, SignalType signal, long nanos) {
+        Duration elapsed = Duration.ofNanos(nanos);
+        String outcome = outcome(signal);
+        Timer.builder(TIMER_NAME)
+                .tag("operation", operation)
+                .tag("shape", tagFor(shape))
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(elapsed);
+        Timer.builder(ALL_SHAPES_TIMER_NAME)
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(elapsed);
+        return elapsed;
+    }
+
+    private static String outcome(SignalType signal) {
+        return switch (signal) {
+            case ON_COMPLETE -> "success";
+            case ON_ERROR -> "error";
+            default -> "cancelled";
+        };
+    }
+
+    private String tagFor(QueryShape shape) {
+        if (shapes.containsKey(shape.id())) {
+            return shape.id();
+        }
+        if (shapes.size() >= properties.maxShapes()) {
+            return OTHER_SHAPE;
+        }
+        shapes.putIfAbsent(shape.id(), shape.text());
+        return shape.id();
+    }
+
+    private boolean isSlow(Duration elapsed) {
+        return elapsed.toMillis() >= properties.slowThresholdMs();
+    }
+
+    // The explain re-runs the query, so it is sampled and runs off the request path
+    private void captureSlow(String operation, QueryShape shape, Duration elapsed, String collection, Query query) {
+        if (ThreadLocalRandom.current().nextDouble() >= properties.explainSampleRate()) {
+            remember(new SlowQuery(Instant.now(), operation, shape.id(), shape.text(), elapsed.toMillis(), null));
+            return;
+        }
+        explain(collection, query)
+                .map(QueryProfiler::summarize)
+                .onErrorResume(error -> {
+                    log.debug("Explain failed for shape {}: {}", shape.id(), error.getMessage());
+                    return Mono.empty();
+                })
+                .defaultIfEmpty(ExplainSummary.UNAVAILABLE)
+                .subscribe(summary -> remember(new SlowQuery(Instant.now(), operation, shape.id(), shape.text(),
+                        elapsed.toMillis(), summary == ExplainSummary.UNAVAILABLE ? null : summary)));
+    }
+
+    private Mono<Document> explain(String collection, Query query) {
+        // mapped the way the profiled find was, so cursor pages explain with ObjectId bounds
+        MappedQuery mapped = MappedQuery.of(template.getConverter(), query);
+        return template.getCollection(collection).flatMap(mongoCollection -> {
+            FindPublisher<Document> find = mongoCollection.find(mapped.filter())
+                    .projection(mapped.fields().isEmpty() ? null : mapped.fields())
+                    .sort(mapped.sort().isEmpty() ? null : mapped.sort())
+                    .skip((int) query.getSkip());
+            if (query.getLimit() > 0) {
+                find = find.limit(query.getLimit());
+            }
+            return Mono.from(find.explain(Document.class, ExplainVerbosity.EXECUTION_STATS));
+        });
+    }
+
+    private void remember(SlowQuery slowQuery) {
+        log.info("Slow {} ({} ms, shape {}): {}", slowQuery.operation(), slowQuery.millis(), slowQuery.shapeId(),
+                slowQuery.plan() == null ? slowQuery.shape() : slowQuery.plan());
+        synchronized (slowQueries) {
+            if (slowQueries.size() >= properties.ringSize()) {
+                slowQueries.removeLast();
+            }
+            slowQueries.addFirst(slowQuery);
+        }
+    }
+
+    static ExplainSummary summarize(Document explain) {
+        Document stats = explain.get("executionStats", Document.class);
+        Document planner = explain.get("queryPlanner", Document.class);
+        List<String> stages = new ArrayList<>();
+        List<String> indexes = new ArrayList<>();
+        if (planner != null) {
+            collectStages(planner.get("winningPlan", Document.class), stages, indexes);
+        }
+        return new ExplainSummary(
+                stats == null ? -1 : number(stats, "totalDocsExamined"),
+                stats == null ? -1 : number(stats, "totalKeysExamined"),
+                stats == null ? -1 : number(stats, "nReturned"),
+                stages,
+                indexes,
+                stages.contains("COLLSCAN"));
+    }
+
+    // winningPlan nests stages under inputStage / inputStages (and queryPlan on slot-based engines)
+    @SuppressWarnings("unchecked")
+    private static void collectStages(Document stage, List<String> stages, List<String> indexes) {
+        if (stage == null) {
+            return;
+        }
+        if (stage.getString("stage") != null) {
+            stages.add(stage.getString("stage"));
+        }
+        if (stage.getString("indexName") != null) {
+            indexes.add(stage.getString("indexName"));
+        }
+        collectStages(stage.get("queryPlan", Document.class), stages, indexes);
+        collectStages(stage.get("inputStage", Document.class), stages, indexes);
+        Object inputStages = stage.get("inputStages");
+        if (inputStages instanceof List<?> children) {
+            ((List<Document>) children).forEach(child -> collectStages(child, stages, indexes));
+        }
+    }
+
+    private static long number(Document document, String key) {
+        Object value = document.get(key);
+        return value instanceof Number number ? number.longValue() : -1;
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record SlowQuery(Instant at, String operation, String shapeId, String shape, long millis,
+                            ExplainSummary plan) {
+    }
+
+    public record ExplainSummary(long docsExamined, long keysExamined, long returned, List<String> stages,
+                                 List<String> indexes, boolean collectionScan) {
+
+        private static final ExplainSummary UNAVAILABLE = new ExplainSummary(-1, -1, -1, List.of(), List.of(), false);
+    }
+}
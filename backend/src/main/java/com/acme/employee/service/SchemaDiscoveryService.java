@@ -1,19 +1,24 @@
 package com.acme.employee.service;
 
+import java.time.Duration;
 import java.time.Instant;
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.bson.Document;
-import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Service;
@@ -22,38 +27,139 @@ import com.acme.employee.config.AppProperties;
 import com.acme.employee.schema.SchemaField;
 import com.acme.employee.schema.SchemaFieldType;
 import com.acme.employee.schema.SchemaResult;
+import com.acme.employee.schema.SchemaTypes;
+import com.acme.employee.support.QueryShape;
 
 import reactor.core.publisher.Mono;
 
 @Service
 public class SchemaDiscoveryService {
 
+    private static final Logger log = LoggerFactory.getLogger(SchemaDiscoveryService.class);
+    private static final QueryShape REGISTRY_SHAPE = QueryShape.named("%s {\"_id\": \"?\"}"
+            .formatted(SchemaRegistry.REGISTRY_COLLECTION));
+    private static final QueryShape AGGREGATION_SHAPE = QueryShape.named("[$sample, $match, $project, $facet]");
+
     private final ReactiveMongoTemplate template;
     private final AppProperties appProperties;
+    private final SchemaRegistry schemaRegistry;
+    private final QueryProfiler queryProfiler;
+    private final Set<String> reconciling = ConcurrentHashMap.newKeySet();
 
-    public SchemaDiscoveryService(ReactiveMongoTemplate template, AppProperties appProperties) {
+    public SchemaDiscoveryService(ReactiveMongoTemplate template,
+                                  AppProperties appProperties,
+                                  SchemaRegistry schemaRegistry,
+                                  QueryProfiler queryProfiler) {
         this.template = template;
         this.appProperties = appProperties;
+        this.schemaRegistry = schemaRegistry;
+        this.queryProfiler = queryProfiler;
     }
 
     @Cacheable(cacheNames = "schema", key = "#collection + ':' + #sampleSize")
     public Mono<SchemaResult> discover(String collection, int sampleSize) {
-        int effectiveSample = sampleSize > 0 ? sampleSize : appProperties.schema().sampleSize();
+        if (sampleSize > 0) {
+            // an explicit sample size asks for a fresh sample rather than the registry view
+            return sample(collection, sampleSize);
+        }
+        return queryProfiler.time("schema.registry", REGISTRY_SHAPE, schemaRegistry.load(collection))
+                .flatMap(snapshot -> {
+                    if (snapshot.isEmpty() || !snapshot.get().isReconciled()) {
+                        return reconcile(collection);
+                    }
+                    if (isStale(snapshot.get())) {
+                        reconcileInBackground(collection);
+                    }
+                    return Mono.just(snapshot.get().toSchemaResult());
+                })
+                .onErrorResume(error -> {
+                    log.warn("Schema registry unavailable for {}, sampling instead: {}", collection, error.getMessage());
+                    return sample(collection, appProperties.schema().sampleSize());
+                });
+    }
+
+    private Mono<SchemaResult> sample(String collection, int effectiveSample) {
+        return switch (appProperties.schema().engine()) {
+            case AGGREGATION -> aggregateSchema(collection, effectiveSample);
+            case SAMPLE -> sampleSchema(collection, effectiveSample);
+        };
+    }
 
+    private Mono<SchemaResult> reconcile(String collection) {
+        return sample(collection, appProperties.schema().sampleSize())
+                .flatMap(sampled -> schemaRegistry.reconcile(collection, sampled))
+                .map(SchemaRegistry.Snapshot::toSchemaResult);
+    }
+
+    private boolean isStale(SchemaRegistry.Snapshot snapshot) {
+        Duration interval = Duration.ofSeconds(appProperties.schema().reconcileIntervalSeconds());
+        return snapshot.reconciledAt().plus(interval).isBefore(Instant.now());
+    }
+
+    private void reconcileInBackground(String collection) {
+        if (!reconciling.add(collection)) {
+            return;
+        }
+        reconcile(collection)
+                .doFinally(signal -> reconciling.remove(collection))
+                .subscribe(
+                        result -> log.debug("Reconciled schema registry for {}", collection),
+                        error -> log.warn("Schema reconciliation failed for {}: {}", collection, error.getMessage()));
+    }
+
+    // Runs type inference inside Mongo; only one small (key, type) histogram crosses the wire
+    private Mono<SchemaResult> aggregateSchema(String collection, int effectiveSample) {
+        Document arrayItemType = new Document("$cond", List.of(
+                new Document("$isArray", "$attrs.v"),
+                new Document("$type", new Document("$arrayElemAt", List.of(
+                        new Document("$filter", new Document("input", "$attrs.v")
+                                .append("cond", new Document("$ne", Arrays.asList("$$this", null)))),
+                        0))),
+                null));
+        Document groupByKeyAndType = new Document("_id", new Document("key", "$attrs.k")
+                .append("type", new Document("$type", "$attrs.v"))
+                .append("itemType", arrayItemType))
+                .append("count", new Document("$sum", 1));
+
+        // $sample stays first so Mongo can use its random-cursor optimization on large collections
+        Aggregation aggregation = Aggregation.newAggregation(
+                stage("$sample", new Document("size", effectiveSample)),
+                stage("$match", new Document("deleted", new Document("$ne", true))),
+                stage("$project", new Document("_id", 0)
+                        .append("attrs", new Document("$objectToArray",
+                                new Document("$ifNull", List.of("$attributes", new Document()))))),
+                stage("$facet", new Document("documents", List.of(new Document("$count", "n")))
+                        .append("fields", List.of(
+                                new Document("$unwind", "$attrs"),
+                                new Document("$group", groupByKeyAndType)))));
+
+        return queryProfiler.time("schema.aggregate", AGGREGATION_SHAPE,
+                        template.aggregate(aggregation, collection, Document.class)
+                                .next()
+                                .defaultIfEmpty(new Document()))
+                .map(histogram -> buildSchemaFromHistogram(collection, effectiveSample, histogram));
+    }
+
+    private static AggregationOperation stage(String operator, Document body) {
+        return context -> new Document(operator, body);
+    }
+
+    private Mono<SchemaResult> sampleSchema(String collection, int effectiveSample) {
         Query query = new Query().limit(effectiveSample);
         query.addCriteria(new Criteria().orOperator(
                 Criteria.where("deleted").is(false),
                 Criteria.where("deleted").exists(false)
         ));
 
-        return template.find(query, Document.class, collection)
-                .collectList()
+        return queryProfiler.profile("schema.sample", collection, query,
+                        template.find(query, Document.class, collection).collectList())
                 .map(documents -> buildSchema(collection, effectiveSample, documents));
     }
 
+    // Drops the registry too, so the next discovery rebuilds it from a fresh sample
     @CacheEvict(cacheNames = "schema", allEntries = true)
     public Mono<Void> refreshAll() {
-        return Mono.empty();
+        return schemaRegistry.resetAll();
     }
 
     @CacheEvict(cacheNames = "schema", key = "#collection + ':' + #sampleSize")
@@ -61,7 +167,7 @@ public class SchemaDiscoveryService {
         return Mono.empty();
     }
 
-    private SchemaResult buildSchema(String collection, int sampleSize, List<Document> documents) {
+    SchemaResult buildSchema(String collection, int sampleSize, List<Document> documents) {
         Map<String, FieldAccumulator> accumulators = new LinkedHashMap<>();
         int documentCount = documents.size();
 
@@ -87,51 +193,29 @@ public class SchemaDiscoveryService {
         return new SchemaResult(collection, sampleSize, Instant.now(), fields);
     }
 
-    private SchemaFieldType detectType(Object value) {
-        if (value == null) {
-            return SchemaFieldType.NULL;
-        }
-        if (value instanceof String || value instanceof ObjectId) {
-            return SchemaFieldType.STRING;
-        }
-        if (value instanceof Number) {
-            return SchemaFieldType.NUMBER;
-        }
-        if (value instanceof Boolean) {
-            return SchemaFieldType.BOOLEAN;
-        }
-        if (value instanceof java.util.Date
-                || value instanceof java.time.temporal.TemporalAccessor) {
-            return SchemaFieldType.DATE;
-        }
-        if (value.getClass().isArray() || value instanceof Collection<?>) {
-            return SchemaFieldType.ARRAY;
-        }
-        if (value instanceof Map<?, ?> || value instanceof Document) {
-            return SchemaFieldType.OBJECT;
-        }
-        return SchemaFieldType.UNKNOWN;
-    }
+    SchemaResult buildSchemaFromHistogram(String collection, int sampleSize, Document histogram) {
+        List<Document> counted = histogram.getList("documents", Document.class, List.of());
+        int documentCount = counted.isEmpty() ? 0 : ((Number) counted.getFirst().get("n")).intValue();
 
-    private SchemaFieldType detectArrayItemType(Object value) {
-        if (value == null) {
-            return null;
-        }
-        if (value.getClass().isArray()) {
-            Object[] array = (Object[]) value;
-            if (array.length == 0) {
-                return SchemaFieldType.UNKNOWN;
-            }
-            return detectType(array[0]);
-        }
-        if (value instanceof Collection<?> collection) {
-            return collection.stream()
-                    .filter(Objects::nonNull)
-                    .findFirst()
-                    .map(this::detectType)
-                    .orElse(SchemaFieldType.UNKNOWN);
+        Map<String, FieldAccumulator> accumulators = new LinkedHashMap<>();
+        for (Document bucket : histogram.getList("fields", Document.class, List.of())) {
+            Document id = bucket.get("_id", Document.class);
+            String key = id.getString("key");
+            accumulators
+                    .computeIfAbsent(key, FieldAccumulator::new)
+                    .observe(SchemaTypes.fromBsonType(id.getString("type")),
+                            SchemaTypes.fromBsonType(id.getString("itemType")),
+                            ((Number) bucket.get("count")).intValue());
         }
-        return null;
+
+        // bucket order is arbitrary; list the most common fields first so the result is deterministic
+        Map<String, SchemaField> fields = new LinkedHashMap<>();
+        accumulators.values().stream()
+                .sorted(Comparator.comparingInt((FieldAccumulator acc) -> acc.occurrences).reversed()
+                        .thenComparing(acc -> acc.name))
+                .forEach(acc -> fields.put(acc.name, acc.toSchemaField(documentCount)));
+
+        return new SchemaResult(collection, sampleSize, Instant.now(), fields);
     }
 
     private final class FieldAccumulator {
@@ -146,18 +230,21 @@ public class SchemaDiscoveryService {
         }
 
         private void observe(Object value) {
-            occurrences++;
-            SchemaFieldType detected = detectType(value);
+            SchemaFieldType detected = SchemaTypes.detectType(value);
+            observe(detected, detected == SchemaFieldType.ARRAY ? SchemaTypes.detectArrayItemType(value) : null, 1);
+        }
+
+        private void observe(SchemaFieldType detected, SchemaFieldType itemType, int count) {
+            occurrences += count;
             if (detected == SchemaFieldType.NULL) {
                 sawNullValue = true;
                 return;
             }
             types.add(detected);
             if (detected == SchemaFieldType.ARRAY) {
-                SchemaFieldType current = detectArrayItemType(value);
                 if (arrayItemType == null) {
-                    arrayItemType = current;
-                } else if (current != null && arrayItemType != current) {
+                    arrayItemType = itemType;
+                } else if (itemType != null && arrayItemType != itemType) {
                     arrayItemType = SchemaFieldType.UNKNOWN;
                 }
             }
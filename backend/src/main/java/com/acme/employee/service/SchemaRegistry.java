@@ -0,0 +1,260 @@
+package com.acme.employee.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import com.acme.employee.schema.SchemaField;
+import com.acme.employee.schema.SchemaFieldType;
+import com.acme.employee.schema.SchemaResult;
+import com.acme.employee.schema.SchemaTypes;
+
+import reactor.core.publisher.Mono;
+
+// Persistent view of each collection's attribute types. Writes report their (key, type) pairs and only
+// new pairs cost a write; each reconcile rebuilds observations from the sample plus the pairs written since
+@Component
+public class SchemaRegistry {
+
+    public static final String REGISTRY_COLLECTION = "_schema";
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaRegistry.class);
+
+    private static final String KNOWN_CHANNEL = "schema-registry";
+
+    private final ReactiveMongoTemplate template;
+    private final CacheManager cacheManager;
+    private final CacheInvalidationBus invalidationBus;
+    private final Map<String, Set<Observation>> known = new ConcurrentHashMap<>();
+
+    public SchemaRegistry(ReactiveMongoTemplate template, CacheManager cacheManager,
+                          CacheInvalidationBus invalidationBus) {
+        this.template = template;
+        this.cacheManager = cacheManager;
+        this.invalidationBus = invalidationBus;
+        // a reset on another replica empties the registry; observations remembered here must be written again
+        invalidationBus.register(KNOWN_CHANNEL, known::remove, known::clear);
+    }
+
+    public Mono<Optional<Snapshot>> load(String collection) {
+        return template.findById(collection, Document.class, REGISTRY_COLLECTION)
+                .map(Snapshot::fromDocument)
+                .doOnNext(snapshot -> remember(collection, knownSet(snapshot)))
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty());
+    }
+
+    public Mono<Void> observe(String collection, Collection<Map<String, Object>> attributeMaps) {
+        Set<Observation> observed = new HashSet<>();
+        attributeMaps.forEach(attributes -> attributes.forEach((key, value) -> observed.add(Observation.of(key, value))));
+        if (observed.isEmpty()) {
+            return Mono.empty();
+        }
+        return knownFor(collection)
+                .flatMap(seen -> {
+                    observed.removeAll(seen);
+                    if (observed.isEmpty()) {
+                        return Mono.empty();
+                    }
+                    Object[] documents = observed.stream().map(Observation::toDocument).toArray();
+                    Update update = new Update()
+                            .addToSet("observations").each(documents)
+                            .addToSet("recent").each(documents)
+                            .set("updatedAt", Instant.now());
+                    return template.upsert(byCollection(collection), update, REGISTRY_COLLECTION)
+                            .doOnSuccess(result -> {
+                                remember(collection, observed);
+                                evictSchemaCache();
+                            })
+                            .then();
+                })
+                // the write itself already succeeded; a stale registry is corrected by reconciliation
+                .onErrorResume(error -> {
+                    log.warn("Failed to record schema observations for {}: {}", collection, error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    public Mono<Snapshot> reconcile(String collection, SchemaResult sampled) {
+        List<Document> baseline = new ArrayList<>();
+        List<Document> observations = new ArrayList<>();
+        sampled.fields().values().forEach(field -> {
+            baseline.add(new Document("k", field.name())
+                    .append("required", field.required())
+                    .append("nullable", field.nullable()));
+            observations.add(new Observation(field.name(), field.type(), field.arrayItemType()).toDocument());
+        });
+        Instant now = Instant.now();
+        // one pipeline, so pairs written while it runs land either in the union or in the next recent
+        Document set = new Document("baseline", new Document("$literal", baseline))
+                .append("sampleSize", sampled.sampleSize())
+                .append("reconciledAt", now)
+                .append("updatedAt", now)
+                .append("sampled", new Document("$literal", observations))
+                .append("observations", new Document("$setUnion", List.of(
+                        new Document("$literal", observations), new Document("$ifNull", List.of("$recent", List.of())))))
+                .append("recent", new Document("$literal", List.of()));
+        AggregationUpdate update = AggregationUpdate.from(List.of(context -> new Document("$set", set)));
+        return template.findAndModify(byCollection(collection), update,
+                        FindAndModifyOptions.options().upsert(true).returnNew(true),
+                        Document.class, REGISTRY_COLLECTION)
+                .map(Snapshot::fromDocument)
+                .doOnNext(snapshot -> {
+                    // pairs kept only because they were recent must be written again to survive the next pass
+                    known.put(collection, knownSet(snapshot));
+                    invalidationBus.evict(KNOWN_CHANNEL, collection);
+                });
+    }
+
+    public Mono<Void> resetAll() {
+        return template.remove(new Query(), REGISTRY_COLLECTION)
+                .doOnSuccess(result -> {
+                    known.clear();
+                    invalidationBus.clear(KNOWN_CHANNEL);
+                })
+                .then();
+    }
+
+    private Mono<Set<Observation>> knownFor(String collection) {
+        Set<Observation> seen = known.get(collection);
+        if (seen != null) {
+            return Mono.just(seen);
+        }
+        return load(collection).map(snapshot -> known.getOrDefault(collection, Set.of()));
+    }
+
+    // Pairs that will survive the next reconcile without being written again
+    private static Set<Observation> knownSet(Snapshot snapshot) {
+        Set<Observation> survivors = ConcurrentHashMap.newKeySet();
+        survivors.addAll(snapshot.sampled());
+        survivors.addAll(snapshot.recent());
+        return survivors;
+    }
+
+    private void remember(String collection, Collection<Observation> observations) {
+        known.computeIfAbsent(collection, ignored -> ConcurrentHashMap.newKeySet()).addAll(observations);
+    }
+
+    private void evictSchemaCache() {
+        Cache cache = cacheManager.getCache("schema");
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    private static Query byCollection(String collection) {
+        return Query.query(Criteria.where("_id").is(collection));
+    }
+
+    public record Observation(String key, SchemaFieldType type, SchemaFieldType itemType) {
+
+        static Observation of(String key, Object value) {
+            SchemaFieldType type = SchemaTypes.detectType(value);
+            return new Observation(key, type, type == SchemaFieldType.ARRAY ? SchemaTypes.detectArrayItemType(value) : null);
+        }
+
+        Document toDocument() {
+            Document document = new Document("k", key).append("t", type.name());
+            if (itemType != null) {
+                document.append("i", itemType.name());
+            }
+            return document;
+        }
+
+        static Observation fromDocument(Document document) {
+            String itemType = document.getString("i");
+            return new Observation(document.getString("k"), SchemaFieldType.valueOf(document.getString("t")),
+                    itemType != null ? SchemaFieldType.valueOf(itemType) : null);
+        }
+    }
+
+    public record Snapshot(String collection,
+                           Set<Observation> observations,
+                           Set<Observation> sampled,
+                           Set<Observation> recent,
+                           Map<String, Document> baseline,
+                           int sampleSize,
+                           Instant reconciledAt,
+                           Instant updatedAt) {
+
+        static Snapshot fromDocument(Document document) {
+            Set<Observation> observations = observations(document, "observations");
+            // registries written before decay have no sampled list; treat everything as sampled once
+            Set<Observation> sampled = document.containsKey("sampled") ? observations(document, "sampled") : observations;
+            Map<String, Document> baseline = new LinkedHashMap<>();
+            document.getList("baseline", Document.class, List.of())
+                    .forEach(entry -> baseline.put(entry.getString("k"), entry));
+            return new Snapshot(document.getString("_id"), observations, sampled, observations(document, "recent"), baseline,
+                    document.getInteger("sampleSize", 0),
+                    toInstant(document.getDate("reconciledAt")),
+                    toInstant(document.getDate("updatedAt")));
+        }
+
+        private static Set<Observation> observations(Document document, String field) {
+            Set<Observation> observations = new HashSet<>();
+            document.getList(field, Document.class, List.of())
+                    .forEach(observation -> observations.add(Observation.fromDocument(observation)));
+            return observations;
+        }
+
+        public boolean isReconciled() {
+            return reconciledAt != null;
+        }
+
+        // O(fields): no documents are read
+        public SchemaResult toSchemaResult() {
+            Map<String, EnumSet<SchemaFieldType>> types = new LinkedHashMap<>();
+            Map<String, SchemaFieldType> itemTypes = new LinkedHashMap<>();
+            baseline.keySet().forEach(key -> types.put(key, EnumSet.noneOf(SchemaFieldType.class)));
+            observations.stream()
+                    .sorted((left, right) -> left.key().compareTo(right.key()))
+                    .forEach(observation -> {
+                        types.computeIfAbsent(observation.key(), ignored -> EnumSet.noneOf(SchemaFieldType.class))
+                                .add(observation.type());
+                        if (observation.type() == SchemaFieldType.ARRAY && observation.itemType() != null) {
+                            itemTypes.merge(observation.key(), observation.itemType(),
+                                    (current, next) -> current == next ? current : SchemaFieldType.UNKNOWN);
+                        }
+                    });
+
+            Map<String, SchemaField> fields = new LinkedHashMap<>();
+            types.forEach((key, seen) -> {
+                boolean sawNull = seen.remove(SchemaFieldType.NULL);
+                SchemaFieldType type = seen.isEmpty()
+                        ? SchemaFieldType.NULL
+                        : seen.size() == 1 ? seen.iterator().next() : SchemaFieldType.UNKNOWN;
+                Document sampled = baseline.get(key);
+                // fields first seen on the write path are optional until a sample says otherwise
+                boolean required = sampled != null && sampled.getBoolean("required", false) && !sawNull;
+                boolean nullable = sampled == null || sampled.getBoolean("nullable", true) || sawNull;
+                fields.put(key, new SchemaField(key, type, required, nullable, itemTypes.get(key)));
+            });
+            return new SchemaResult(collection, sampleSize, updatedAt != null ? updatedAt : Instant.now(), fields);
+        }
+
+        private static Instant toInstant(java.util.Date date) {
+            return date != null ? date.toInstant() : null;
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.acme.employee.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import com.acme.employee.config.AppProperties;
+import com.acme.employee.exception.BadRequestException;
+import com.acme.employee.support.CollectionNameProvider;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Per-field typeahead index held entirely in memory. Each field is a sorted, de-duplicated String[]
+// built from a streaming scan plus a small skip-list overlay of values written since that scan, each
+// value counted by the rows holding it. Writes move a row's count from its previous value to its new
+// one, and deletes take their values out.
+@Component
+public class SuggestionIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(SuggestionIndex.class);
+
+    private static final Comparator<String> ORDER = String.CASE_INSENSITIVE_ORDER;
+    private static final int MAX_VALUE_LENGTH = 256;
+    private static final int SCAN_BATCH_SIZE = 1000;
+
+    private final ReactiveMongoTemplate template;
+    private final CollectionNameProvider collectionNameProvider;
+    private final AppProperties.SuggestProperties properties;
+    private final Map<String, FieldIndex> fields = new LinkedHashMap<>();
+    private volatile Disposable rebuilds;
+
+    public SuggestionIndex(ReactiveMongoTemplate template,
+                           CollectionNameProvider collectionNameProvider,
+                           AppProperties appProperties,
+                           MeterRegistry meterRegistry) {
+        this.template = template;
+        this.collectionNameProvider = collectionNameProvider;
+        this.properties = appProperties.suggest();
+        properties.fields().forEach(field -> {
+            FieldIndex index = new FieldIndex();
+            fields.put(field, index);
+            Gauge.builder("employees.suggest.entries", index, FieldIndex::size)
+                    .tag("field", field)
+                    .register(meterRegistry);
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Flux<Long> ticks = properties.rebuildIntervalSeconds() > 0
+                ? Flux.interval(Duration.ZERO, Duration.ofSeconds(properties.rebuildIntervalSeconds()))
+                : Flux.just(0L);
+        rebuilds = ticks.onBackpressureDrop()
+                .concatMap(tick -> rebuild()
+                        .onErrorResume(error -> {
+                            log.warn("Suggestion index rebuild failed: {}", error.getMessage());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        Disposable running = rebuilds;
+        if (running != null) {
+            running.dispose();
+        }
+    }
+
+    public List<String> suggest(String field, String prefix, int limit) {
+        FieldIndex index = fields.get(field);
+        if (index == null) {
+            throw new BadRequestException("Suggestions are not available for field '%s'; indexed fields are %s"
+                    .formatted(field, fields.keySet()));
+        }
+        int bounded = Math.min(Math.max(limit, 1), properties.maxResults());
+        return index.suggest(prefix.trim(), bounded);
+    }
+
+    public void add(Collection<? extends Map<String, Object>> attributeMaps) {
+        attributeMaps.forEach(attributes -> fields.forEach((field, index) -> {
+            if (attributes.get(field) instanceof String value) {
+                index.add(value);
+            }
+        }));
+    }
+
+    // Values of rows that were deleted; a value is hidden once no live row is known to hold it
+    public void remove(Collection<? extends Map<String, Object>> attributeMaps) {
+        attributeMaps.forEach(attributes -> fields.forEach((field, index) -> {
+            if (attributes.get(field) instanceof String value) {
+                index.remove(value);
+            }
+        }));
+    }
+
+    // A row rewritten from previous to current; fields whose value did not change keep their counts.
+    // previous is null for a row that was not live before, current for one that is not live after.
+    public void replace(Map<String, Object> previous, Map<String, Object> current) {
+        fields.forEach((field, index) -> {
+            Object before = previous == null ? null : previous.get(field);
+            Object after = current == null ? null : current.get(field);
+            if (Objects.equals(before, after)) {
+                return;
+            }
+            if (before instanceof String value) {
+                index.remove(value);
+            }
+            if (after instanceof String value) {
+                index.add(value);
+            }
+        });
+    }
+
+    public Set<String> fields() {
+        return fields.keySet();
+    }
+
+    public void clear() {
+        fields.values().forEach(FieldIndex::clear);
+    }
+
+    Mono<Void> rebuild() {
+        if (fields.isEmpty()) {
+            return Mono.empty();
+        }
+        Query query = new Query(new Criteria().orOperator(
+                Criteria.where("deleted").is(false),
+                Criteria.where("deleted").exists(false)))
+                .cursorBatchSize(SCAN_BATCH_SIZE);
+        fields.keySet().forEach(field -> query.fields().include("attributes." + field));
+
+        // distinct values only, so the scan holds one string per value rather than one per row
+        Map<String, NavigableMap<String, Integer>> scanned = new LinkedHashMap<>();
+        fields.forEach((field, index) -> {
+            scanned.put(field, new TreeMap<>(ORDER));
+            index.beginRebuild();
+        });
+        long started = System.nanoTime();
+        return template.find(query, Document.class, collectionNameProvider.collectionName())
+                .doOnNext(document -> {
+                    Document attributes = document.get("attributes", Document.class);
+                    if (attributes == null) {
+                        return;
+                    }
+                    scanned.forEach((field, values) -> {
+                        if (attributes.get(field) instanceof String value && isIndexable(value)) {
+                            values.merge(value, 1, Integer::sum);
+                        }
+                    });
+                })
+                .then(Mono.fromRunnable(() -> {
+                    scanned.forEach((field, values) -> fields.get(field).completeRebuild(values));
+                    log.info("Suggestion index rebuilt for {} in {} ms", fields.keySet(),
+                            Duration.ofNanos(System.nanoTime() - started).toMillis());
+                }))
+                // a failed or cancelled scan leaves the live index as it was
+                .doFinally(signal -> fields.values().forEach(FieldIndex::abandonRebuild))
+                .then();
+    }
+
+    private static boolean isIndexable(String value) {
+        return !value.isBlank() && value.length() <= MAX_VALUE_LENGTH;
+    }
+
+    // Distinct values (case-insensitively) with the number of live rows known to hold each: a sorted,
+    // interned String[] from the last scan plus a skip-list overlay of values written since. Writers
+    // synchronize on the index; suggest reads the volatile snapshots without locking.
+    private static final class FieldIndex {
+
+        private volatile Base base = Base.EMPTY;
+        private volatile NavigableMap<String, Integer> overlay = new ConcurrentSkipListMap<>(ORDER);
+        // values added while a scan runs, applied again on top of its result; guarded by this
+        private List<String> pending;
+
+        List<String> suggest(String prefix, int limit) {
+            Base snapshot = base;
+            TreeSet<String> matches = new TreeSet<>(ORDER);
+            int position = Arrays.binarySearch(snapshot.values(), prefix, ORDER);
+            for (int i = position >= 0 ? position : -position - 1;
+                 i < snapshot.values().length && matches.size() < limit && hasPrefix(snapshot.values()[i], prefix); i++) {
+                if (snapshot.counts().get(i) > 0) {
+                    matches.add(snapshot.values()[i]);
+                }
+            }
+            for (String value : overlay.tailMap(prefix, true).keySet()) {
+                if (!hasPrefix(value, prefix)) {
+                    break;
+                }
+                matches.add(value);
+                if (matches.size() > limit) {
+                    matches.pollLast();
+                }
+            }
+            return List.copyOf(matches);
+        }
+
+        synchronized void add(String value) {
+            if (!isIndexable(value)) {
+                return;
+            }
+            String interned = value.intern();
+            increment(interned);
+            if (pending != null) {
+                pending.add(interned);
+            }
+        }
+
+        synchronized void remove(String value) {
+            // the running scan may or may not have counted the row; keeping the value until the
+            // next rebuild is safe, hiding one that another row still holds is not
+            if (pending != null) {
+                return;
+            }
+            Base current = base;
+            int position = Arrays.binarySearch(current.values(), value, ORDER);
+            if (position >= 0) {
+                current.counts().updateAndGet(position, count -> Math.max(count - 1, 0));
+            } else {
+                overlay.computeIfPresent(value, (key, count) -> count > 1 ? count - 1 : null);
+            }
+        }
+
+        synchronized void beginRebuild() {
+            pending = new ArrayList<>();
+        }
+
+        void completeRebuild(NavigableMap<String, Integer> scanned) {
+            String[] values = new String[scanned.size()];
+            AtomicIntegerArray counts = new AtomicIntegerArray(scanned.size());
+            int i = 0;
+            for (Map.Entry<String, Integer> entry : scanned.entrySet()) {
+                values[i] = entry.getKey().intern();
+                counts.set(i++, entry.getValue());
+            }
+            synchronized (this) {
+                base = new Base(values, counts);
+                overlay = new ConcurrentSkipListMap<>(ORDER);
+                if (pending != null) {
+                    pending.forEach(this::increment);
+                }
+                pending = null;
+            }
+        }
+
+        synchronized void abandonRebuild() {
+            pending = null;
+        }
+
+        synchronized void clear() {
+            base = Base.EMPTY;
+            overlay = new ConcurrentSkipListMap<>(ORDER);
+        }
+
+        int size() {
+            return base.values().length + overlay.size();
+        }
+
+        private void increment(String value) {
+            Base current = base;
+            int position = Arrays.binarySearch(current.values(), value, ORDER);
+            if (position >= 0) {
+                current.counts().incrementAndGet(position);
+            } else {
+                overlay.merge(value, 1, Integer::sum);
+            }
+        }
+
+        private static boolean hasPrefix(String value, String prefix) {
+            return value.regionMatches(true, 0, prefix, 0, prefix.length());
+        }
+    }
+
+    private record Base(String[] values, AtomicIntegerArray counts) {
+
+        static final Base EMPTY = new Base(new String[0], new AtomicIntegerArray(0));
+    }
+}
@@ -1,5 +1,8 @@
 package com.acme.employee.startup;
 
+import java.util.List;
+
+import org.bson.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
@@ -7,8 +10,10 @@ import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.TextIndexDefinition;
 import org.springframework.stereotype.Component;
 
+import com.acme.employee.mapper.EmployeeMapper;
 import com.acme.employee.support.CollectionNameProvider;
 
 import reactor.core.publisher.Mono;
@@ -33,15 +38,35 @@ public class EmployeeIndexInitializer {
         Index idIndex = new Index().on("_id", Sort.Direction.ASC).named("employee_id_idx");
         Index emailIndex = new Index().on("attributes.email", Sort.Direction.ASC).named("employee_email_idx");
         Index lastNameIndex = new Index().on("attributes.lastName", Sort.Direction.ASC).named("employee_lastName_idx");
+        // language "none" skips stemming and stop words, which would mangle names and emails
+        TextIndexDefinition searchTextIndex = new TextIndexDefinition.TextIndexDefinitionBuilder()
+                .onField("searchText")
+                .withDefaultLanguage("none")
+                .named("employee_search_text_idx")
+                .build();
 
         Mono.when(
                 template.indexOps(collectionNameProvider.collectionName()).ensureIndex(idIndex),
                 template.indexOps(collectionNameProvider.collectionName()).ensureIndex(emailIndex),
-                template.indexOps(collectionNameProvider.collectionName()).ensureIndex(lastNameIndex)
+                template.indexOps(collectionNameProvider.collectionName()).ensureIndex(lastNameIndex),
+                template.indexOps(collectionNameProvider.collectionName()).ensureIndex(searchTextIndex),
+                backfillSearchText()
         )
                 .doOnSuccess(unused -> log.info("Indexes ensured for collection {}", collectionNameProvider.collectionName()))
                 .doOnError(error -> log.warn("Failed to create indexes: {}", error.getMessage(), error))
                 .subscribeOn(Schedulers.boundedElastic())
                 .subscribe();
     }
+
+    // Documents written before searchText existed get it computed server-side, without a round trip per document
+    private Mono<Void> backfillSearchText() {
+        List<Document> pipeline = List.of(new Document("$set",
+                new Document("searchText", EmployeeMapper.searchTextExpression())));
+
+        return template.getCollection(collectionNameProvider.collectionName())
+                .flatMap(collection -> Mono.from(collection.updateMany(
+                        new Document("searchText", new Document("$exists", false)), pipeline)))
+                .doOnNext(result -> log.info("Backfilled searchText on {} documents", result.getModifiedCount()))
+                .then();
+    }
 }
@@ -0,0 +1,89 @@
+package com.acme.employee.support;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+import org.springframework.util.StringUtils;
+
+// In-memory counterpart of the list endpoint's filter parameters, for values that never reach a
+// query (change stream events). Comparisons follow the stored value's type the way Mongo compares
+// a typed criterion: numbers numerically, dates chronologically, arrays when any element matches.
+// Unknown operators are ignored, as they are when building list queries.
+public final class AttributeFilter {
+
+    private static final AttributeFilter ALL = new AttributeFilter(List.of());
+
+    private final List<Condition> conditions;
+
+    private AttributeFilter(List<Condition> conditions) {
+        this.conditions = conditions;
+    }
+
+    public static AttributeFilter of(Map<String, String> filters) {
+        List<Condition> conditions = new ArrayList<>();
+        filters.forEach((key, rawValue) -> {
+            if (StringUtils.hasText(key) && StringUtils.hasText(rawValue)) {
+                conditions.add(new Condition(key, FilterExpression.parse(rawValue)));
+            }
+        });
+        return conditions.isEmpty() ? ALL : new AttributeFilter(List.copyOf(conditions));
+    }
+
+    public boolean matchesAll() {
+        return conditions.isEmpty();
+    }
+
+    public boolean matches(Map<String, Object> attributes) {
+        for (Condition condition : conditions) {
+            if (!matches(attributes.get(condition.key()), condition.expression())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(Object actual, FilterExpression expression) {
+        if (actual instanceof Collection<?> values) {
+            return values.stream().anyMatch(value -> matches(value, expression));
+        }
+        return switch (expression.operator()) {
+            case "eq" -> compare(actual, expression.value(), order -> order == 0);
+            case "contains" -> actual != null && actual.toString().toLowerCase(Locale.ROOT)
+                    .contains(expression.value().toLowerCase(Locale.ROOT));
+            case "gt" -> compare(actual, expression.value(), order -> order > 0);
+            case "lt" -> compare(actual, expression.value(), order -> order < 0);
+            default -> true;
+        };
+    }
+
+    private static boolean compare(Object actual, String value, IntPredicate accepts) {
+        Integer order = order(actual, value);
+        return order != null && accepts.test(order);
+    }
+
+    // null when the two are not comparable, which no operator accepts
+    private static Integer order(Object actual, String value) {
+        try {
+            return switch (actual) {
+                case null -> null;
+                case Number number -> Double.compare(number.doubleValue(), Double.parseDouble(value));
+                case Boolean bool -> bool == Boolean.parseBoolean(value) ? 0 : null;
+                case Date date -> date.toInstant().compareTo(Instant.parse(value));
+                case Instant instant -> instant.compareTo(Instant.parse(value));
+                case String string -> string.compareTo(value);
+                default -> null;
+            };
+        } catch (RuntimeException ex) {
+            return null;
+        }
+    }
+
+    private record Condition(String key, FilterExpression expression) {
+    }
+}
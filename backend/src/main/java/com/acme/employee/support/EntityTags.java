@@ -0,0 +1,83 @@
+package com.acme.employee.support;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.http.MediaType;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+
+import com.acme.employee.dto.PageResponse;
+import com.acme.employee.dto.VersionedEmployee;
+
+// Strong tags encode version and updatedAt so they can be turned back into a write filter; binary
+// encodings of the same version are other representations and add their subtype as a suffix
+public final class EntityTags {
+
+    private EntityTags() {
+    }
+
+    public static String strong(VersionedEmployee employee) {
+        return strong(employee, MediaType.APPLICATION_JSON);
+    }
+
+    public static String strong(VersionedEmployee employee, MediaType format) {
+        String suffix = MediaType.APPLICATION_JSON.isCompatibleWith(format) ? "" : "+" + format.getSubtype();
+        return "\"" + Long.toHexString(employee.version()) + '.' + Long.toHexString(updatedAtMillis(employee))
+                + suffix + "\"";
+    }
+
+    public static String weak(PageResponse<? extends VersionedEmployee> page) {
+        StringBuilder state = new StringBuilder()
+                .append(page.totalElements()).append('|')
+                .append(page.page()).append('|')
+                .append(page.size()).append('|')
+                .append(page.hasNext()).append('|')
+                .append(page.nextCursor());
+        for (VersionedEmployee employee : page.content()) {
+            state.append('|').append(employee.id()).append(':').append(strong(employee));
+        }
+        return "W/\"" + DigestUtils.md5DigestAsHex(state.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    // Empty when the header is absent or *, otherwise the versions of the tags this service issued
+    public static Optional<List<Version>> parseIfMatch(String header) {
+        if (!StringUtils.hasText(header) || header.trim().equals("*")) {
+            return Optional.empty();
+        }
+        List<Version> versions = new ArrayList<>();
+        for (String raw : header.split(",")) {
+            String tag = raw.trim();
+            if (tag.startsWith("W/")) {
+                // weak tags never match for If-Match (RFC 9110 strong comparison)
+                continue;
+            }
+            tag = tag.replace("\"", "");
+            // any representation of a version identifies it for a write
+            int plus = tag.indexOf('+');
+            if (plus >= 0) {
+                tag = tag.substring(0, plus);
+            }
+            int dot = tag.indexOf('.');
+            if (dot <= 0) {
+                continue;
+            }
+            try {
+                versions.add(new Version(Long.parseUnsignedLong(tag.substring(0, dot), 16),
+                        Long.parseUnsignedLong(tag.substring(dot + 1), 16)));
+            } catch (NumberFormatException ignored) {
+                // not one of ours; it can never match
+            }
+        }
+        return Optional.of(versions);
+    }
+
+    private static long updatedAtMillis(VersionedEmployee employee) {
+        return employee.updatedAt() != null ? employee.updatedAt().toEpochMilli() : 0L;
+    }
+
+    public record Version(long version, long updatedAtMillis) {
+    }
+}
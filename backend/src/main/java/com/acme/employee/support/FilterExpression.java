@@ -0,0 +1,16 @@
+package com.acme.employee.support;
+
+import java.util.Locale;
+
+// A filter query parameter value: "<operator>:<value>", or a bare value meaning equality
+public record FilterExpression(String operator, String value) {
+
+    public static FilterExpression parse(String rawValue) {
+        int colonIndex = rawValue.indexOf(':');
+        if (colonIndex > 0) {
+            return new FilterExpression(rawValue.substring(0, colonIndex).toLowerCase(Locale.ROOT),
+                    rawValue.substring(colonIndex + 1));
+        }
+        return new FilterExpression("eq", rawValue);
+    }
+}
@@ -0,0 +1,22 @@
+package com.acme.employee.support;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.acme.employee.model.EmployeeDocument;
+
+// An employee query as ReactiveMongoTemplate#find sends it: hex ids become ObjectIds and properties
+// become field names. For code that goes to the driver directly but must run the same query.
+public record MappedQuery(Document filter, Document sort, Document fields) {
+
+    public static MappedQuery of(MongoConverter converter, Query query) {
+        QueryMapper queryMapper = new QueryMapper(converter);
+        MongoPersistentEntity<?> entity = converter.getMappingContext().getPersistentEntity(EmployeeDocument.class);
+        return new MappedQuery(queryMapper.getMappedObject(query.getQueryObject(), entity),
+                queryMapper.getMappedSort(query.getSortObject(), entity),
+                queryMapper.getMappedFields(query.getFieldsObject(), entity));
+    }
+}
@@ -0,0 +1,89 @@
+package com.acme.employee.support;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.HttpMessageEncoder;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.util.MimeType;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Records payload size and encode time per wire format; streamed values only count bytes
+public class MeteredEncoder implements HttpMessageEncoder<Object> {
+
+    private final HttpMessageEncoder<Object> delegate;
+    private final Timer encodeTimer;
+    private final DistributionSummary payloadSize;
+
+    public MeteredEncoder(HttpMessageEncoder<Object> delegate, String format, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.encodeTimer = Timer.builder("employees.codec.encode")
+                .description("Time to serialize one response body")
+                .tag("format", format)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.payloadSize = DistributionSummary.builder("employees.codec.payload.size")
+                .description("Encoded response body size")
+                .baseUnit("bytes")
+                .tag("format", format)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean canEncode(ResolvableType elementType, MimeType mimeType) {
+        return delegate.canEncode(elementType, mimeType);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType,
+                                   MimeType mimeType, Map<String, Object> hints) {
+        if (inputStream instanceof Mono<?> mono) {
+            return mono.map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints)).flux();
+        }
+        return delegate.encode(inputStream, bufferFactory, elementType, mimeType, hints)
+                .doOnNext(buffer -> payloadSize.record(buffer.readableByteCount()));
+    }
+
+    @Override
+    public DataBuffer encodeValue(Object value, DataBufferFactory bufferFactory, ResolvableType valueType,
+                                  MimeType mimeType, Map<String, Object> hints) {
+        long started = System.nanoTime();
+        DataBuffer buffer = delegate.encodeValue(value, bufferFactory, valueType, mimeType, hints);
+        encodeTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        payloadSize.record(buffer.readableByteCount());
+        return buffer;
+    }
+
+    @Override
+    public List<MimeType> getEncodableMimeTypes() {
+        return delegate.getEncodableMimeTypes();
+    }
+
+    @Override
+    public List<MimeType> getEncodableMimeTypes(ResolvableType elementType) {
+        return delegate.getEncodableMimeTypes(elementType);
+    }
+
+    @Override
+    public List<MediaType> getStreamingMediaTypes() {
+        return delegate.getStreamingMediaTypes();
+    }
+
+    @Override
+    public Map<String, Object> getEncodeHints(ResolvableType actualType, ResolvableType elementType, MediaType mediaType,
+                                              ServerHttpRequest request, ServerHttpResponse response) {
+        return delegate.getEncodeHints(actualType, elementType, mediaType, request, response);
+    }
+}
@@ -0,0 +1,54 @@
+package com.acme.employee.support;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+
+import org.bson.Document;
+import org.springframework.util.StringUtils;
+
+import com.acme.employee.exception.BadRequestException;
+
+// Opaque keyset token: sort key and _id of the last document on a page
+public record PageCursor(String sortField, Object lastValue, String lastId) {
+
+    private static final String SORT_FIELD = "f";
+    private static final String LAST_VALUE = "v";
+    private static final String LAST_ID = "i";
+
+    public String encode() {
+        Document payload = new Document(SORT_FIELD, sortField)
+                .append(LAST_VALUE, toBsonValue(lastValue))
+                .append(LAST_ID, lastId);
+        byte[] json = payload.toJson().getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json);
+    }
+
+    public static PageCursor decode(String token) {
+        if (!StringUtils.hasText(token)) {
+            throw new BadRequestException("Cursor must not be blank");
+        }
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(token.trim());
+            Document payload = Document.parse(new String(json, StandardCharsets.UTF_8));
+            String lastId = payload.getString(LAST_ID);
+            if (lastId == null) {
+                throw new BadRequestException("Cursor is missing its position");
+            }
+            return new PageCursor(payload.getString(SORT_FIELD), payload.get(LAST_VALUE), lastId);
+        } catch (BadRequestException ex) {
+            throw ex;
+        } catch (RuntimeException ex) {
+            throw new BadRequestException("Malformed cursor", ex);
+        }
+    }
+
+    private static Object toBsonValue(Object value) {
+        // Document.toJson() has no codec for java.time types
+        if (value instanceof Instant instant) {
+            return Date.from(instant);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,41 @@
+package com.acme.employee.support;
+
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+
+// Fingerprint of a query with every literal replaced by "?": same fields and operators, same shape
+public record QueryShape(String id, String text) {
+
+    private static final String PLACEHOLDER = "?";
+
+    public static QueryShape of(Document filter, Document sort) {
+        String text = strip(filter).toJson();
+        if (sort != null && !sort.isEmpty()) {
+            text += " sort " + sort.toJson();
+        }
+        return named(text);
+    }
+
+    public static QueryShape named(String text) {
+        return new QueryShape(Integer.toHexString(text.hashCode()), text);
+    }
+
+    private static Document strip(Map<?, ?> document) {
+        Document stripped = new Document();
+        document.forEach((key, value) -> stripped.append(String.valueOf(key), stripValue(value)));
+        return stripped;
+    }
+
+    // $and/$or arrays keep their sub-documents; any other array ($in, $all, literals) is a single value
+    private static Object stripValue(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            return strip(map);
+        }
+        if (value instanceof List<?> list && !list.isEmpty() && list.stream().allMatch(Map.class::isInstance)) {
+            return list.stream().map(item -> strip((Map<?, ?>) item)).toList();
+        }
+        return PLACEHOLDER;
+    }
+}
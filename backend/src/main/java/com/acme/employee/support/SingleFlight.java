@@ -0,0 +1,81 @@
+package com.acme.employee.support;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Callers for a key join the load already in flight; the load is cancelled only when all of them have gone
+public final class SingleFlight<K, V> {
+
+    private final Map<K, Mono<V>> flights = new ConcurrentHashMap<>();
+    private final Counter joined;
+
+    public SingleFlight(String name, MeterRegistry meterRegistry) {
+        this.joined = Counter.builder("employees.singleflight.joined")
+                .description("Reads answered by joining an identical read already in flight")
+                .tag("operation", name)
+                .register(meterRegistry);
+        Gauge.builder("employees.singleflight.inflight", flights, Map::size)
+                .description("Distinct reads currently in flight")
+                .tag("operation", name)
+                .register(meterRegistry);
+    }
+
+    public Mono<V> execute(K key, Supplier<Mono<V>> loader) {
+        return Mono.defer(() -> {
+            Mono<V> started = start(key, loader);
+            Mono<V> flight = flights.putIfAbsent(key, started);
+            if (flight == null) {
+                return started;
+            }
+            joined.increment();
+            return flight;
+        });
+    }
+
+    // Callers already waiting keep the result they joined for; everyone after starts a new load.
+    // Writers call this so no read that began before their write is handed to a caller that came after it.
+    public void detachAll() {
+        flights.clear();
+    }
+
+    // Detaches when the write is subscribed and again before each of its signals reaches the caller,
+    // so reads that started while it ran are not handed out afterwards either
+    public <T> Mono<T> detaching(Mono<T> write) {
+        return Mono.defer(() -> {
+                    detachAll();
+                    return write;
+                })
+                .doOnEach(signal -> detachAll())
+                .doOnCancel(this::detachAll);
+    }
+
+    public <T> Flux<T> detaching(Flux<T> write) {
+        return Flux.defer(() -> {
+                    detachAll();
+                    return write;
+                })
+                .doOnEach(signal -> detachAll())
+                .doOnCancel(this::detachAll);
+    }
+
+    private Mono<V> start(K key, Supplier<Mono<V>> loader) {
+        AtomicReference<Mono<V>> self = new AtomicReference<>();
+        // refCount: the load is subscribed once, and cancelled when the last caller cancels
+        Mono<V> flight = Mono.defer(loader)
+                .doFinally(signal -> flights.remove(key, self.get()))
+                .flux()
+                .publish()
+                .refCount()
+                .singleOrEmpty();
+        self.set(flight);
+        return flight;
+    }
+}
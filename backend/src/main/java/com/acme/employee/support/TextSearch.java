@@ -0,0 +1,46 @@
+package com.acme.employee.support;
+
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import org.bson.Document;
+
+import com.mongodb.MongoException;
+
+public final class TextSearch {
+
+    public static final String SCORE_FIELD = "score";
+
+    // IndexNotFound: the collection has no text index to serve $text
+    private static final int INDEX_NOT_FOUND = 27;
+
+    private TextSearch() {
+    }
+
+    // Quotes every word so $text ANDs them (unquoted terms are ORed). Empty when the term has
+    // nothing the text tokenizer would index, e.g. only punctuation.
+    public static Optional<String> toSearchString(String term) {
+        if (term == null) {
+            return Optional.empty();
+        }
+        String phrases = Arrays.stream(term.replace("\"", " ").replace("\\", " ").trim().split("\\s+"))
+                .filter(word -> word.codePoints().anyMatch(Character::isLetterOrDigit))
+                .map(word -> '"' + word + '"')
+                .collect(Collectors.joining(" "));
+        return phrases.isEmpty() ? Optional.empty() : Optional.of(phrases);
+    }
+
+    public static Document relevanceSort() {
+        return new Document(SCORE_FIELD, new Document("$meta", "textScore")).append("_id", 1);
+    }
+
+    public static boolean isMissingTextIndex(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof MongoException mongoException && mongoException.getCode() == INDEX_NOT_FOUND) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
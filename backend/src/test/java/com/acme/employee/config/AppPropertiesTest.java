@@ -0,0 +1,42 @@
+package com.acme.employee.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+
+class AppPropertiesTest {
+
+    @Test
+    void defaultsAreWhatTheBinderProducesFromTheShippedConfiguration() throws IOException {
+        StandardEnvironment environment = new StandardEnvironment();
+        // only the application.yml fallbacks, whatever the build machine exports
+        environment.getPropertySources().remove(StandardEnvironment.SYSTEM_ENVIRONMENT_PROPERTY_SOURCE_NAME);
+        for (PropertySource<?> source : new YamlPropertySourceLoader().load("application", new ClassPathResource("application.yml"))) {
+            environment.getPropertySources().addLast(source);
+        }
+
+        assertThat(Binder.get(environment).bindOrCreate("app", AppProperties.class)).isEqualTo(AppProperties.defaults());
+    }
+
+    @Test
+    void missingSectionsAndValuesFallBackToTheDefaults() {
+        Binder binder = new Binder(new MapConfigurationPropertySource(Map.of("app.bulk.batch-size", "0",
+                "app.suggest.max-results", "25")));
+
+        AppProperties properties = binder.bindOrCreate("app", AppProperties.class);
+
+        assertThat(properties.bulk()).isEqualTo(new AppProperties.BulkProperties(1, 4, 1024 * 1024));
+        assertThat(properties.suggest()).isEqualTo(new AppProperties.SuggestProperties(List.of("lastName", "email"), 25, 600));
+        assertThat(properties.schema()).isEqualTo(AppProperties.defaults().schema());
+    }
+}
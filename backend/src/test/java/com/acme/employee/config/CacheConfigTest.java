@@ -0,0 +1,74 @@
+package com.acme.employee.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCache;
+
+import com.acme.employee.service.CacheInvalidationBus;
+
+@ExtendWith(MockitoExtension.class)
+class CacheConfigTest {
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    @Captor
+    private ArgumentCaptor<Consumer<String>> remoteEvict;
+
+    @Captor
+    private ArgumentCaptor<Runnable> remoteClear;
+
+    private Cache cache;
+
+    @BeforeEach
+    void setUp() {
+        AppProperties properties = AppProperties.defaults();
+        cache = new CacheConfig(properties).cacheManager(invalidationBus).getCache("schema");
+        verify(invalidationBus).register(eq("schema"), remoteEvict.capture(), remoteClear.capture());
+    }
+
+    @Test
+    void localEvictionsAreBroadcast() {
+        assertThat(cache).isInstanceOf(CaffeineCache.class);
+        cache.put("employees:200", "schema");
+        cache.evict("employees:200");
+        cache.evict(42);
+        cache.clear();
+
+        assertThat(cache.get("employees:200")).isNull();
+        verify(invalidationBus).evict("schema", "employees:200");
+        verify(invalidationBus, times(2)).clear("schema");
+    }
+
+    @Test
+    void remoteEvictionsApplyLocallyWithoutEchoing() {
+        cache.put("employees:200", "schema");
+        cache.put("employees:50", "schema");
+        remoteEvict.getValue().accept("employees:200");
+        assertThat(cache.get("employees:200")).isNull();
+        assertThat(cache.get("employees:50")).isNotNull();
+
+        remoteClear.getValue().run();
+        assertThat(cache.get("employees:50")).isNull();
+        verify(invalidationBus, never()).evict(anyString(), anyString());
+        verify(invalidationBus, never()).clear(any());
+        verifyNoMoreInteractions(invalidationBus);
+    }
+}
@@ -0,0 +1,114 @@
+package com.acme.employee.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.acme.employee.exception.GlobalExceptionHandler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// The binary formats need the binary-codecs profile (mvn -Pbinary-codecs test); without it they are skipped
+class CodecConfigTest {
+
+    private static final Payload PAYLOAD = new Payload("Smith", 7, List.of("remote", "lead"));
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        CodecConfig config = new CodecConfig();
+        CodecCustomizer codecs = config.binaryCodecCustomizer(new ObjectMapper(), meterRegistry);
+        client = WebTestClient.bindToController(new Endpoints())
+                .controllerAdvice(new GlobalExceptionHandler())
+                .webFilter(config.varyOnAcceptFilter())
+                .httpMessageCodecs(codecs::customize)
+                .configureClient()
+                .codecs(codecs::customize)
+                .build();
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "application/cbor, cbor, com.fasterxml.jackson.dataformat.cbor.CBORFactory",
+            "application/x-jackson-smile, smile, com.fasterxml.jackson.dataformat.smile.SmileFactory",
+            "application/x-msgpack, msgpack, org.msgpack.jackson.dataformat.MessagePackFactory",
+            "application/msgpack, msgpack, org.msgpack.jackson.dataformat.MessagePackFactory"
+    })
+    void decodesAndEncodesEachBinaryFormat(String mediaType, String format, String factoryClass) {
+        assumeTrue(ClassUtils.isPresent(factoryClass, getClass().getClassLoader()), format + " is not on the classpath");
+        MediaType type = MediaType.parseMediaType(mediaType);
+
+        client.post().uri("/echo").contentType(type).accept(type).bodyValue(PAYLOAD)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(type)
+                .expectBody(Payload.class).isEqualTo(PAYLOAD);
+        // once for the request the client wrote, once for the response
+        assertThat(meterRegistry.get("employees.codec.encode").tag("format", format).timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    void jsonStaysTheDefault() {
+        client.get().uri("/payload").accept(MediaType.ALL)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT)
+                .expectBody(Payload.class).isEqualTo(PAYLOAD);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "application/cbor, com.fasterxml.jackson.dataformat.cbor.CBORFactory",
+            "application/x-msgpack, org.msgpack.jackson.dataformat.MessagePackFactory"
+    })
+    void streamedBodiesInWholeValueFormatsAreNotAcceptable(String mediaType, String factoryClass) {
+        assumeTrue(ClassUtils.isPresent(factoryClass, getClass().getClassLoader()), mediaType + " is not on the classpath");
+
+        client.get().uri("/payloads").accept(MediaType.parseMediaType(mediaType))
+                .exchange()
+                .expectStatus().isEqualTo(406);
+    }
+
+    record Payload(String lastName, int grade, List<String> tags) {
+    }
+
+    @RestController
+    static class Endpoints {
+
+        @PostMapping("/echo")
+        Mono<Payload> echo(@RequestBody Mono<Payload> payload) {
+            return payload;
+        }
+
+        @GetMapping("/payload")
+        Payload payload() {
+            return PAYLOAD;
+        }
+
+        @GetMapping("/payloads")
+        Flux<Payload> payloads() {
+            return Flux.just(PAYLOAD, PAYLOAD);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.acme.employee.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.micrometer.core.instrument.search.RequiredSearch;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class ControllerMetricsFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        client = WebTestClient.bindToController(new Endpoints())
+                .webFilter(new ControllerMetricsFilter(meterRegistry))
+                .build();
+    }
+
+    @Test
+    void timesEachHandlerMethodAndRecordsItsResponseSize() {
+        client.get().uri("/one").exchange().expectStatus().isOk().expectBody(String.class).isEqualTo("hello");
+        client.get().uri("/one").exchange().expectStatus().isOk();
+
+        RequiredSearch timer = meterRegistry.get("employees.controller")
+                .tags("controller", "Endpoints", "operation", "one", "status", "200");
+        awaitCount(timer, 2);
+        assertThat(meterRegistry.get("employees.controller.response.size").tags("operation", "one").summary()
+                .totalAmount()).isEqualTo(10);
+    }
+
+    @Test
+    void streamedResponsesAreMeasuredToTheLastBuffer() {
+        // strings are written as they come, one buffer each
+        client.get().uri("/stream").accept(MediaType.APPLICATION_NDJSON).exchange().expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("abbccc");
+
+        awaitCount(meterRegistry.get("employees.controller").tags("operation", "stream", "status", "200"), 1);
+        assertThat(meterRegistry.get("employees.controller.response.size").tags("operation", "stream").summary()
+                .totalAmount()).isEqualTo(6);
+    }
+
+    @Test
+    void failedHandlersAreTaggedWithTheStatusTheyRendered() {
+        client.get().uri("/missing").exchange().expectStatus().isEqualTo(HttpStatus.NOT_FOUND);
+        client.get().uri("/broken").exchange().expectStatus().is5xxServerError();
+
+        awaitCount(meterRegistry.get("employees.controller").tags("operation", "missing", "status", "404"), 1);
+        awaitCount(meterRegistry.get("employees.controller").tags("operation", "broken", "status", "500"), 1);
+    }
+
+    @Test
+    void requestsNoHandlerMatchedAreNotRecorded() {
+        client.get().uri("/nowhere").exchange().expectStatus().isNotFound();
+
+        assertThat(meterRegistry.find("employees.controller").meters()).isEmpty();
+    }
+
+    // the filter records in doFinally, which can run just after the client has seen the response
+    private static void awaitCount(RequiredSearch search, long expected) {
+        Instant deadline = Instant.now().plus(Duration.ofSeconds(2));
+        while (true) {
+            try {
+                if (search.timer().count() == expected || Instant.now().isAfter(deadline)) {
+                    assertThat(search.timer().count()).isEqualTo(expected);
+                    return;
+                }
+            } catch (Exception notYetRegistered) {
+                if (Instant.now().isAfter(deadline)) {
+                    throw notYetRegistered;
+                }
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    @RestController
+    static class Endpoints {
+
+        @GetMapping("/one")
+        Mono<String> one() {
+            return Mono.just("hello");
+        }
+
+        @GetMapping(path = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+        Flux<String> stream() {
+            return Flux.just("a", "bb", "ccc");
+        }
+
+        @GetMapping("/missing")
+        Mono<String> missing() {
+            return Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND));
+        }
+
+        @GetMapping("/broken")
+        Mono<String> broken() {
+            return Mono.error(new IllegalStateException("boom"));
+        }
+    }
+}
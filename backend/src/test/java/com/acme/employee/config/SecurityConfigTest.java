@@ -0,0 +1,85 @@
+package com.acme.employee.config;
+
+import static org.mockito.Mockito.when;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.WebFilterChainProxy;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.acme.employee.security.FirebaseTokenVerifier;
+
+import reactor.core.publisher.Mono;
+
+@ExtendWith(MockitoExtension.class)
+class SecurityConfigTest {
+
+    @Mock
+    private FirebaseTokenVerifier tokenVerifier;
+
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        SecurityConfig config = new SecurityConfig(tokenVerifier);
+        client = WebTestClient.bindToController(new Endpoints())
+                .webFilter(config.firebaseAuthWebFilter(),
+                        new WebFilterChainProxy(config.springSecurityFilterChain(ServerHttpSecurity.http())))
+                .build();
+    }
+
+    @Test
+    void anonymousCallersCannotReachActuatorOperations() {
+        client.post().uri("/actuator/indexadvisor").exchange().expectStatus().isEqualTo(HttpStatus.UNAUTHORIZED);
+        client.get().uri("/actuator/indexadvisor").exchange().expectStatus().isEqualTo(HttpStatus.UNAUTHORIZED);
+        client.get().uri("/actuator/slowqueries").exchange().expectStatus().isEqualTo(HttpStatus.UNAUTHORIZED);
+        client.post().uri("/actuator/health").exchange().expectStatus().isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+
+    @Test
+    void probesAndScrapesStayPublic() {
+        client.get().uri("/actuator/health/readiness").exchange().expectStatus().isOk();
+        client.get().uri("/actuator/prometheus").exchange().expectStatus().isOk();
+    }
+
+    @Test
+    void verifiedTokenReachesActuatorOperations() {
+        when(tokenVerifier.verify("valid")).thenReturn(Mono.just("uid-1"));
+
+        client.post().uri("/actuator/indexadvisor").header("Authorization", "Bearer valid")
+                .exchange().expectStatus().isOk();
+    }
+
+    @Test
+    void exportNeedsATokenWhileListsStayPublic() {
+        when(tokenVerifier.verify("valid")).thenReturn(Mono.just("uid-1"));
+
+        client.get().uri("/api/employees/export?format=csv").exchange().expectStatus().isEqualTo(HttpStatus.UNAUTHORIZED);
+        client.get().uri("/api/employees").exchange().expectStatus().isOk();
+        client.get().uri("/api/employees/export").header("Authorization", "Bearer valid")
+                .exchange().expectStatus().isOk();
+    }
+
+    @RestController
+    static class Endpoints {
+
+        @GetMapping({"/actuator/health", "/actuator/health/readiness", "/actuator/prometheus",
+                "/actuator/indexadvisor", "/actuator/slowqueries", "/api/employees", "/api/employees/export"})
+        Mono<String> read() {
+            return Mono.just("ok");
+        }
+
+        @PostMapping({"/actuator/health", "/actuator/indexadvisor"})
+        Mono<String> write() {
+            return Mono.just("ok");
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.acme.employee.mapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.acme.employee.dto.EmployeeResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class EmployeeCsvMapperTest {
+
+    private final EmployeeCsvMapper mapper = new EmployeeCsvMapper(new ObjectMapper());
+
+    @Test
+    void quotesValuesWithSeparatorsQuotesAndLineBreaks() {
+        List<String> columns = mapper.columns(List.of("name", "note", "title"));
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("name", "Smith, Jane");
+        attributes.put("note", "said \"hi\"\nthen left");
+        attributes.put("title", "Engineer");
+
+        String line = mapper.toLine(employee(attributes), columns);
+
+        assertThat(mapper.headerLine(columns)).isEqualTo("id,name,note,title,createdAt,updatedAt\n");
+        assertThat(line).isEqualTo("e1,\"Smith, Jane\",\"said \"\"hi\"\"\nthen left\",Engineer,1970-01-01T00:00:00Z,\n");
+    }
+
+    @Test
+    void neutralizesFormulaPrefixesInTextButNotNumbers() {
+        List<String> columns = mapper.columns(List.of("a", "b", "c", "d", "e", "f"));
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("a", "=HYPERLINK(\"http://x\")");
+        attributes.put("b", "+1");
+        attributes.put("c", "-2");
+        attributes.put("d", "@SUM(A1)");
+        attributes.put("e", "\t=1");
+        attributes.put("f", -3);
+
+        List<String> values = mapper.parseLine(mapper.toLine(employee(attributes), columns).stripTrailing());
+
+        assertThat(values.subList(1, 7)).containsExactly(
+                "'=HYPERLINK(\"http://x\")", "'+1", "'-2", "'@SUM(A1)", "'\t=1", "-3");
+    }
+
+    @Test
+    void parsesWhatItWrites() {
+        List<String> columns = mapper.columns(List.of("name", "skills"));
+        Map<String, Object> attributes = new LinkedHashMap<>();
+        attributes.put("name", "O\"Brien, Pat");
+        attributes.put("skills", List.of("java", "sql"));
+
+        List<String> values = mapper.parseLine(mapper.toLine(employee(attributes), columns).stripTrailing());
+
+        assertThat(values).containsExactly("e1", "O\"Brien, Pat", "[\"java\",\"sql\"]", "1970-01-01T00:00:00Z", "");
+    }
+
+    private static EmployeeResponse employee(Map<String, Object> attributes) {
+        return new EmployeeResponse("e1", attributes, false, Instant.EPOCH, null, 1);
+    }
+}
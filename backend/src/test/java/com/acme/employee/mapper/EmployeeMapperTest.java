@@ -0,0 +1,73 @@
+package com.acme.employee.mapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+
+import com.acme.employee.exception.BadRequestException;
+
+class EmployeeMapperTest {
+
+    private final EmployeeMapper mapper = new EmployeeMapper();
+
+    @Test
+    void patchUpdateTargetsOnlyCleanedKeys() {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put(" title ", "Engineer");
+        attributes.put("manager", null);
+        attributes.put("_internal", "ignored");
+
+        List<Document> pipeline = mapper.patchUpdate(attributes, Instant.EPOCH).toPipeline(Aggregation.DEFAULT_CONTEXT);
+
+        assertThat(pipeline).hasSize(3);
+        Document set = pipeline.get(0).get("$set", Document.class);
+        assertThat(set).containsEntry("attributes.title", new Document("$literal", "Engineer"))
+                .containsEntry("deleted", false)
+                .containsKey("updatedAt")
+                .containsKey("version")
+                .doesNotContainKey("attributes._internal");
+        assertThat(pipeline.get(1).getList("$unset", String.class)).containsExactly("attributes.manager");
+        // searchText is rebuilt from the patched attributes in the same write
+        assertThat(pipeline.get(2).get("$set", Document.class))
+                .containsEntry("searchText", EmployeeMapper.searchTextExpression());
+    }
+
+    @Test
+    void patchValuesAreLiteralsNotFieldPaths() {
+        List<Document> pipeline = mapper.patchUpdate(Map.of("nickname", "$salary"), Instant.EPOCH)
+                .toPipeline(Aggregation.DEFAULT_CONTEXT);
+
+        assertThat(pipeline).hasSize(2);
+        assertThat(pipeline.getFirst().get("$set", Document.class))
+                .containsEntry("attributes.nickname", new Document("$literal", "$salary"));
+    }
+
+    @Test
+    void patchUpdateRejectsPathLikeKeys() {
+        assertThatThrownBy(() -> mapper.patchUpdate(Map.of("address.city", "Paris"), Instant.EPOCH))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> mapper.patchUpdate(Map.of("_only", "hidden"), Instant.EPOCH))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void searchTextJoinsStringValuesInKeyOrder() {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("lastName", "Smith");
+        attributes.put("age", 41);
+        attributes.put("firstName", "Jane");
+
+        assertThat(mapper.searchText(attributes)).isEqualTo("Jane Smith");
+        assertThat(mapper.newDocument(attributes).getSearchText()).isEqualTo("Jane Smith");
+        assertThat(mapper.replaceUpdate(attributes, Instant.EPOCH).getUpdateObject().get("$set", Document.class))
+                .containsEntry("searchText", "Jane Smith");
+    }
+}
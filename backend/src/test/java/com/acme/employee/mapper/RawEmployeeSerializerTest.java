@@ -0,0 +1,73 @@
+package com.acme.employee.mapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import com.acme.employee.dto.EmployeeResponse;
+import com.acme.employee.dto.RawEmployee;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+class RawEmployeeSerializerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    void writesTheSameJsonAsTheMappedResponse() throws Exception {
+        ObjectId id = new ObjectId();
+        Date hired = Date.from(Instant.parse("2020-03-01T00:00:00Z"));
+        Instant createdAt = Instant.parse("2024-05-01T10:15:30.120Z");
+        Instant updatedAt = Instant.parse("2024-05-02T08:00:00Z");
+        Document stored = new Document("_id", id)
+                .append("attributes", new Document("lastName", "Smith")
+                        .append("salary", 5000.5)
+                        .append("level", 3)
+                        .append("hiredAt", hired)
+                        .append("skills", List.of("java", "mongo"))
+                        .append("address", new Document("city", "Oslo").append("_zip", "0150"))
+                        .append("_internal", "hidden"))
+                .append("deleted", false)
+                .append("createdAt", Date.from(createdAt))
+                .append("updatedAt", Date.from(updatedAt))
+                .append("searchText", "Smith")
+                .append("version", 4L)
+                .append("_class", "com.acme.employee.model.EmployeeDocument");
+        Map<String, Object> attributes = new HashMap<>(stored.get("attributes", Document.class));
+        attributes.remove("_internal");
+        EmployeeResponse mapped = new EmployeeResponse(id.toHexString(), attributes, false, createdAt, updatedAt, 4);
+
+        RawEmployee employee = new RawEmployee(RawBsonDocument.parse(stored.toJson()));
+        JsonNode raw = objectMapper.readTree(objectMapper.writeValueAsBytes(employee));
+
+        JsonNode expected = objectMapper.readTree(objectMapper.writeValueAsBytes(mapped));
+        assertThat(raw).isEqualTo(expected);
+        // character-based generators cannot take the UTF-8 bytes as they are
+        assertThat(objectMapper.readTree(objectMapper.writeValueAsString(employee))).isEqualTo(expected);
+    }
+
+    @Test
+    void fillsFieldsAProjectionLeftOut() throws Exception {
+        RawEmployee projected = new RawEmployee(RawBsonDocument.parse("{_id: 'e1', version: 2}"));
+
+        JsonNode raw = objectMapper.readTree(objectMapper.writeValueAsBytes(projected));
+
+        assertThat(raw).isEqualTo(objectMapper.readTree(objectMapper.writeValueAsBytes(
+                new EmployeeResponse("e1", Map.of(), false, null, null, 2))));
+        assertThat(projected.version()).isEqualTo(2);
+        assertThat(projected.updatedAt()).isNull();
+    }
+}
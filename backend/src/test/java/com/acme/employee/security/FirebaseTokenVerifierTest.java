@@ -0,0 +1,91 @@
+package com.acme.employee.security;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.acme.employee.config.AppProperties;
+import com.google.firebase.ErrorCode;
+import com.google.firebase.auth.AuthErrorCode;
+import com.google.firebase.auth.FirebaseAuthException;
+import com.google.firebase.auth.FirebaseToken;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class FirebaseTokenVerifierTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> decoded = new CopyOnWriteArrayList<>();
+    private final Map<String, Object> tokens = Map.of(
+            "valid", token("uid-1", Instant.now().plusSeconds(3600)),
+            "expired", token("uid-2", Instant.now().minusSeconds(1)),
+            "revoked", new FirebaseAuthException(ErrorCode.UNAUTHENTICATED, "Firebase ID token has been revoked",
+                    null, null, AuthErrorCode.REVOKED_ID_TOKEN));
+
+    private final FirebaseTokenVerifier verifier = new FirebaseTokenVerifier(AppProperties.defaults(), meterRegistry) {
+        @Override
+        FirebaseToken decode(String token) throws FirebaseAuthException {
+            decoded.add(token);
+            Object result = tokens.get(token);
+            if (result == null) {
+                throw new FirebaseAuthException(ErrorCode.INVALID_ARGUMENT, "Failed to parse Firebase ID token",
+                        null, null, null);
+            }
+            if (result instanceof FirebaseAuthException error) {
+                throw error;
+            }
+            return (FirebaseToken) result;
+        }
+    };
+
+    @AfterEach
+    void tearDown() {
+        verifier.destroy();
+    }
+
+    @Test
+    void repeatedTokenIsVerifiedOnce() {
+        StepVerifier.create(verifier.verify("valid")).expectNext("uid-1").verifyComplete();
+        StepVerifier.create(Mono.zip(verifier.verify("valid"), verifier.verify("valid")))
+                .assertNext(uids -> assertThat(uids.getT1()).isEqualTo("uid-1").isEqualTo(uids.getT2()))
+                .verifyComplete();
+
+        assertThat(decoded).containsExactly("valid");
+        assertThat(meterRegistry.get("auth.token.verify").tag("outcome", "success").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void tokenIsNotServedFromCachePastItsExp() {
+        StepVerifier.create(verifier.verify("expired")).expectNext("uid-2").verifyComplete();
+        StepVerifier.create(verifier.verify("expired")).expectNext("uid-2").verifyComplete();
+
+        assertThat(decoded).containsExactly("expired", "expired");
+    }
+
+    @Test
+    void rejectedTokensAreNotCached() {
+        StepVerifier.create(verifier.verify("revoked")).verifyComplete();
+        StepVerifier.create(verifier.verify("revoked")).verifyComplete();
+        StepVerifier.create(verifier.verify("garbage")).verifyComplete();
+
+        assertThat(decoded).containsExactly("revoked", "revoked", "garbage");
+        assertThat(meterRegistry.get("auth.token.verify").tag("outcome", "failure").timer().count()).isEqualTo(3);
+    }
+
+    private static FirebaseToken token(String uid, Instant exp) {
+        FirebaseToken token = mock(FirebaseToken.class);
+        when(token.getUid()).thenReturn(uid);
+        when(token.getClaims()).thenReturn(Map.of("exp", exp.getEpochSecond()));
+        return token;
+    }
+}
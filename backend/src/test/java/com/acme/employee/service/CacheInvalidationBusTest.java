@@ -0,0 +1,111 @@
+package com.acme.employee.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.acme.employee.config.AppProperties;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+@ExtendWith(MockitoExtension.class)
+class CacheInvalidationBusTest {
+
+    private static final String COLLECTION = "_cache_invalidations";
+
+    @Mock
+    private ReactiveMongoTemplate template;
+
+    private final Sinks.Many<Document> tail = Sinks.many().multicast().directBestEffort();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> evicted = new CopyOnWriteArrayList<>();
+    private final AtomicInteger cleared = new AtomicInteger();
+    private CacheInvalidationBus bus;
+
+    @BeforeEach
+    void setUp() {
+        when(template.collectionExists(COLLECTION)).thenReturn(Mono.just(false));
+        when(template.createCollection(eq(COLLECTION), any(CollectionOptions.class))).thenReturn(Mono.empty());
+        when(template.insert(any(Document.class), eq(COLLECTION))).thenAnswer(invocation -> {
+            Document document = invocation.getArgument(0);
+            document.putIfAbsent("_id", new ObjectId());
+            return Mono.just(document);
+        });
+        when(template.tail(any(Query.class), eq(Document.class), eq(COLLECTION))).thenReturn(tail.asFlux());
+        AppProperties properties = AppProperties.builder()
+                .cacheBus(new AppProperties.CacheBusProperties(true, COLLECTION, 4096, 100, 50, 10)).build();
+        bus = new CacheInvalidationBus(template, properties, meterRegistry);
+        bus.register("schema", evicted::add, cleared::incrementAndGet);
+        bus.start();
+    }
+
+    @Test
+    void evictionsMadeTogetherTravelInOneMessage() {
+        bus.evict("schema", "employees:200");
+        bus.clear("employees");
+
+        ArgumentCaptor<Document> inserted = ArgumentCaptor.forClass(Document.class);
+        // the marker the cursor starts from, then the batch
+        verify(template, timeout(2000).times(2)).insert(inserted.capture(), eq(COLLECTION));
+        Document message = inserted.getAllValues().get(1);
+        assertThat(message.getString("origin")).isEqualTo(inserted.getAllValues().get(0).getString("origin"));
+        assertThat(message.getList("evictions", Document.class)).containsExactly(
+                new Document("cache", "schema").append("key", "employees:200"),
+                new Document("cache", "employees"));
+        verify(template).createCollection(eq(COLLECTION), any(CollectionOptions.class));
+    }
+
+    @Test
+    void appliesEvictionsFromOtherReplicasOnly() {
+        ArgumentCaptor<Document> marker = ArgumentCaptor.forClass(Document.class);
+        verify(template, timeout(2000)).tail(any(Query.class), eq(Document.class), eq(COLLECTION));
+        verify(template, times(1)).insert(marker.capture(), eq(COLLECTION));
+
+        tail.tryEmitNext(message(marker.getValue().getString("origin"), new Document("cache", "schema").append("key", "own")));
+        tail.tryEmitNext(message("other", new Document("cache", "schema").append("key", "employees:200"),
+                new Document("cache", "unregistered").append("key", "x"),
+                new Document("cache", "schema")));
+
+        assertThat(evicted).containsExactly("employees:200");
+        assertThat(cleared).hasValue(1);
+        assertThat(meterRegistry.get("cache.invalidations.received").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void disabledBusNeitherPublishesNorFollows() {
+        CacheInvalidationBus disabled = new CacheInvalidationBus(template, AppProperties.builder()
+                .cacheBus(new AppProperties.CacheBusProperties(false, "_disabled", 4096, 100, 50, 10)).build(), meterRegistry);
+        disabled.start();
+        disabled.clear("schema");
+
+        verify(template, never()).tail(any(Query.class), eq(Document.class), eq("_disabled"));
+        verify(template, never()).insert(any(Document.class), eq("_disabled"));
+    }
+
+    private static Document message(String origin, Document... evictions) {
+        return new Document("_id", new ObjectId()).append("origin", origin).append("evictions", List.of(evictions));
+    }
+}
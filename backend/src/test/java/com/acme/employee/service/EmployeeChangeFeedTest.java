@@ -0,0 +1,203 @@
+package com.acme.employee.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.BsonDocument;
+import org.bson.BsonObjectId;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.ChangeStreamEvent;
+import org.springframework.data.mongodb.core.ChangeStreamOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.http.codec.ServerSentEvent;
+
+import com.acme.employee.config.AppProperties;
+import com.acme.employee.dto.EmployeeChangeEvent;
+import com.acme.employee.mapper.EmployeeMapper;
+import com.acme.employee.model.EmployeeDocument;
+import com.acme.employee.support.CollectionNameProvider;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class EmployeeChangeFeedTest {
+
+    @Mock
+    private ReactiveMongoTemplate template;
+
+    private final Sinks.Many<ChangeStreamEvent<EmployeeDocument>> changes = Sinks.many().multicast().directBestEffort();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private MappingMongoConverter converter;
+    private EmployeeChangeFeed feed;
+
+    @BeforeEach
+    void setUp() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        when(template.changeStream(isNull(), eq("employees"), any(ChangeStreamOptions.class), eq(EmployeeDocument.class)))
+                .thenReturn(changes.asFlux());
+        AppProperties properties = AppProperties.builder()
+                .stream(new AppProperties.StreamProperties(2, 3, 3600, 0, false)).build();
+        feed = new EmployeeChangeFeed(template, new CollectionNameProvider("employees"), new EmployeeMapper(),
+                properties, meterRegistry);
+    }
+
+    @Test
+    void subscribersShareOneChangeStreamAndOnlySeeMatchingChanges() throws Exception {
+        ObjectId sales = new ObjectId();
+        ObjectId support = new ObjectId();
+        CompletableFuture<List<ServerSentEvent<EmployeeChangeEvent>>> everything = feed.subscribe(Map.of(), null)
+                .take(3).collectList().toFuture();
+        CompletableFuture<List<ServerSentEvent<EmployeeChangeEvent>>> filtered = feed.subscribe(Map.of("department", "Sales"), null)
+                .take(3).collectList().toFuture();
+
+        changes.tryEmitNext(upsert("insert", "t1", sales, "Sales"));
+        changes.tryEmitNext(upsert("update", "t2", support, "Support"));
+        changes.tryEmitNext(delete("t3", support));
+
+        List<ServerSentEvent<EmployeeChangeEvent>> all = everything.get(5, TimeUnit.SECONDS);
+        assertEvent(all.get(0), "t1", EmployeeChangeEvent.Type.INSERT, sales);
+        assertEvent(all.get(1), "t2", EmployeeChangeEvent.Type.UPDATE, support);
+        assertEvent(all.get(2), "t3", EmployeeChangeEvent.Type.DELETE, support);
+        List<ServerSentEvent<EmployeeChangeEvent>> matching = filtered.get(5, TimeUnit.SECONDS);
+        assertEvent(matching.get(0), "t1", EmployeeChangeEvent.Type.INSERT, sales);
+        // without a pre-image the subscriber cannot know whether the row was in its filter before
+        assertEvent(matching.get(1), "t2", EmployeeChangeEvent.Type.REMOVED, support);
+        // deletes carry no attributes to filter on, so every subscriber gets them
+        assertEvent(matching.get(2), "t3", EmployeeChangeEvent.Type.DELETE, support);
+        verify(template, times(1)).changeStream(isNull(), eq("employees"), any(ChangeStreamOptions.class),
+                eq(EmployeeDocument.class));
+    }
+
+    @Test
+    void updateThatLeavesTheFilterIsSentAsRemoved() throws Exception {
+        ObjectId movedOut = new ObjectId();
+        ObjectId neverIn = new ObjectId();
+        ObjectId unknown = new ObjectId();
+        CompletableFuture<List<ServerSentEvent<EmployeeChangeEvent>>> filtered = feed.subscribe(Map.of("department", "Sales"), null)
+                .take(2).collectList().toFuture();
+
+        changes.tryEmitNext(update("t1", movedOut, "Support", "Sales"));
+        // the pre-image shows it was never in the filter
+        changes.tryEmitNext(update("t2", neverIn, "Marketing", "Support"));
+        // no pre-image: it may have been in the filter, so the client is told
+        changes.tryEmitNext(update("t3", unknown, "Support", null));
+
+        List<ServerSentEvent<EmployeeChangeEvent>> events = filtered.get(5, TimeUnit.SECONDS);
+        assertEvent(events.get(0), "t1", EmployeeChangeEvent.Type.REMOVED, movedOut);
+        assertThat(events.get(0).data().employee()).isNull();
+        assertEvent(events.get(1), "t3", EmployeeChangeEvent.Type.REMOVED, unknown);
+    }
+
+    @Test
+    void reconnectingSubscriberIsReplayedWhatItMissedOrToldToReset() {
+        ObjectId id = new ObjectId();
+        StepVerifier.create(feed.subscribe(Map.of(), null))
+                .then(() -> {
+                    changes.tryEmitNext(upsert("insert", "t1", id, "Sales"));
+                    changes.tryEmitNext(upsert("update", "t2", id, "Support"));
+                })
+                .expectNextCount(2)
+                .then(() -> {
+                    StepVerifier.create(feed.subscribe(Map.of(), "t1"))
+                            .assertNext(event -> assertEvent(event, "t2", EmployeeChangeEvent.Type.UPDATE, id))
+                            .thenCancel()
+                            .verify(Duration.ofSeconds(5));
+                    StepVerifier.create(feed.subscribe(Map.of(), "evicted"))
+                            .assertNext(event -> {
+                                assertThat(event.event()).isEqualTo("reset");
+                                assertThat(event.id()).isEqualTo("t2");
+                            })
+                            .thenCancel()
+                            .verify(Duration.ofSeconds(5));
+                })
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    void slowSubscriberIsDisconnectedAfterItsBufferFills() {
+        ObjectId id = new ObjectId();
+
+        StepVerifier.create(feed.subscribe(Map.of(), null), 0)
+                .then(() -> {
+                    // two buffered, one taken ahead by the merge with the heartbeats, one too many
+                    for (int i = 1; i <= 4; i++) {
+                        changes.tryEmitNext(upsert("update", "t" + i, id, "Sales"));
+                    }
+                })
+                .thenRequest(Long.MAX_VALUE)
+                .assertNext(event -> assertThat(event.id()).isEqualTo("t1"))
+                .assertNext(event -> assertThat(event.id()).isEqualTo("t2"))
+                .assertNext(event -> assertThat(event.id()).isEqualTo("t3"))
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+
+        assertThat(meterRegistry.get("employees.stream.dropped").counter().count()).isEqualTo(1);
+        assertThat(feed.subscriberCount()).isZero();
+    }
+
+    private static void assertEvent(ServerSentEvent<EmployeeChangeEvent> event, String token,
+                                    EmployeeChangeEvent.Type type, ObjectId id) {
+        assertThat(event.id()).isEqualTo(token);
+        assertThat(event.event()).isEqualTo(type.eventName());
+        assertThat(event.data().type()).isEqualTo(type);
+        assertThat(event.data().id()).isEqualTo(id.toHexString());
+    }
+
+    private ChangeStreamEvent<EmployeeDocument> upsert(String operation, String token, ObjectId id, String department) {
+        return event(operation, token, id, employee(id, department), null);
+    }
+
+    private ChangeStreamEvent<EmployeeDocument> update(String token, ObjectId id, String department, String before) {
+        return event("update", token, id, employee(id, department), before == null ? null : employee(id, before));
+    }
+
+    private ChangeStreamEvent<EmployeeDocument> delete(String token, ObjectId id) {
+        return event("delete", token, id, null, null);
+    }
+
+    private static Document employee(ObjectId id, String department) {
+        return new Document("_id", id)
+                .append("attributes", new Document("department", department))
+                .append("deleted", false)
+                .append("version", 1L);
+    }
+
+    private ChangeStreamEvent<EmployeeDocument> event(String operation, String token, ObjectId id, Document fullDocument,
+                                                      Document beforeChange) {
+        ChangeStreamDocument<Document> raw = new ChangeStreamDocument<>(operation,
+                new BsonDocument("_data", new BsonString(token)), null, null, fullDocument, beforeChange,
+                new BsonDocument("_id", new BsonObjectId(id)), null, null, null, null, null, null, null);
+        return new ChangeStreamEvent<>(raw, EmployeeDocument.class, converter);
+    }
+}
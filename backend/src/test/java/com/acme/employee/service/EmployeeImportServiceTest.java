@@ -0,0 +1,178 @@
+package com.acme.employee.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+
+import com.acme.employee.config.AppProperties;
+import com.acme.employee.dto.EmployeeResponse;
+import com.acme.employee.dto.ImportFormat;
+import com.acme.employee.mapper.EmployeeCsvMapper;
+import com.acme.employee.mapper.EmployeeMapper;
+import com.acme.employee.model.EmployeeDocument;
+import com.acme.employee.schema.SchemaField;
+import com.acme.employee.schema.SchemaFieldType;
+import com.acme.employee.schema.SchemaResult;
+import com.acme.employee.support.CollectionNameProvider;
+import com.acme.employee.support.SingleFlight;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class EmployeeImportServiceTest {
+
+    @Mock
+    private ReactiveMongoTemplate template;
+
+    @Mock
+    private SchemaDiscoveryService schemaDiscoveryService;
+
+    @Mock
+    private SchemaRegistry schemaRegistry;
+
+    @Mock
+    private SuggestionIndex suggestionIndex;
+
+    @Mock
+    private ReactiveBulkOperations bulkOperations;
+
+    private final EmployeeCsvMapper csvMapper = new EmployeeCsvMapper(new ObjectMapper());
+    private EmployeeImportService service;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        AppProperties properties = AppProperties.builder().bulk(new AppProperties.BulkProperties(2, 1, 1024)).build();
+        service = new EmployeeImportService(template, new EmployeeMapper(), csvMapper,
+                objectMapper, schemaDiscoveryService, schemaRegistry, suggestionIndex,
+                new SingleFlight<>("list", new SimpleMeterRegistry()), new CollectionNameProvider("employees"), properties);
+
+        when(template.bulkOps(BulkOperations.BulkMode.UNORDERED, EmployeeDocument.class, "employees"))
+                .thenReturn(bulkOperations);
+        when(bulkOperations.insert(anyList())).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(Mono.just(BulkWriteResult.acknowledged(2, 0, 0, 0, List.of(), List.of())));
+        when(schemaRegistry.observe(eq("employees"), anyCollection())).thenReturn(Mono.empty());
+        lenient().when(schemaDiscoveryService.discover(eq("employees"), anyInt())).thenReturn(Mono.empty());
+    }
+
+    @Test
+    void importsNdjsonSplitAcrossBuffersInBatches() {
+        Flux<DataBuffer> body = chunks("{\"firstName\":\"Ja", "ne\"}\n{\"firstName\":\"John\"}\nnot json\n", "{\"_id\":\"x\"}\n");
+
+        StepVerifier.create(service.importRecords(body, ImportFormat.NDJSON))
+                .assertNext(progress -> {
+                    assertThat(progress.processed()).isEqualTo(2);
+                    assertThat(progress.inserted()).isEqualTo(2);
+                })
+                .assertNext(progress -> {
+                    assertThat(progress.processed()).isEqualTo(4);
+                    assertThat(progress.failed()).isEqualTo(2);
+                    assertThat(progress.errors()).hasSize(2);
+                })
+                .assertNext(progress -> {
+                    assertThat(progress.completed()).isTrue();
+                    assertThat(progress.inserted()).isEqualTo(2);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void importsCsvUsingHeaderRow() {
+        Flux<DataBuffer> body = chunks("firstName,city\r\n", "Jane,\"Paris, FR\"\r\nJohn,\n");
+
+        StepVerifier.create(service.importRecords(body, ImportFormat.CSV).last())
+                .assertNext(progress -> {
+                    assertThat(progress.completed()).isTrue();
+                    assertThat(progress.inserted()).isEqualTo(2);
+                    assertThat(progress.errors()).isEqualTo(List.of());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void csvExportImportsBackWithItsTypesAndWithoutServerColumns() {
+        Map<String, Object> attributes = Map.of("lastName", "=Smith", "city", "Paris, FR", "grade", 7L,
+                "active", true, "hiredOn", Instant.parse("2024-05-01T10:15:30Z"), "tags", List.of("remote", "lead"));
+        when(schemaDiscoveryService.discover(eq("employees"), anyInt())).thenReturn(Mono.just(new SchemaResult("employees", 1,
+                Instant.now(), Map.of("lastName", field("lastName", SchemaFieldType.STRING),
+                "city", field("city", SchemaFieldType.STRING), "grade", field("grade", SchemaFieldType.NUMBER),
+                "active", field("active", SchemaFieldType.BOOLEAN), "hiredOn", field("hiredOn", SchemaFieldType.DATE),
+                "tags", field("tags", SchemaFieldType.ARRAY)))));
+        List<String> columns = csvMapper.columns(List.of("lastName", "city", "grade", "active", "hiredOn", "tags"));
+        EmployeeResponse employee = new EmployeeResponse("66a1f0c2e4b0a1b2c3d4e5f6", attributes, false,
+                Instant.parse("2024-05-01T10:15:30Z"), Instant.parse("2024-05-02T08:00:00Z"), 3);
+        Flux<DataBuffer> body = chunks(csvMapper.headerLine(columns), csvMapper.toLine(employee, columns));
+
+        StepVerifier.create(service.importRecords(body, ImportFormat.CSV).last())
+                .assertNext(progress -> assertThat(progress.inserted()).isEqualTo(1))
+                .verifyComplete();
+        ArgumentCaptor<List<EmployeeDocument>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(bulkOperations).insert(inserted.capture());
+        assertThat(inserted.getValue()).singleElement()
+                .satisfies(document -> assertThat(document.getAttributes()).isEqualTo(attributes));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void duplicateInABatchFailsOnlyThatRowAndTheRestAreRecorded() {
+        BulkWriteError duplicate = new BulkWriteError(11000, "E11000 duplicate key error", new BsonDocument(), 1);
+        when(bulkOperations.execute()).thenReturn(Mono.error(new MongoBulkWriteException(
+                BulkWriteResult.acknowledged(1, 0, 0, 0, List.of(), List.of()), List.of(duplicate), null,
+                new ServerAddress(), Set.of())));
+        Flux<DataBuffer> body = chunks("{\"email\":\"a@x\"}\n{\"email\":\"a@x\"}\n");
+
+        StepVerifier.create(service.importRecords(body, ImportFormat.NDJSON).last())
+                .assertNext(progress -> {
+                    assertThat(progress.inserted()).isEqualTo(1);
+                    assertThat(progress.failed()).isEqualTo(1);
+                    assertThat(progress.errors()).containsExactly("line 2: E11000 duplicate key error");
+                })
+                .verifyComplete();
+        ArgumentCaptor<List<Map<String, Object>>> written = ArgumentCaptor.forClass(List.class);
+        verify(schemaRegistry).observe(eq("employees"), written.capture());
+        assertThat(written.getValue()).containsExactly(Map.of("email", "a@x"));
+        verify(suggestionIndex).add(written.getValue());
+    }
+
+    private static SchemaField field(String name, SchemaFieldType type) {
+        return new SchemaField(name, type, false, true, null);
+    }
+
+    private Flux<DataBuffer> chunks(String... parts) {
+        return Flux.fromArray(parts)
+                .map(part -> DefaultDataBufferFactory.sharedInstance.wrap(part.getBytes(StandardCharsets.UTF_8)));
+    }
+}
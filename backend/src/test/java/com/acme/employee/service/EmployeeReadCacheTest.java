@@ -0,0 +1,91 @@
+package com.acme.employee.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.acme.employee.config.AppProperties;
+import com.acme.employee.dto.EmployeeResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class EmployeeReadCacheTest {
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    private final AtomicInteger loads = new AtomicInteger();
+    private EmployeeReadCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new EmployeeReadCache(AppProperties.defaults(), new SimpleMeterRegistry(), invalidationBus);
+    }
+
+    @Test
+    void missingIdsAreCachedUntilAWriteReplacesThem() {
+        StepVerifier.create(cache.get("e1", this::missing)).verifyComplete();
+        StepVerifier.create(cache.get("e1", this::missing)).verifyComplete();
+        assertThat(loads).hasValue(1);
+
+        cache.put(employee("e1", 2));
+
+        StepVerifier.create(cache.get("e1", this::missing)).expectNext(employee("e1", 2)).verifyComplete();
+        assertThat(loads).hasValue(1);
+        verify(invalidationBus).evict("employees", "e1");
+    }
+
+    @Test
+    void invalidatedEntriesAreLoadedAgain() {
+        StepVerifier.create(cache.get("e1", id -> load(employee(id, 1)))).expectNextCount(1).verifyComplete();
+        StepVerifier.create(cache.get("e1", id -> load(employee(id, 1)))).expectNextCount(1).verifyComplete();
+
+        cache.invalidate("e1");
+
+        StepVerifier.create(cache.get("e1", this::missing)).verifyComplete();
+        assertThat(loads).hasValue(2);
+        verify(invalidationBus).evict("employees", "e1");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void evictionsFromOtherReplicasDropTheEntry() {
+        ArgumentCaptor<Consumer<String>> evict = ArgumentCaptor.forClass(Consumer.class);
+        verify(invalidationBus).register(eq("employees"), evict.capture(), any(Runnable.class));
+        cache.put(employee("e1", 1));
+
+        evict.getValue().accept("e1");
+
+        StepVerifier.create(cache.get("e1", this::missing)).verifyComplete();
+        assertThat(loads).hasValue(1);
+    }
+
+    private Mono<EmployeeResponse> missing(String id) {
+        return load(null);
+    }
+
+    private Mono<EmployeeResponse> load(EmployeeResponse employee) {
+        loads.incrementAndGet();
+        return Mono.justOrEmpty(employee);
+    }
+
+    private static EmployeeResponse employee(String id, long version) {
+        return new EmployeeResponse(id, Map.of("lastName", "Smith"), false, Instant.EPOCH, Instant.EPOCH, version);
+    }
+}
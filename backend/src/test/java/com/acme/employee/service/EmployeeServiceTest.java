@@ -0,0 +1,493 @@
+package com.acme.employee.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveBulkOperations;
+import org.springframework.data.mongodb.core.ReactiveCollectionCallback;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.TypedAggregation;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import com.acme.employee.config.AppProperties;
+import com.acme.employee.dto.BulkEmployeeItem;
+import com.acme.employee.dto.BulkItemResult;
+import com.acme.employee.dto.BulkResponse;
+import com.acme.employee.dto.CountStrategy;
+import com.acme.employee.dto.EmployeePatchRequest;
+import com.acme.employee.dto.EmployeeQueryParams;
+import com.acme.employee.dto.EmployeeResponse;
+import com.acme.employee.dto.EmployeeUpsertRequest;
+import com.acme.employee.dto.FacetResponse;
+import com.acme.employee.dto.PageResponse;
+import com.acme.employee.dto.RawEmployee;
+import com.acme.employee.dto.SearchMode;
+import com.acme.employee.dto.VersionedEmployee;
+import com.acme.employee.exception.BadRequestException;
+import com.acme.employee.exception.ResourceNotFoundException;
+import com.acme.employee.mapper.EmployeeCsvMapper;
+import com.acme.employee.mapper.EmployeeMapper;
+import com.acme.employee.model.EmployeeDocument;
+import com.acme.employee.schema.SchemaField;
+import com.acme.employee.schema.SchemaFieldType;
+import com.acme.employee.schema.SchemaResult;
+import com.acme.employee.support.CollectionNameProvider;
+import com.acme.employee.support.PageCursor;
+import com.acme.employee.support.SingleFlight;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class EmployeeServiceTest {
+
+    @Mock
+    private ReactiveMongoTemplate template;
+
+    @Mock
+    private SchemaDiscoveryService schemaDiscoveryService;
+
+    @Mock
+    private IndexAdvisor indexAdvisor;
+
+    @Mock
+    private SchemaRegistry schemaRegistry;
+
+    @Mock
+    private EmployeeReadCache readCache;
+
+    @Mock
+    private SuggestionIndex suggestionIndex;
+
+    private EmployeeService service;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final SchemaResult schema = new SchemaResult("employees", 10, Instant.EPOCH, Map.of(
+            "department", new SchemaField("department", SchemaFieldType.STRING, true, false, null),
+            "salary", new SchemaField("salary", SchemaFieldType.NUMBER, true, false, null),
+            "skills", new SchemaField("skills", SchemaFieldType.ARRAY, true, false, SchemaFieldType.STRING),
+            "hiredAt", new SchemaField("hiredAt", SchemaFieldType.DATE, true, false, null)));
+
+    @BeforeEach
+    void setUp() {
+        service = service(false);
+        // writes do not look the schema up
+        lenient().when(schemaDiscoveryService.discover("employees", 0)).thenReturn(Mono.just(schema));
+    }
+
+    private EmployeeService service(boolean rawBson) {
+        return service(rawBson, suggestionIndex);
+    }
+
+    private EmployeeService service(boolean rawBson, SuggestionIndex suggestionIndex) {
+        AppProperties properties = AppProperties.builder()
+                .list(new AppProperties.ListProperties(CountStrategy.EXACT, 30, rawBson))
+                .facets(new AppProperties.FacetProperties(2, 3, 60, 100))
+                .build();
+        return new EmployeeService(null, template, new EmployeeMapper(), new EmployeeCsvMapper(new ObjectMapper()),
+                schemaDiscoveryService, schemaRegistry, new CollectionNameProvider("employees"), readCache,
+                new SingleFlight<>("list", meterRegistry), suggestionIndex, indexAdvisor,
+                new QueryProfiler(template, meterRegistry, properties), properties, meterRegistry);
+    }
+
+    @Test
+    void facetsCountEveryFieldInOneAggregationAndShareCachedResults() {
+        Document result = new Document("department", List.of(new Document("_id", "Sales").append("count", 7)))
+                .append("skills", List.of(new Document("_id", "java").append("count", 4),
+                        new Document("_id", "mongo").append("count", 2)));
+        when(template.aggregate(any(TypedAggregation.class), eq("employees"), eq(Document.class)))
+                .thenReturn(Flux.just(result));
+
+        Map<String, String> filters = new LinkedHashMap<>();
+        filters.put("salary", "gt:1000");
+        filters.put("department", "Sales");
+        Map<String, String> reordered = new LinkedHashMap<>();
+        reordered.put("department", "Sales");
+        reordered.put("salary", "gt:1000");
+
+        FacetResponse first = service.facets(query(filters), List.of("skills", "department")).block();
+        FacetResponse second = service.facets(query(reordered), List.of("department", " skills")).block();
+
+        assertThat(first.facets()).containsOnlyKeys("department", "skills");
+        assertThat(first.facets().get("skills")).containsExactly(
+                new FacetResponse.Bucket("java", 4), new FacetResponse.Bucket("mongo", 2));
+        assertThat(second).isEqualTo(first);
+
+        ArgumentCaptor<TypedAggregation<?>> aggregation = ArgumentCaptor.forClass(TypedAggregation.class);
+        verify(template, times(1)).aggregate(aggregation.capture(), eq("employees"), eq(Document.class));
+        List<Document> pipeline = aggregation.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertThat(pipeline).hasSize(2);
+        assertThat(pipeline.getFirst()).containsKey("$match");
+        Document facets = pipeline.get(1).get("$facet", Document.class);
+        assertThat(facets.getList("skills", Document.class).getFirst())
+                .isEqualTo(new Document("$unwind", "$attributes.skills"));
+        assertThat(facets.getList("department", Document.class)).last()
+                .isEqualTo(new Document("$limit", 3));
+    }
+
+    @Test
+    void facetsRejectUnknownUnfacetableOrTooManyFields() {
+        StepVerifier.create(service.facets(query(Map.of()), List.of("nickname")))
+                .expectError(BadRequestException.class)
+                .verify();
+        StepVerifier.create(service.facets(query(Map.of()), List.of("hiredAt")))
+                .expectError(BadRequestException.class)
+                .verify();
+        StepVerifier.create(service.facets(query(Map.of()), List.of("department", "salary", "skills")))
+                .expectError(BadRequestException.class)
+                .verify();
+    }
+
+    @Test
+    void projectedListLoadsOnlyRequestedAttributesAndETagFields() {
+        when(template.count(any(Query.class), eq(EmployeeDocument.class), eq("employees"))).thenReturn(Mono.just(1L));
+        EmployeeDocument document = EmployeeDocument.builder()
+                .id("e1")
+                .attributes(new HashMap<>(Map.of("lastName", "Smith")))
+                .version(3)
+                .build();
+        when(template.find(any(Query.class), eq(EmployeeDocument.class), eq("employees"))).thenReturn(Flux.just(document));
+        EmployeeQueryParams params = new EmployeeQueryParams(0, 20, "createdAt", null, null, Map.of(), "", null, null,
+                Set.of("lastName", "createdAt"));
+
+        PageResponse<VersionedEmployee> page = service.list(params).block();
+
+        assertThat(page.content()).singleElement().isInstanceOfSatisfying(EmployeeResponse.class,
+                employee -> assertThat(employee.attributes()).isEqualTo(Map.of("lastName", "Smith")));
+        ArgumentCaptor<Query> find = ArgumentCaptor.forClass(Query.class);
+        verify(template).find(find.capture(), eq(EmployeeDocument.class), eq("employees"));
+        assertThat(find.getValue().getFieldsObject()).isEqualTo(new Document("_id", 1).append("version", 1)
+                .append("updatedAt", 1).append("attributes.lastName", 1).append("createdAt", 1));
+    }
+
+    @Test
+    void identicalConcurrentListsShareOneCountAndFind() {
+        Sinks.One<EmployeeDocument> found = Sinks.one();
+        when(template.count(any(Query.class), eq(EmployeeDocument.class), eq("employees"))).thenReturn(Mono.just(1L));
+        when(template.find(any(Query.class), eq(EmployeeDocument.class), eq("employees"))).thenReturn(found.asMono().flux());
+        EmployeeQueryParams ascending = new EmployeeQueryParams(0, 20, "lastName", "asc", null, Map.of("department", "Sales"),
+                null, null, null, null);
+        EmployeeQueryParams upperCase = new EmployeeQueryParams(0, 20, "lastName", "ASC", null, Map.of("department", "Sales"),
+                null, null, null, null);
+
+        StepVerifier.create(Mono.zip(service.list(ascending), service.list(upperCase)))
+                .then(() -> found.tryEmitValue(EmployeeDocument.builder().id("e1").attributes(new HashMap<>()).build()))
+                .assertNext(pages -> assertThat(pages.getT1()).isSameAs(pages.getT2()))
+                .verifyComplete();
+        verify(template, times(1)).find(any(Query.class), eq(EmployeeDocument.class), eq("employees"));
+        verify(template, times(1)).count(any(Query.class), eq(EmployeeDocument.class), eq("employees"));
+    }
+
+    @Test
+    void exactCountIsFlaggedExact() {
+        when(template.count(any(Query.class), eq(EmployeeDocument.class), eq("employees"))).thenReturn(Mono.just(42L));
+        when(template.find(any(Query.class), eq(EmployeeDocument.class), eq("employees"))).thenReturn(Flux.empty());
+
+        PageResponse<VersionedEmployee> page = service.list(counted(CountStrategy.EXACT, Map.of())).block();
+
+        assertThat(page.totalElements()).isEqualTo(42);
+        assertThat(page.totalExact()).isTrue();
+        verify(template, never()).estimatedCount(any(String.class));
+    }
+
+    @Test
+    void estimatedCountLeavesOutSoftDeletedRowsAndIsFlaggedApproximate() {
+        when(template.estimatedCount("employees")).thenReturn(Mono.just(50L));
+        when(template.count(any(Query.class), eq(EmployeeDocument.class), eq("employees"))).thenReturn(Mono.just(8L));
+        when(template.find(any(Query.class), eq(EmployeeDocument.class), eq("employees"))).thenReturn(Flux.empty());
+
+        PageResponse<VersionedEmployee> page = service.list(counted(CountStrategy.ESTIMATED, Map.of())).block();
+
+        assertThat(page.totalElements()).isEqualTo(42);
+        assertThat(page.totalExact()).isFalse();
+        ArgumentCaptor<Query> count = ArgumentCaptor.forClass(Query.class);
+        verify(template).count(count.capture(), eq(EmployeeDocument.class), eq("employees"));
+        assertThat(count.getValue().getQueryObject()).isEqualTo(new Document("deleted", true));
+    }
+
+    @Test
+    void estimatedCountFallsBackToAnExactCountWhenFiltered() {
+        when(template.count(any(Query.class), eq(EmployeeDocument.class), eq("employees"))).thenReturn(Mono.just(3L));
+        when(template.find(any(Query.class), eq(EmployeeDocument.class), eq("employees"))).thenReturn(Flux.empty());
+
+        PageResponse<VersionedEmployee> page = service.list(counted(CountStrategy.ESTIMATED,
+                Map.of("department", "Sales"))).block();
+
+        assertThat(page.totalElements()).isEqualTo(3);
+        assertThat(page.totalExact()).isTrue();
+        verify(template, never()).estimatedCount(any(String.class));
+    }
+
+    @Test
+    void noCountStrategyNeverCounts() {
+        when(template.find(any(Query.class), eq(EmployeeDocument.class), eq("employees"))).thenReturn(Flux.just(
+                EmployeeDocument.builder().id("e1").attributes(new HashMap<>()).build()));
+
+        PageResponse<VersionedEmployee> page = service.list(counted(CountStrategy.NONE, Map.of())).block();
+
+        assertThat(page.totalElements()).isEqualTo(1);
+        assertThat(page.totalExact()).isFalse();
+        verify(template, never()).count(any(Query.class), eq(EmployeeDocument.class), any(String.class));
+        verify(template, never()).estimatedCount(any(String.class));
+    }
+
+    @Test
+    void pagesAfterACursorAreNotCounted() {
+        when(template.find(any(Query.class), eq(EmployeeDocument.class), eq("employees"))).thenReturn(Flux.just(
+                EmployeeDocument.builder().id("e2").attributes(new HashMap<>()).build()));
+        String cursor = new PageCursor("_id", "e1", "e1").encode();
+        EmployeeQueryParams params = new EmployeeQueryParams(0, 20, null, null, null, Map.of(), cursor,
+                CountStrategy.EXACT, null, null);
+
+        PageResponse<VersionedEmployee> page = service.list(params).block();
+
+        assertThat(page.content()).hasSize(1);
+        assertThat(page.totalExact()).isFalse();
+        assertThat(page.hasPrevious()).isTrue();
+        verify(template, never()).count(any(Query.class), eq(EmployeeDocument.class), any(String.class));
+    }
+
+    @Test
+    void bulkUpsertCountsEveryRowAndReportsOnlyFailures() {
+        ReactiveBulkOperations operations = mock(ReactiveBulkOperations.class);
+        when(template.bulkOps(BulkOperations.BulkMode.UNORDERED, EmployeeDocument.class, "employees")).thenReturn(operations);
+        // operations 0 and 1 are the upserts by id, 2 the insert; e1 is new, e2 existed, e3 is rejected
+        when(operations.execute()).thenReturn(Mono.error(new MongoBulkWriteException(
+                BulkWriteResult.acknowledged(1, 1, 0, 1, List.of(new BulkWriteUpsert(0, new BsonString("e1"))), List.of()),
+                List.of(new BulkWriteError(121, "Document failed validation", new BsonDocument(), 3)),
+                null, new ServerAddress(), Set.of())));
+        when(schemaRegistry.observe(eq("employees"), anyList())).thenReturn(Mono.empty());
+
+        BulkResponse response = service.bulkUpsert(Flux.just(
+                new BulkEmployeeItem("e1", Map.of("lastName", "Adams")),
+                new BulkEmployeeItem("e2", Map.of("lastName", "Baker")),
+                new BulkEmployeeItem(null, Map.of("lastName", "Clark")),
+                new BulkEmployeeItem("e3", Map.of("lastName", "Davis")),
+                new BulkEmployeeItem("e4", Map.of()))).block();
+
+        assertThat(response.total()).isEqualTo(5);
+        assertThat(response.created()).isEqualTo(2);
+        assertThat(response.updated()).isEqualTo(1);
+        assertThat(response.failed()).isEqualTo(2);
+        assertThat(response.failures()).containsExactlyInAnyOrder(
+                BulkItemResult.failed(3, "e3", "Document failed validation"),
+                BulkItemResult.failed(4, "e4", "attributes must not be empty"));
+        verify(readCache).invalidate("e1");
+        verify(readCache).invalidate("e2");
+        verify(readCache, never()).invalidate("e3");
+        // the rows the server accepted are still recorded
+        verify(schemaRegistry).observe("employees", List.of(Map.of("lastName", "Adams"), Map.of("lastName", "Baker"),
+                Map.of("lastName", "Clark")));
+        verify(suggestionIndex).replace(null, Map.of("lastName", "Clark"));
+        verify(suggestionIndex, never()).replace(null, Map.of("lastName", "Davis"));
+    }
+
+    @Test
+    void bulkResponseCountsEveryFailureButListsOnlyTheFirst() {
+        BulkResponse.Tally tally = new BulkResponse.Tally().add(BulkItemResult.created(0, "e0"));
+        for (int i = 1; i <= 250; i++) {
+            tally.add(BulkItemResult.failed(i, null, "attributes must not be empty"));
+        }
+
+        BulkResponse response = tally.toResponse();
+
+        assertThat(response.total()).isEqualTo(251);
+        assertThat(response.failed()).isEqualTo(250);
+        assertThat(response.failures()).hasSize(100).first().isEqualTo(BulkItemResult.failed(1, null,
+                "attributes must not be empty"));
+    }
+
+    @Test
+    void csvExportStreamsAHeaderThenOneLinePerDocument() {
+        Sinks.Many<EmployeeDocument> cursor = Sinks.many().unicast().onBackpressureBuffer();
+        when(template.find(any(Query.class), eq(EmployeeDocument.class), eq("employees"))).thenReturn(cursor.asFlux());
+        EmployeeQueryParams params = new EmployeeQueryParams(0, 0, null, null, null, Map.of(), null, null, null, null);
+
+        // each line goes out as its document arrives, before the cursor is exhausted
+        StepVerifier.create(service.exportCsv(params))
+                .assertNext(header -> assertThat(header).startsWith("id,").endsWith(",createdAt,updatedAt\n"))
+                .then(() -> cursor.tryEmitNext(EmployeeDocument.builder().id("e1")
+                        .attributes(new HashMap<>(Map.of("department", "Sales, EMEA"))).build()))
+                .assertNext(line -> assertThat(line).startsWith("e1,").contains("\"Sales, EMEA\"").endsWith("\n"))
+                .then(() -> {
+                    cursor.tryEmitNext(EmployeeDocument.builder().id("e2").attributes(new HashMap<>()).build());
+                    cursor.tryEmitComplete();
+                })
+                .assertNext(line -> assertThat(line).startsWith("e2,"))
+                .verifyComplete();
+        ArgumentCaptor<Query> find = ArgumentCaptor.forClass(Query.class);
+        verify(template).find(find.capture(), eq(EmployeeDocument.class), eq("employees"));
+        assertThat(find.getValue().getMeta().getCursorBatchSize()).isPositive();
+    }
+
+    @Test
+    void writesReplaceTheCachedEmployeeAndDeletesDropIt() {
+        // findAndModify returns the pre-image; the response is the document the update leaves behind
+        EmployeeDocument stored = EmployeeDocument.builder().id("e1")
+                .attributes(new HashMap<>(Map.of("lastName", "Smith"))).searchText("Smith").version(1).build();
+        when(template.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(EmployeeDocument.class), eq("employees"))).thenReturn(Mono.just(stored));
+        when(template.findAndModify(any(Query.class), any(Update.class), eq(EmployeeDocument.class), eq("employees")))
+                .thenReturn(Mono.just(stored));
+        when(schemaRegistry.observe(eq("employees"), anyList())).thenReturn(Mono.empty());
+
+        StepVerifier.create(service.replace("e1", new EmployeeUpsertRequest(Map.of("lastName", "Smith")), null))
+                .expectNextCount(1)
+                .verifyComplete();
+        ArgumentCaptor<EmployeeResponse> cached = ArgumentCaptor.forClass(EmployeeResponse.class);
+        verify(readCache).put(cached.capture());
+        assertThat(cached.getValue().version()).isEqualTo(2);
+
+        StepVerifier.create(service.delete("e1", true, null)).verifyComplete();
+        verify(readCache).invalidate("e1");
+        verify(suggestionIndex).remove(List.of(Map.of("lastName", "Smith")));
+    }
+
+    @Test
+    void updatedAndDeletedValuesLeaveTheSuggestionIndex() {
+        SuggestionIndex index = new SuggestionIndex(template, new CollectionNameProvider("employees"),
+                AppProperties.defaults(), meterRegistry);
+        EmployeeService service = service(false, index);
+        index.add(List.of(Map.of("lastName", "Smith")));
+        when(template.findAndModify(any(Query.class), any(UpdateDefinition.class), any(FindAndModifyOptions.class),
+                eq(EmployeeDocument.class), eq("employees")))
+                .thenReturn(Mono.just(stored("Smith", Map.of(), 1)), Mono.just(stored("Smyth", Map.of(), 2)));
+        when(template.findAndModify(any(Query.class), any(Update.class), eq(EmployeeDocument.class), eq("employees")))
+                .thenReturn(Mono.just(stored("Smyth", Map.of("email", "s@acme.com"), 3)));
+        when(schemaRegistry.observe(eq("employees"), anyList())).thenReturn(Mono.empty());
+
+        StepVerifier.create(service.replace("e1", new EmployeeUpsertRequest(Map.of("lastName", "Smyth")), null))
+                .assertNext(employee -> assertThat(employee.version()).isEqualTo(2))
+                .verifyComplete();
+        StepVerifier.create(service.patch("e1", new EmployeePatchRequest(Map.of("email", "s@acme.com")), null))
+                .assertNext(employee -> assertThat(employee.attributes())
+                        .containsEntry("lastName", "Smyth").containsEntry("email", "s@acme.com"))
+                .verifyComplete();
+        assertThat(index.suggest("lastName", "sm", 10)).containsExactly("Smyth");
+
+        StepVerifier.create(service.delete("e1", true, null)).verifyComplete();
+        assertThat(index.suggest("lastName", "sm", 10)).isEmpty();
+        assertThat(index.suggest("email", "s", 10)).isEmpty();
+    }
+
+    private static EmployeeDocument stored(String lastName, Map<String, Object> more, long version) {
+        Map<String, Object> attributes = new HashMap<>(more);
+        attributes.put("lastName", lastName);
+        return EmployeeDocument.builder().id("e1").attributes(attributes).version(version).build();
+    }
+
+    @Test
+    void failedDeletesStillDropTheCachedEmployee() {
+        when(template.findAndRemove(any(Query.class), eq(EmployeeDocument.class), eq("employees"))).thenReturn(Mono.empty());
+
+        StepVerifier.create(service.delete("e1", false, null)).expectError(ResourceNotFoundException.class).verify();
+        verify(readCache).invalidate("e1");
+    }
+
+    @Test
+    void missingTextIndexFallsBackToRegexAndRecordsTheRequestOnce() {
+        when(template.count(any(Query.class), eq(EmployeeDocument.class), eq("employees"))).thenReturn(Mono.just(0L));
+        when(template.find(any(Query.class), eq(EmployeeDocument.class), eq("employees")))
+                .thenReturn(Flux.error(new MongoException(27, "text index required for $text query")))
+                .thenReturn(Flux.empty());
+        EmployeeQueryParams params = new EmployeeQueryParams(0, 20, null, null, "smith", Map.of(), null, null,
+                SearchMode.TEXT, null);
+
+        StepVerifier.create(service.list(params)).expectNextCount(1).verifyComplete();
+
+        ArgumentCaptor<Query> find = ArgumentCaptor.forClass(Query.class);
+        verify(template, times(2)).find(find.capture(), eq(EmployeeDocument.class), eq("employees"));
+        assertThat(find.getAllValues().get(1).getQueryObject().toJson()).doesNotContain("$text");
+        verify(indexAdvisor, times(1)).record(any(EmployeeQueryParams.class));
+        assertThat(meterRegistry.get("employees.list.page.size").summary().count()).isEqualTo(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rawBsonPagesKeepDriverBytesAndBuildTheCursorFromThem() {
+        EmployeeService raw = service(true);
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+        when(template.getConverter()).thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext));
+        when(template.count(any(Query.class), eq(EmployeeDocument.class), eq("employees"))).thenReturn(Mono.just(2L));
+        ObjectId first = new ObjectId();
+        RawBsonDocument adams = RawBsonDocument.parse("{_id: {$oid: '%s'}, attributes: {lastName: 'Adams'}, version: 2}"
+                .formatted(first.toHexString()));
+        RawBsonDocument baker = RawBsonDocument.parse("{_id: {$oid: '%s'}, attributes: {lastName: 'Baker'}, version: 1}"
+                .formatted(new ObjectId().toHexString()));
+        when(template.execute(eq("employees"), any(ReactiveCollectionCallback.class))).thenReturn(Flux.just(adams, baker));
+        EmployeeQueryParams params = new EmployeeQueryParams(0, 1, "lastName", null, null, Map.of(), "", null, null, null);
+
+        PageResponse<VersionedEmployee> page = raw.list(params).block();
+
+        assertThat(page.content()).singleElement().isEqualTo(new RawEmployee(adams));
+        assertThat(page.content().getFirst().id()).isEqualTo(first.toHexString());
+        assertThat(PageCursor.decode(page.nextCursor()))
+                .isEqualTo(new PageCursor("attributes.lastName", "Adams", first.toHexString()));
+        verify(template, never()).find(any(Query.class), eq(EmployeeDocument.class), any(String.class));
+    }
+
+    @Test
+    void projectionRejectsNestedOrOperatorFieldNames() {
+        EmployeeQueryParams params = new EmployeeQueryParams(0, 20, null, null, null, Map.of(), null, null, null,
+                Set.of("address.city"));
+
+        StepVerifier.create(service.list(params))
+                .expectError(BadRequestException.class)
+                .verify();
+    }
+
+    private static EmployeeQueryParams counted(CountStrategy strategy, Map<String, String> filters) {
+        return new EmployeeQueryParams(0, 20, null, null, null, filters, null, strategy, null, null);
+    }
+
+    private static EmployeeQueryParams query(Map<String, String> filters) {
+        return new EmployeeQueryParams(0, 0, null, null, null, filters, null, null, null, null);
+    }
+}
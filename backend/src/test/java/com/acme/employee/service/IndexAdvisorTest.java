@@ -0,0 +1,98 @@
+package com.acme.employee.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+
+import com.acme.employee.config.AppProperties;
+import com.acme.employee.dto.EmployeeQueryParams;
+import com.acme.employee.schema.SchemaField;
+import com.acme.employee.schema.SchemaFieldType;
+import com.acme.employee.schema.SchemaResult;
+import com.acme.employee.support.CollectionNameProvider;
+
+@ExtendWith(MockitoExtension.class)
+class IndexAdvisorTest {
+
+    @Mock
+    private ReactiveMongoTemplate template;
+
+    @Mock
+    private SchemaDiscoveryService schemaDiscoveryService;
+
+    private IndexAdvisor advisor;
+
+    private final SchemaResult schema = new SchemaResult("employees", 10, Instant.EPOCH, Map.of(
+            "department", new SchemaField("department", SchemaFieldType.STRING, true, false, null),
+            "salary", new SchemaField("salary", SchemaFieldType.NUMBER, true, false, null),
+            "address", new SchemaField("address", SchemaFieldType.OBJECT, false, true, null)));
+
+    @BeforeEach
+    void setUp() {
+        AppProperties properties = AppProperties.builder()
+                .indexAdvisor(new AppProperties.IndexAdvisorProperties(false, 2, 3, 0, 2)).build();
+        advisor = new IndexAdvisor(template, schemaDiscoveryService, new CollectionNameProvider("employees"), properties);
+    }
+
+    @Test
+    void ordersCompoundCandidatesEqualitySortRangeAndSkipsUnindexableParts() {
+        for (int i = 0; i < 3; i++) {
+            advisor.record(query("lastName", Map.of("department", "Sales", "salary", "gt:5000", "address", "x",
+                    "title", "contains:eng")));
+        }
+        advisor.record(query(null, Map.of("salary", "lt:10")));
+
+        List<IndexAdvisor.Recommendation> recommendations = advisor.recommend(usage(), schema, List.of());
+
+        assertThat(recommendations).singleElement().satisfies(recommendation -> {
+            assertThat(recommendation.keys()).containsExactly(
+                    "attributes.department", "attributes.lastName", "attributes.salary");
+            assertThat(recommendation.usage()).isEqualTo(3);
+        });
+    }
+
+    @Test
+    void skipsShapesServedByAnExistingIndexPrefix() {
+        advisor.record(query(null, Map.of("lastName", "Smith")));
+        advisor.record(query(null, Map.of("lastName", "Jones")));
+        IndexInfo existing = new IndexInfo(List.of(
+                IndexField.create("attributes.lastName", Sort.Direction.ASC),
+                IndexField.create("attributes.firstName", Sort.Direction.ASC)), "name_idx", false, false, null);
+
+        assertThat(advisor.recommend(usage(), schema, List.of(existing))).isEmpty();
+    }
+
+    @Test
+    void collapsesManySingleFieldCandidatesIntoAWildcardIndex() {
+        for (String field : List.of("a", "b", "c", "d")) {
+            advisor.record(query(null, Map.of(field, "1")));
+            advisor.record(query(null, Map.of(field, "2")));
+        }
+        advisor.record(query("createdAt", Map.of()));
+        advisor.record(query("createdAt", Map.of()));
+
+        assertThat(advisor.recommend(usage(), schema, List.of()))
+                .extracting(IndexAdvisor.Recommendation::keys)
+                .containsExactlyInAnyOrder(List.of("attributes.$**"), List.of("createdAt"));
+    }
+
+    private List<IndexAdvisor.ShapeUsage> usage() {
+        return advisor.usageSnapshot();
+    }
+
+    private static EmployeeQueryParams query(String sort, Map<String, String> filters) {
+        return new EmployeeQueryParams(0, 20, sort, null, null, filters, null, null, null, null);
+    }
+}
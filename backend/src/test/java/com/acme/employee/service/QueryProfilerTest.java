@@ -0,0 +1,126 @@
+package com.acme.employee.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.acme.employee.config.AppProperties;
+import com.mongodb.ExplainVerbosity;
+import com.mongodb.reactivestreams.client.FindPublisher;
+import com.mongodb.reactivestreams.client.MongoCollection;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+class QueryProfilerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final QueryProfiler profiler = new QueryProfiler(null, meterRegistry, AppProperties.defaults());
+    private final Query query = Query.query(Criteria.where("lastName").is("Smith"));
+
+    @Test
+    void failedAndCancelledQueriesAreTimedUnderTheirOutcome() {
+        StepVerifier.create(profiler.profile("find", "employees", query, Mono.just(1))).expectNext(1).verifyComplete();
+        StepVerifier.create(profiler.profile("find", "employees", query, Mono.error(new IllegalStateException())))
+                .verifyError(IllegalStateException.class);
+        StepVerifier.create(profiler.profile("find", "employees", query, Mono.never())).thenCancel().verify();
+
+        for (String outcome : List.of("success", "error", "cancelled")) {
+            assertThat(meterRegistry.get("employees.query").tags("operation", "find", "outcome", outcome).timer()
+                    .count()).isEqualTo(1);
+            assertThat(meterRegistry.get("employees.query.all").tags("operation", "find", "outcome", outcome).timer()
+                    .count()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void onlyTheAllShapesTimerPublishesAHistogram() {
+        PrometheusMeterRegistry prometheus = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        QueryProfiler scraped = new QueryProfiler(null, prometheus, AppProperties.defaults());
+
+        StepVerifier.create(scraped.profile("count", "employees", query, Mono.just(1L))).expectNext(1L).verifyComplete();
+
+        assertThat(prometheus.scrape())
+                .contains("employees_query_all_seconds_bucket")
+                .doesNotContain("employees_query_seconds_bucket");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void explainsTheQueryAsTheFindSentIt() {
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(new MongoCustomConversions(List.of()).getSimpleTypeHolder());
+        ReactiveMongoTemplate template = mock(ReactiveMongoTemplate.class);
+        MongoCollection<Document> collection = mock(MongoCollection.class);
+        FindPublisher<Document> find = mock(FindPublisher.class, RETURNS_SELF);
+        when(template.getConverter()).thenReturn(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext));
+        when(template.getCollection("employees")).thenReturn(Mono.just(collection));
+        when(collection.find(any(Bson.class))).thenReturn(find);
+        when(find.explain(Document.class, ExplainVerbosity.EXECUTION_STATS)).thenReturn(Mono.just(new Document()));
+        QueryProfiler explaining = new QueryProfiler(template, meterRegistry, AppProperties.builder()
+                .queryProfile(new AppProperties.QueryProfileProperties(0, 1.0, 10, 10)).build());
+        ObjectId after = new ObjectId();
+        Query cursorPage = Query.query(Criteria.where("_id").gt(after.toHexString())).limit(20);
+        cursorPage.fields().include("attributes.lastName");
+
+        StepVerifier.create(explaining.profile("find", "employees", cursorPage, Mono.just(1))).expectNext(1).verifyComplete();
+
+        ArgumentCaptor<Bson> filter = ArgumentCaptor.forClass(Bson.class);
+        verify(collection).find(filter.capture());
+        assertThat(filter.getValue()).isEqualTo(new Document("_id", new Document("$gt", after)));
+        verify(find).projection(new Document("attributes.lastName", 1));
+        assertThat(explaining.slowQueries()).singleElement().satisfies(slow -> assertThat(slow.plan()).isNotNull());
+    }
+
+    @Test
+    void summarizesNestedWinningPlan() {
+        Document explain = new Document("queryPlanner", new Document("winningPlan",
+                new Document("stage", "LIMIT").append("inputStage",
+                        new Document("stage", "FETCH").append("inputStage",
+                                new Document("stage", "IXSCAN").append("indexName", "employee_lastName_idx")))))
+                .append("executionStats", new Document("totalDocsExamined", 20)
+                        .append("totalKeysExamined", 21)
+                        .append("nReturned", 20));
+
+        QueryProfiler.ExplainSummary summary = QueryProfiler.summarize(explain);
+
+        assertThat(summary.stages()).containsExactly("LIMIT", "FETCH", "IXSCAN");
+        assertThat(summary.indexes()).containsExactly("employee_lastName_idx");
+        assertThat(summary.docsExamined()).isEqualTo(20);
+        assertThat(summary.collectionScan()).isFalse();
+    }
+
+    @Test
+    void flagsCollectionScans() {
+        Document explain = new Document("queryPlanner", new Document("winningPlan",
+                new Document("stage", "SORT").append("inputStage", new Document("stage", "COLLSCAN"))))
+                .append("executionStats", new Document("totalDocsExamined", 100_000).append("nReturned", 20));
+
+        QueryProfiler.ExplainSummary summary = QueryProfiler.summarize(explain);
+
+        assertThat(summary.collectionScan()).isTrue();
+        assertThat(summary.indexes()).isEqualTo(List.of());
+        assertThat(summary.keysExamined()).isEqualTo(-1);
+    }
+}
@@ -17,9 +17,11 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
 
 import com.acme.employee.config.AppProperties;
+import com.acme.employee.schema.SchemaEngine;
 import com.acme.employee.schema.SchemaFieldType;
 import com.acme.employee.schema.SchemaResult;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import reactor.core.publisher.Flux;
 import reactor.test.StepVerifier;
 
@@ -29,13 +31,18 @@ class SchemaDiscoveryServiceTest {
     @Mock
     private ReactiveMongoTemplate template;
 
+    @Mock
+    private SchemaRegistry schemaRegistry;
+
     private SchemaDiscoveryService service;
 
     @BeforeEach
     void setUp() {
-        AppProperties.SchemaProperties schemaProps = new AppProperties.SchemaProperties(10, 60);
+        AppProperties.SchemaProperties schemaProps = new AppProperties.SchemaProperties(10, 60, SchemaEngine.SAMPLE, 3600);
         AppProperties.CorsProperties corsProps = new AppProperties.CorsProperties(List.of("http://localhost"));
-        service = new SchemaDiscoveryService(template, new AppProperties(schemaProps, corsProps));
+        AppProperties properties = AppProperties.builder().schema(schemaProps).cors(corsProps).build();
+        QueryProfiler queryProfiler = new QueryProfiler(template, new SimpleMeterRegistry(), properties);
+        service = new SchemaDiscoveryService(template, properties, schemaRegistry, queryProfiler);
     }
 
     @Test
@@ -65,5 +72,31 @@ class SchemaDiscoveryServiceTest {
                 })
                 .verifyComplete();
     }
-}
 
+    @Test
+    void buildsSchemaFromAggregatedHistogram() {
+        Document histogram = new Document("documents", List.of(new Document("n", 2)))
+                .append("fields", List.of(
+                        bucket("firstName", "string", null, 2),
+                        bucket("age", "int", null, 1),
+                        bucket("age", "double", null, 1),
+                        bucket("skills", "array", "string", 1),
+                        bucket("manager", "null", null, 1)));
+
+        SchemaResult result = service.buildSchemaFromHistogram("employees", 5, histogram);
+
+        assertThat(result.fields()).containsOnlyKeys("firstName", "age", "skills", "manager");
+        assertThat(result.fields().get("firstName").required()).isTrue();
+        assertThat(result.fields().get("age").type()).isEqualTo(SchemaFieldType.NUMBER);
+        assertThat(result.fields().get("age").required()).isTrue();
+        assertThat(result.fields().get("skills").type()).isEqualTo(SchemaFieldType.ARRAY);
+        assertThat(result.fields().get("skills").arrayItemType()).isEqualTo(SchemaFieldType.STRING);
+        assertThat(result.fields().get("skills").nullable()).isTrue();
+        assertThat(result.fields().get("manager").type()).isEqualTo(SchemaFieldType.NULL);
+    }
+
+    private Document bucket(String key, String type, String itemType, int count) {
+        return new Document("_id", new Document("key", key).append("type", type).append("itemType", itemType))
+                .append("count", count);
+    }
+}
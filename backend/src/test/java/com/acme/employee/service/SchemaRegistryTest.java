@@ -0,0 +1,141 @@
+package com.acme.employee.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.acme.employee.schema.SchemaField;
+import com.acme.employee.schema.SchemaFieldType;
+import com.acme.employee.schema.SchemaResult;
+import com.mongodb.client.result.UpdateResult;
+
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class SchemaRegistryTest {
+
+    @Mock
+    private ReactiveMongoTemplate template;
+
+    @Mock
+    private CacheInvalidationBus invalidationBus;
+
+    private SchemaRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SchemaRegistry(template, new ConcurrentMapCacheManager("schema"), invalidationBus);
+    }
+
+    private void givenPersistedRegistry() {
+        Document persisted = new Document("_id", "employees")
+                .append("observations", List.of(new Document("k", "firstName").append("t", "STRING")))
+                .append("baseline", List.of(new Document("k", "firstName").append("required", true).append("nullable", false)))
+                .append("sampleSize", 200)
+                .append("reconciledAt", new Date());
+        when(template.findById("employees", Document.class, SchemaRegistry.REGISTRY_COLLECTION))
+                .thenReturn(Mono.just(persisted));
+    }
+
+    @Test
+    void writesOnlyObservationsItHasNotSeen() {
+        givenPersistedRegistry();
+        when(template.upsert(any(Query.class), any(Update.class), eq(SchemaRegistry.REGISTRY_COLLECTION)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+
+        StepVerifier.create(registry.observe("employees", List.of(Map.of("firstName", "Jane", "age", 30))))
+                .verifyComplete();
+        StepVerifier.create(registry.observe("employees", List.of(Map.of("firstName", "John", "age", 41))))
+                .verifyComplete();
+
+        verify(template).upsert(any(Query.class), any(Update.class), eq(SchemaRegistry.REGISTRY_COLLECTION));
+    }
+
+    @Test
+    void skipsWritesForKnownShapes() {
+        givenPersistedRegistry();
+        StepVerifier.create(registry.observe("employees", List.of(Map.of("firstName", "Jane"))))
+                .verifyComplete();
+
+        verify(template, never()).upsert(any(Query.class), any(Update.class), eq(SchemaRegistry.REGISTRY_COLLECTION));
+    }
+
+    @Test
+    void snapshotCombinesBaselineWithWritePathObservations() {
+        Document persisted = new Document("_id", "employees")
+                .append("observations", List.of(
+                        new Document("k", "firstName").append("t", "STRING"),
+                        new Document("k", "skills").append("t", "ARRAY").append("i", "STRING")))
+                .append("baseline", List.of(new Document("k", "firstName").append("required", true).append("nullable", false)))
+                .append("reconciledAt", new Date());
+
+        SchemaResult result = SchemaRegistry.Snapshot.fromDocument(persisted).toSchemaResult();
+
+        assertThat(result.fields().get("firstName").required()).isTrue();
+        assertThat(result.fields().get("skills").type()).isEqualTo(SchemaFieldType.ARRAY);
+        assertThat(result.fields().get("skills").arrayItemType()).isEqualTo(SchemaFieldType.STRING);
+        assertThat(result.fields().get("skills").required()).isFalse();
+        assertThat(result.fields().get("skills").nullable()).isTrue();
+    }
+
+    @Test
+    void reconcileRebuildsObservationsFromTheSampleAndRecentWrites() {
+        Document reconciled = new Document("_id", "employees")
+                .append("observations", List.of(new Document("k", "lastName").append("t", "STRING"),
+                        new Document("k", "age").append("t", "NUMBER")))
+                .append("sampled", List.of(new Document("k", "lastName").append("t", "STRING")))
+                .append("recent", List.of())
+                .append("reconciledAt", new Date());
+        when(template.findAndModify(any(Query.class), any(AggregationUpdate.class), any(FindAndModifyOptions.class),
+                eq(Document.class), eq(SchemaRegistry.REGISTRY_COLLECTION))).thenReturn(Mono.just(reconciled));
+        when(template.upsert(any(Query.class), any(Update.class), eq(SchemaRegistry.REGISTRY_COLLECTION)))
+                .thenReturn(Mono.just(UpdateResult.acknowledged(1, 1L, null)));
+        SchemaResult sampled = new SchemaResult("employees", 200, Instant.now(), Map.of(
+                "lastName", new SchemaField("lastName", SchemaFieldType.STRING, true, false, null)));
+
+        StepVerifier.create(registry.reconcile("employees", sampled))
+                .assertNext(snapshot -> assertThat(snapshot.toSchemaResult().fields()).containsOnlyKeys("lastName", "age"))
+                .verifyComplete();
+
+        ArgumentCaptor<AggregationUpdate> update = ArgumentCaptor.forClass(AggregationUpdate.class);
+        verify(template).findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class),
+                eq(Document.class), eq(SchemaRegistry.REGISTRY_COLLECTION));
+        Document set = update.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT).getFirst().get("$set", Document.class);
+        assertThat(set.get("observations", Document.class).getList("$setUnion", Object.class))
+                .contains(new Document("$ifNull", List.of("$recent", List.of())));
+        assertThat(set.get("recent")).isEqualTo(new Document("$literal", List.of()));
+        verify(invalidationBus).evict("schema-registry", "employees");
+
+        // age survived only as a recent write, so the next write of it is recorded again; lastName was sampled
+        StepVerifier.create(registry.observe("employees", List.of(Map.of("lastName", "Smith")))).verifyComplete();
+        verify(template, never()).upsert(any(Query.class), any(Update.class), eq(SchemaRegistry.REGISTRY_COLLECTION));
+        StepVerifier.create(registry.observe("employees", List.of(Map.of("age", 30)))).verifyComplete();
+        ArgumentCaptor<Update> observed = ArgumentCaptor.forClass(Update.class);
+        verify(template).upsert(any(Query.class), observed.capture(), eq(SchemaRegistry.REGISTRY_COLLECTION));
+        assertThat(observed.getValue().getUpdateObject().get("$addToSet", Document.class)).containsKeys("observations", "recent");
+    }
+}
@@ -0,0 +1,122 @@
+package com.acme.employee.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.acme.employee.config.AppProperties;
+import com.acme.employee.exception.BadRequestException;
+import com.acme.employee.support.CollectionNameProvider;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+@ExtendWith(MockitoExtension.class)
+class SuggestionIndexTest {
+
+    @Mock
+    private ReactiveMongoTemplate template;
+
+    private SuggestionIndex index;
+
+    @BeforeEach
+    void setUp() {
+        AppProperties properties = AppProperties.builder()
+                .suggest(new AppProperties.SuggestProperties(List.of("lastName", "email"), 3, 0)).build();
+        index = new SuggestionIndex(template, new CollectionNameProvider("employees"), properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void mergesScannedValuesWithLaterWritesCaseInsensitively() {
+        when(template.find(any(Query.class), eq(Document.class), eq("employees"))).thenReturn(Flux.just(
+                employee("Smith", "jane@acme.com"),
+                employee("smith", "john@acme.com"),
+                employee("Smythe", null),
+                employee("Jones", "ann@acme.com")));
+
+        StepVerifier.create(index.rebuild()).verifyComplete();
+        index.add(List.of(Map.of("lastName", "Smalls"), Map.of("lastName", 42)));
+
+        assertThat(index.suggest("lastName", "sm", 10)).containsExactly("Smalls", "Smith", "Smythe");
+        assertThat(index.suggest("lastName", "SMI", 10)).containsExactly("Smith");
+        assertThat(index.suggest("email", "j", 10)).containsExactly("jane@acme.com", "john@acme.com");
+        assertThat(index.suggest("lastName", "x", 10)).isEmpty();
+    }
+
+    @Test
+    void capsResultsAndRejectsFieldsThatAreNotIndexed() {
+        index.add(List.of(Map.of("lastName", "Adams"), Map.of("lastName", "Allen"),
+                Map.of("lastName", "Alvarez"), Map.of("lastName", "Ames")));
+
+        assertThat(index.suggest("lastName", "a", 50)).containsExactly("Adams", "Allen", "Alvarez");
+        assertThatThrownBy(() -> index.suggest("salary", "1", 5)).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void writesThatLandDuringAScanSurviveIt() {
+        Sinks.Many<Document> scan = Sinks.many().unicast().onBackpressureBuffer();
+        when(template.find(any(Query.class), eq(Document.class), eq("employees"))).thenReturn(scan.asFlux());
+
+        StepVerifier.create(index.rebuild())
+                .then(() -> {
+                    scan.tryEmitNext(employee("Smith", null));
+                    index.add(List.of(Map.of("lastName", "Smalls")));
+                    scan.tryEmitComplete();
+                })
+                .verifyComplete();
+
+        assertThat(index.suggest("lastName", "sm", 10)).containsExactly("Smalls", "Smith");
+    }
+
+    @Test
+    void deletedValuesDisappearOnceNoRowHoldsThem() {
+        when(template.find(any(Query.class), eq(Document.class), eq("employees"))).thenReturn(Flux.just(
+                employee("Smith", null), employee("smith", null)));
+        StepVerifier.create(index.rebuild()).verifyComplete();
+        index.add(List.of(Map.of("lastName", "Smalls")));
+
+        index.remove(List.of(Map.of("lastName", "Smith"), Map.of("lastName", "Smalls")));
+        assertThat(index.suggest("lastName", "sm", 10)).containsExactly("Smith");
+
+        index.remove(List.of(Map.of("lastName", "SMITH")));
+        assertThat(index.suggest("lastName", "sm", 10)).isEmpty();
+    }
+
+    @Test
+    void replacingARowMovesOnlyTheValuesThatChanged() {
+        index.add(List.of(Map.of("lastName", "Smith", "email", "s@acme.com")));
+
+        index.replace(Map.of("lastName", "Smith", "email", "s@acme.com"), Map.of("lastName", "Smith", "email", "t@acme.com"));
+        index.replace(Map.of("lastName", "Smith", "email", "t@acme.com"), Map.of("lastName", "Smyth", "email", "t@acme.com"));
+
+        assertThat(index.suggest("lastName", "sm", 10)).containsExactly("Smyth");
+        assertThat(index.suggest("email", "", 10)).containsExactly("t@acme.com");
+        index.remove(List.of(Map.of("lastName", "Smyth", "email", "t@acme.com")));
+        assertThat(index.suggest("lastName", "sm", 10)).isEmpty();
+        assertThat(index.suggest("email", "", 10)).isEmpty();
+    }
+
+    private static Document employee(String lastName, String email) {
+        Document attributes = new Document("lastName", lastName);
+        if (email != null) {
+            attributes.append("email", email);
+        }
+        return new Document("attributes", attributes);
+    }
+}
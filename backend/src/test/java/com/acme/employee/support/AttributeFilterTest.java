@@ -0,0 +1,43 @@
+package com.acme.employee.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class AttributeFilterTest {
+
+    private final Map<String, Object> attributes = Map.of(
+            "department", "Sales",
+            "salary", 5000,
+            "active", true,
+            "skills", List.of("java", "mongo"),
+            "hiredAt", Date.from(Instant.parse("2020-03-01T00:00:00Z")));
+
+    @Test
+    void comparesByTheStoredValueType() {
+        assertThat(AttributeFilter.of(Map.of("salary", "gt:4999.5")).matches(attributes)).isTrue();
+        assertThat(AttributeFilter.of(Map.of("salary", "5000.0")).matches(attributes)).isTrue();
+        assertThat(AttributeFilter.of(Map.of("hiredAt", "lt:2021-01-01T00:00:00Z")).matches(attributes)).isTrue();
+        assertThat(AttributeFilter.of(Map.of("active", "false")).matches(attributes)).isFalse();
+        assertThat(AttributeFilter.of(Map.of("department", "contains:ale")).matches(attributes)).isTrue();
+        assertThat(AttributeFilter.of(Map.of("salary", "gt:lots")).matches(attributes)).isFalse();
+    }
+
+    @Test
+    void arraysMatchOnAnyElementAndEveryConditionMustHold() {
+        assertThat(AttributeFilter.of(Map.of("skills", "mongo", "department", "Sales")).matches(attributes)).isTrue();
+        assertThat(AttributeFilter.of(Map.of("skills", "mongo", "department", "Support")).matches(attributes)).isFalse();
+        assertThat(AttributeFilter.of(Map.of("nickname", "Al")).matches(attributes)).isFalse();
+    }
+
+    @Test
+    void blankAndUnknownConditionsAreIgnored() {
+        assertThat(AttributeFilter.of(Map.of("department", "")).matchesAll()).isTrue();
+        assertThat(AttributeFilter.of(Map.of("department", "regex:^S")).matches(attributes)).isTrue();
+    }
+}
@@ -0,0 +1,55 @@
+package com.acme.employee.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import com.acme.employee.dto.EmployeeResponse;
+import com.acme.employee.dto.PageResponse;
+
+class EntityTagsTest {
+
+    private final EmployeeResponse employee = new EmployeeResponse("66a1f0c2e4b0a1b2c3d4e5f6", Map.of("firstName", "Jane"),
+            false, Instant.parse("2024-05-01T10:15:30Z"), Instant.parse("2024-05-02T08:00:00.123456Z"), 7);
+
+    @Test
+    void strongTagRoundTripsThroughIfMatch() {
+        String tag = EntityTags.strong(employee);
+
+        assertThat(EntityTags.parseIfMatch("\"other\", " + tag))
+                .contains(List.of(new EntityTags.Version(7, Instant.parse("2024-05-02T08:00:00.123Z").toEpochMilli())));
+    }
+
+    @Test
+    void binaryRepresentationsGetTheirOwnTagButMatchTheSameVersion() {
+        String json = EntityTags.strong(employee, MediaType.APPLICATION_JSON);
+        String cbor = EntityTags.strong(employee, MediaType.APPLICATION_CBOR);
+
+        assertThat(json).isEqualTo(EntityTags.strong(employee));
+        assertThat(cbor).isNotEqualTo(json).endsWith("+cbor\"");
+        assertThat(EntityTags.parseIfMatch(cbor)).isEqualTo(EntityTags.parseIfMatch(json));
+    }
+
+    @Test
+    void wildcardAndWeakTagsAreHandled() {
+        assertThat(EntityTags.parseIfMatch("*")).isEmpty();
+        assertThat(EntityTags.parseIfMatch(null)).isEmpty();
+        assertThat(EntityTags.parseIfMatch("W/" + EntityTags.strong(employee))).contains(List.of());
+    }
+
+    @Test
+    void weakPageTagChangesWithContent() {
+        PageResponse<EmployeeResponse> page = new PageResponse<>(List.of(employee), 1, true, 0, 20, 1, false, false, null);
+        EmployeeResponse updated = new EmployeeResponse(employee.id(), employee.attributes(), false,
+                employee.createdAt(), employee.updatedAt(), 8);
+        PageResponse<EmployeeResponse> changed = new PageResponse<>(List.of(updated), 1, true, 0, 20, 1, false, false, null);
+
+        assertThat(EntityTags.weak(page)).startsWith("W/\"").isEqualTo(EntityTags.weak(page));
+        assertThat(EntityTags.weak(changed)).isNotEqualTo(EntityTags.weak(page));
+    }
+}
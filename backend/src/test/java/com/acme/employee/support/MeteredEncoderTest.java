@@ -0,0 +1,52 @@
+package com.acme.employee.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+class MeteredEncoderTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final MeteredEncoder encoder = new MeteredEncoder(new Jackson2JsonEncoder(new ObjectMapper()), "json",
+            meterRegistry);
+
+    @Test
+    void timesSingleValuesAndRecordsTheirSize() {
+        List<DataBuffer> buffers = encoder.encode(Mono.just(Map.of("lastName", "Smith")),
+                DefaultDataBufferFactory.sharedInstance, ResolvableType.forClass(Map.class),
+                MediaType.APPLICATION_JSON, Map.of()).collectList().block();
+
+        assertThat(buffers).singleElement().extracting(DataBuffer::readableByteCount).isEqualTo(20);
+        buffers.forEach(DataBufferUtils::release);
+        assertThat(meterRegistry.get("employees.codec.encode").tag("format", "json").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("employees.codec.payload.size").summary().totalAmount()).isEqualTo(20);
+    }
+
+    @Test
+    void countsStreamedBytesWithoutTimingTheStream() {
+        List<DataBuffer> buffers = encoder.encode(Flux.just(Map.of("a", 1), Map.of("b", 2)),
+                DefaultDataBufferFactory.sharedInstance, ResolvableType.forClass(Map.class),
+                MediaType.APPLICATION_NDJSON, Map.of()).collectList().block();
+
+        long bytes = buffers.stream().mapToLong(DataBuffer::readableByteCount).sum();
+        buffers.forEach(DataBufferUtils::release);
+        assertThat(bytes).isEqualTo(16);
+        assertThat(meterRegistry.get("employees.codec.payload.size").summary().totalAmount()).isEqualTo(16);
+        assertThat(meterRegistry.get("employees.codec.encode").timer().count()).isZero();
+    }
+}
@@ -0,0 +1,38 @@
+package com.acme.employee.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+
+import com.acme.employee.exception.BadRequestException;
+
+class PageCursorTest {
+
+    @Test
+    void roundTripsTypedSortValues() {
+        Instant createdAt = Instant.parse("2024-05-01T10:15:30Z");
+
+        PageCursor byDate = PageCursor.decode(new PageCursor("createdAt", createdAt, "66a1f0c2e4b0a1b2c3d4e5f6").encode());
+        assertThat(byDate.sortField()).isEqualTo("createdAt");
+        assertThat(byDate.lastValue()).isEqualTo(Date.from(createdAt));
+        assertThat(byDate.lastId()).isEqualTo("66a1f0c2e4b0a1b2c3d4e5f6");
+
+        PageCursor byName = PageCursor.decode(new PageCursor("attributes.lastName", "O'Brien", "abc").encode());
+        assertThat(byName.lastValue()).isEqualTo("O'Brien");
+
+        PageCursor byMissing = PageCursor.decode(new PageCursor("attributes.age", null, "abc").encode());
+        assertThat(byMissing.lastValue()).isNull();
+    }
+
+    @Test
+    void rejectsMalformedTokens() {
+        assertThatThrownBy(() -> PageCursor.decode("not-a-cursor"))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> PageCursor.decode(" "))
+                .isInstanceOf(BadRequestException.class);
+    }
+}
@@ -0,0 +1,45 @@
+package com.acme.employee.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+class QueryShapeTest {
+
+    @Test
+    void stripsLiteralsButKeepsFieldsOperatorsAndSort() {
+        Query first = new Query(new Criteria().andOperator(
+                Criteria.where("deleted").is(false),
+                Criteria.where("attributes.salary").gt(5000),
+                Criteria.where("attributes.team").in(List.of("a", "b"))))
+                .with(Sort.by(Sort.Direction.DESC, "attributes.lastName"));
+        Query second = new Query(new Criteria().andOperator(
+                Criteria.where("deleted").is(true),
+                Criteria.where("attributes.salary").gt(10),
+                Criteria.where("attributes.team").in(List.of("c"))))
+                .with(Sort.by(Sort.Direction.DESC, "attributes.lastName"));
+
+        QueryShape shape = QueryShape.of(first.getQueryObject(), first.getSortObject());
+
+        assertThat(shape).isEqualTo(QueryShape.of(second.getQueryObject(), second.getSortObject()));
+        assertThat(shape.text())
+                .contains("\"attributes.salary\": {\"$gt\": \"?\"}")
+                .contains("\"attributes.team\": {\"$in\": \"?\"}")
+                .contains("sort {\"attributes.lastName\": -1}")
+                .doesNotContain("5000");
+    }
+
+    @Test
+    void differentOperatorsAreDifferentShapes() {
+        QueryShape greater = QueryShape.of(new Document("age", new Document("$gt", 1)), null);
+        QueryShape less = QueryShape.of(new Document("age", new Document("$lt", 1)), null);
+
+        assertThat(greater.id()).isNotEqualTo(less.id());
+    }
+}
@@ -0,0 +1,112 @@
+package com.acme.employee.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+class SingleFlightTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final SingleFlight<String, String> flights = new SingleFlight<>("list", meterRegistry);
+    private final AtomicInteger loads = new AtomicInteger();
+    private final AtomicInteger cancelled = new AtomicInteger();
+    private Sinks.One<String> result = Sinks.one();
+
+    @Test
+    void concurrentCallersShareOneLoadAndLaterCallersStartAnother() {
+        Mono<String> first = flights.execute("page-0", this::load);
+        Mono<String> second = flights.execute("page-0", this::load);
+
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> result.tryEmitValue("v1"))
+                .assertNext(both -> assertThat(both.getT1()).isEqualTo("v1").isEqualTo(both.getT2()))
+                .verifyComplete();
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.get("employees.singleflight.joined").counter().count()).isEqualTo(1);
+
+        result = Sinks.one();
+        StepVerifier.create(flights.execute("page-0", this::load))
+                .then(() -> result.tryEmitValue("v2"))
+                .expectNext("v2")
+                .verifyComplete();
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void loadIsCancelledOnlyWhenEveryCallerHasCancelled() {
+        Disposable dropped = flights.execute("page-0", this::load).subscribe();
+        Disposable alsoDropped = flights.execute("page-0", this::load).subscribe();
+
+        StepVerifier.create(flights.execute("page-0", this::load))
+                .then(() -> {
+                    dropped.dispose();
+                    alsoDropped.dispose();
+                    assertThat(cancelled).hasValue(0);
+                    result.tryEmitValue("v1");
+                })
+                .expectNext("v1")
+                .verifyComplete();
+
+        result = Sinks.one();
+        flights.execute("page-1", this::load).subscribe().dispose();
+        assertThat(cancelled).hasValue(1);
+        assertThat(meterRegistry.get("employees.singleflight.inflight").gauge().value()).isZero();
+    }
+
+    @Test
+    void callersAfterADetachDoNotJoinTheEarlierLoad() {
+        Sinks.One<String> beforeWrite = result;
+        StepVerifier.create(flights.execute("page-0", this::load))
+                .then(() -> {
+                    flights.detachAll();
+                    result = Sinks.one();
+                    StepVerifier.create(flights.execute("page-0", this::load))
+                            .then(() -> result.tryEmitValue("after"))
+                            .expectNext("after")
+                            .verifyComplete();
+                    beforeWrite.tryEmitValue("before");
+                })
+                .expectNext("before")
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void writesDetachAsTheyStartAndBeforeTheyAnswer() {
+        Sinks.One<String> beforeWrite = result;
+        Disposable earlier = flights.execute("page-0", this::load).subscribe();
+        Sinks.One<String> write = Sinks.one();
+
+        StepVerifier.create(flights.detaching(write.asMono()))
+                .then(() -> {
+                    // the read that began before the write is no longer joined
+                    result = Sinks.one();
+                    flights.execute("page-0", this::load).subscribe();
+                    assertThat(loads).hasValue(2);
+                    write.tryEmitValue("written");
+                })
+                .expectNext("written")
+                .verifyComplete();
+        // nor is the one that began while it ran
+        flights.execute("page-0", this::load).subscribe();
+        assertThat(loads).hasValue(3);
+
+        earlier.dispose();
+        beforeWrite.tryEmitEmpty();
+    }
+
+    private Mono<String> load() {
+        loads.incrementAndGet();
+        return result.asMono().doOnCancel(cancelled::incrementAndGet);
+    }
+}
@@ -0,0 +1,40 @@
+package com.acme.employee.support;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.ServerAddress;
+
+class TextSearchTest {
+
+    @Test
+    void quotesEachWordSoAllMustMatch() {
+        assertThat(TextSearch.toSearchString("  Jane   Smith ")).contains("\"Jane\" \"Smith\"");
+        assertThat(TextSearch.toSearchString("say \"hi\"")).contains("\"say\" \"hi\"");
+        assertThat(TextSearch.toSearchString("jane@acme.com")).contains("\"jane@acme.com\"");
+    }
+
+    @Test
+    void leavesTermsWithoutIndexableWordsToTheRegexPath() {
+        assertThat(TextSearch.toSearchString("@ -- ?")).isEmpty();
+        assertThat(TextSearch.toSearchString("   ")).isEmpty();
+        assertThat(TextSearch.toSearchString(null)).isEmpty();
+    }
+
+    @Test
+    void recognisesMissingTextIndexInWrappedDriverErrors() {
+        BsonDocument reply = new BsonDocument("ok", new BsonInt32(0))
+                .append("code", new BsonInt32(27))
+                .append("errmsg", new BsonString("text index required for $text query"));
+        MongoCommandException driverError = new MongoCommandException(reply, new ServerAddress());
+
+        assertThat(TextSearch.isMissingTextIndex(new InvalidDataAccessApiUsageException("wrapped", driverError))).isTrue();
+        assertThat(TextSearch.isMissingTextIndex(new IllegalStateException("other"))).isFalse();
+    }
+}
@@ -1,5 +1,12 @@
 import http from '../lib/http.ts';
-import type { Employee, EmployeeQueryParams, PageResponse } from '../types/employee.ts';
+import type {
+  Employee,
+  EmployeeChangeEvent,
+  EmployeeChangeType,
+  EmployeeQueryParams,
+  FacetResponse,
+  PageResponse
+} from '../types/employee.ts';
 
 function buildQuery(params: EmployeeQueryParams = {}) {
   const searchParams = new URLSearchParams();
@@ -8,6 +15,8 @@ function buildQuery(params: EmployeeQueryParams = {}) {
   if (params.sort) searchParams.set('sort', params.sort);
   if (params.direction) searchParams.set('direction', params.direction);
   if (params.search) searchParams.set('search', params.search);
+  if (params.cursor !== undefined) searchParams.set('cursor', params.cursor);
+  if (params.fields?.length) searchParams.set('fields', params.fields.join(','));
 
   if (params.filters) {
     Object.entries(params.filters).forEach(([key, value]) => {
@@ -28,6 +37,43 @@ export async function fetchEmployees(params: EmployeeQueryParams = {}, signal?:
   return response.data;
 }
 
+export async function fetchFacets(
+  fields: string[],
+  params: Pick<EmployeeQueryParams, 'search' | 'filters'> = {},
+  signal?: AbortSignal
+) {
+  const query = buildQuery(params);
+  const separator = query ? '&' : '?';
+  const response = await http.get<FacetResponse>(
+    `/api/employees/facets${query}${separator}fields=${encodeURIComponent(fields.join(','))}`,
+    { signal }
+  );
+  return response.data;
+}
+
+export async function fetchSuggestions(field: string, prefix: string, signal?: AbortSignal) {
+  const response = await http.get<string[]>('/api/employees/suggest', {
+    params: { field, prefix },
+    signal
+  });
+  return response.data;
+}
+
+// EventSource resends Last-Event-ID on its own reconnects, so a dropped connection resumes where it
+// left off; the endpoint is a public read and needs no token.
+export function subscribeToEmployeeChanges(
+  filters: Record<string, string>,
+  onChange: (event: EmployeeChangeEvent) => void
+) {
+  const url = new URL(`/api/employees/stream${buildQuery({ filters })}`, http.defaults.baseURL);
+  const source = new EventSource(url);
+  const types: EmployeeChangeType[] = ['insert', 'update', 'delete', 'removed', 'reset'];
+  types.forEach((type) =>
+    source.addEventListener(type, (message) => onChange(JSON.parse((message as MessageEvent<string>).data)))
+  );
+  return () => source.close();
+}
+
 export interface UpsertPayload {
   attributes: Record<string, unknown>;
 }
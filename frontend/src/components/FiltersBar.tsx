@@ -1,5 +1,7 @@
-﻿import { useState } from 'react';
+﻿import { useEffect, useState } from 'react';
 
+import { fetchSuggestions } from '../api/employees.ts';
+import { useFacets } from '../hooks/useEmployees.ts';
 import type { SchemaField } from '../types/schema.ts';
 
 interface FiltersBarProps {
@@ -14,6 +16,27 @@ function FiltersBar({ fields, search, activeFilters, onSearchChange, onFiltersCh
   const [selectedField, setSelectedField] = useState<string>(fields[0]?.name ?? '');
   const [operator, setOperator] = useState<string>('contains');
   const [value, setValue] = useState<string>('');
+  const [suggestions, setSuggestions] = useState<string[]>([]);
+
+  // counts ignore the field's own filter, so its other values stay visible while one is applied
+  const { [selectedField]: _, ...otherFilters } = activeFilters;
+  const facetsQuery = useFacets(selectedField ? [selectedField] : [], { search, filters: otherFilters });
+  const topValues = (facetsQuery.data?.facets[selectedField] ?? []).filter(
+    (bucket) => ['string', 'number', 'boolean'].includes(typeof bucket.value)
+  );
+
+  useEffect(() => {
+    if (!selectedField || !value.trim()) {
+      setSuggestions([]);
+      return;
+    }
+    const controller = new AbortController();
+    // fields without a suggestion index answer 400; the input simply has no suggestions then
+    fetchSuggestions(selectedField, value, controller.signal)
+      .then(setSuggestions)
+      .catch(() => setSuggestions([]));
+    return () => controller.abort();
+  }, [selectedField, value]);
 
   const handleAddFilter = () => {
     if (!selectedField || !value) return;
@@ -24,6 +47,13 @@ function FiltersBar({ fields, search, activeFilters, onSearchChange, onFiltersCh
     setValue('');
   };
 
+  const handleApplyValue = (facetValue: unknown) => {
+    onFiltersChange({
+      ...activeFilters,
+      [selectedField]: `eq:${String(facetValue)}`
+    });
+  };
+
   const handleRemoveFilter = (field: string) => {
     const { [field]: _, ...rest } = activeFilters;
     onFiltersChange(rest);
@@ -78,11 +108,17 @@ function FiltersBar({ fields, search, activeFilters, onSearchChange, onFiltersCh
             </select>
             <input
               type="text"
+              list="filter-value-suggestions"
               value={value}
               onChange={(event) => setValue(event.target.value)}
               className="w-full min-w-0 rounded border border-slate-700 bg-slate-900 px-3 py-2 text-sm text-slate-100 sm:flex-1"
               placeholder="Value"
             />
+            <datalist id="filter-value-suggestions">
+              {suggestions.map((suggestion) => (
+                <option key={suggestion} value={suggestion} />
+              ))}
+            </datalist>
             <button
               type="button"
               onClick={handleAddFilter}
@@ -93,6 +129,24 @@ function FiltersBar({ fields, search, activeFilters, onSearchChange, onFiltersCh
           </div>
         </div>
 
+        {/* Top values of the selected field, narrowed by the other filters */}
+        {topValues.length > 0 ? (
+          <div className="mt-4 flex flex-wrap items-center gap-2">
+            <span className="text-xs font-semibold uppercase text-slate-400">Top values</span>
+            {topValues.map((bucket) => (
+              <button
+                key={String(bucket.value)}
+                type="button"
+                onClick={() => handleApplyValue(bucket.value)}
+                className="inline-flex items-center gap-2 rounded-full border border-slate-700 bg-slate-900 px-3 py-1 text-xs text-slate-200 hover:border-sky-400/60"
+              >
+                {String(bucket.value)}
+                <span className="text-slate-500">{bucket.count}</span>
+              </button>
+            ))}
+          </div>
+        ) : null}
+
         {/* Row 3: Active filter chips */}
         {Object.entries(activeFilters).length > 0 ? (
           <div className="mt-4 flex flex-wrap gap-2">
@@ -1,3 +1,4 @@
+import { useEffect } from 'react';
 import { keepPreviousData, useMutation, useQuery, useQueryClient } from '@tanstack/react-query';
 import toast from 'react-hot-toast';
 
@@ -5,11 +6,14 @@ import {
   createEmployee,
   deleteEmployee,
   fetchEmployees,
+  fetchFacets,
   patchEmployee,
   replaceEmployee,
+  subscribeToEmployeeChanges,
   type EmployeeQueryParams,
   type UpsertPayload
 } from '../api/employees.ts';
+import type { Employee, PageResponse } from '../types/employee.ts';
 
 export function useEmployees(params: EmployeeQueryParams) {
   return useQuery({
@@ -19,6 +23,52 @@ export function useEmployees(params: EmployeeQueryParams) {
   });
 }
 
+// Keyed under 'employees' so the invalidations that follow writes and change events refresh counts too
+export function useFacets(fields: string[], params: Pick<EmployeeQueryParams, 'search' | 'filters'>) {
+  return useQuery({
+    queryKey: ['employees', 'facets', fields, params],
+    queryFn: ({ signal }) => fetchFacets(fields, params, signal),
+    enabled: fields.length > 0,
+    placeholderData: keepPreviousData
+  });
+}
+
+// Keeps cached pages current from the change feed: updates are patched into the pages that hold
+// the employee, while inserts, deletes and resets can move rows across pages and refetch instead.
+export function useEmployeeChanges(filters: Record<string, string> = {}) {
+  const queryClient = useQueryClient();
+  const filterKey = JSON.stringify(filters);
+
+  useEffect(() => {
+    return subscribeToEmployeeChanges(JSON.parse(filterKey), (event) => {
+      const employee = event.employee;
+      if (event.type === 'UPDATE' && employee) {
+        queryClient.setQueriesData<PageResponse<Employee>>({ queryKey: ['employees'] }, (page) => {
+          if (!page?.content?.some((row) => row.id === employee.id && row.version < employee.version)) {
+            return page;
+          }
+          return {
+            ...page,
+            content: page.content.map((row) => (row.id === employee.id ? employee : row))
+          };
+        });
+        return;
+      }
+      // an update took a row out of this view's filter; only pages that show it need refetching
+      if (event.type === 'REMOVED') {
+        const shown = queryClient
+          .getQueriesData<PageResponse<Employee>>({ queryKey: ['employees'] })
+          .some(([, page]) => page?.content?.some((row) => row.id === event.id));
+        if (shown) {
+          queryClient.invalidateQueries({ queryKey: ['employees'] });
+        }
+        return;
+      }
+      queryClient.invalidateQueries({ queryKey: ['employees'] });
+    });
+  }, [queryClient, filterKey]);
+}
+
 export function useCreateEmployee() {
   const queryClient = useQueryClient();
   return useMutation({
@@ -7,7 +7,13 @@ import FiltersBar from '../components/FiltersBar.tsx';
 import PaginationControls from '../components/PaginationControls.tsx';
 import ErrorState from '../components/states/ErrorState.tsx';
 import LoadingState from '../components/states/LoadingState.tsx';
-import { useCreateEmployee, useDeleteEmployee, useEmployees, useReplaceEmployee } from '../hooks/useEmployees.ts';
+import {
+  useCreateEmployee,
+  useDeleteEmployee,
+  useEmployeeChanges,
+  useEmployees,
+  useReplaceEmployee
+} from '../hooks/useEmployees.ts';
 import { useSchema } from '../hooks/useSchema.ts';
 import type { Employee } from '../types/employee.ts';
 import type { SchemaField } from '../types/schema.ts';
@@ -38,6 +44,7 @@ function EmployeesPage() {
     search: search.trim() || undefined,
     filters: filters
   });
+  useEmployeeChanges(filters);
 
   const createEmployee = useCreateEmployee();
   const replaceEmployee = useReplaceEmployee();
@@ -8,16 +8,19 @@ export interface Employee {
   deleted: boolean;
   createdAt: string;
   updatedAt: string;
+  version: number;
 }
 
 export interface PageResponse<T> {
   content: T[];
   totalElements: number;
+  totalExact: boolean;
   page: number;
   size: number;
   totalPages: number;
   hasNext: boolean;
   hasPrevious: boolean;
+  nextCursor?: string;
 }
 
 export interface EmployeeQueryParams {
@@ -26,6 +29,24 @@ export interface EmployeeQueryParams {
   sort?: string;
   direction?: 'asc' | 'desc';
   search?: string;
+  cursor?: string;
+  fields?: string[];
   filters?: Record<string, string>;
 }
 
+export interface FacetBucket {
+  value: unknown;
+  count: number;
+}
+
+export interface FacetResponse {
+  facets: Record<string, FacetBucket[]>;
+}
+
+export type EmployeeChangeType = 'insert' | 'update' | 'delete' | 'removed' | 'reset';
+
+export interface EmployeeChangeEvent {
+  type: Uppercase<EmployeeChangeType>;
+  id: string | null;
+  employee: Employee | null;
+}